@@ -1,22 +1,75 @@
 package com.icthh.xm.commons.config.client.api;
 
+import com.icthh.xm.commons.config.client.metric.ConfigRefreshMetricsSet;
 import com.icthh.xm.commons.config.domain.Configuration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Slf4j
 public abstract class AbstractConfigService implements ConfigService {
 
-    private final List<ConfigurationChangedListener> configurationListeners = new ArrayList<>();
+    private final List<ListenerRegistration> configurationListeners = new CopyOnWriteArrayList<>();
+    private final Map<ListenerRegistration, CompletableFuture<Void>> listenerLanes = new HashMap<>();
+
+    private ConfigRefreshMetricsSet refreshMetrics = new ConfigRefreshMetricsSet();
+    private ExecutorService listenerExecutor;
+    private long listenerTimeoutMs;
 
     @Override
     public void addConfigurationChangedListener(ConfigurationChangedListener configurationListener) {
-        this.configurationListeners.add(configurationListener);
+        addConfigurationChangedListener(configurationListener.getClass().getSimpleName(), configurationListener);
+    }
+
+    @Override
+    public void addConfigurationChangedListener(String name, ConfigurationChangedListener configurationListener) {
+        this.configurationListeners.add(new ListenerRegistration(name, configurationListener));
+    }
+
+    public void setRefreshMetrics(ConfigRefreshMetricsSet refreshMetrics) {
+        this.refreshMetrics = refreshMetrics;
+    }
+
+    /**
+     * Notify listeners in parallel. Each listener receives configurations in the same order as in serial mode,
+     * a slow or failed listener does not affect other listeners.
+     *
+     * @param parallelism max count of listeners refreshed at the same time
+     * @param timeoutMs max time to wait for all listeners before the update call returns
+     */
+    public void enableParallelDispatch(int parallelism, long timeoutMs) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.listenerExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "xm-config-listener-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.listenerTimeoutMs = timeoutMs;
+    }
+
+    /**
+     * Stop the listener threads of parallel dispatch, updates in progress are completed in background.
+     */
+    public void close() {
+        if (listenerExecutor != null) {
+            listenerExecutor.shutdown();
+        }
     }
 
     /**
@@ -28,7 +81,13 @@ public abstract class AbstractConfigService implements ConfigService {
     @Override
     public void updateConfigurations(String commit, Collection<String> paths) {
         Map<String, Configuration> configurationsMap = getConfigurationMap(commit, paths);
-        paths.forEach(path -> notifyUpdated(getNonNullConfiguration(configurationsMap, path)));
+        if (listenerExecutor == null) {
+            paths.forEach(path -> notifyUpdated(getNonNullConfiguration(configurationsMap, path)));
+        } else {
+            notifyUpdatedInParallel(paths.stream()
+                                         .map(path -> getNonNullConfiguration(configurationsMap, path))
+                                         .collect(Collectors.toList()));
+        }
     }
 
     protected void notifyUpdated(Configuration configuration) {
@@ -37,8 +96,67 @@ public abstract class AbstractConfigService implements ConfigService {
         if (configuration == null) {
             return;
         }
-        configurationListeners.forEach(configurationListener ->
-            configurationListener.onConfigurationChanged(configuration));
+        configurationListeners.forEach(registration -> {
+            long startNanos = System.nanoTime();
+            try {
+                registration.getListener().onConfigurationChanged(configuration);
+            } finally {
+                refreshMetrics.onListenerRefresh(registration.getName(), System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    private void notifyUpdatedInParallel(List<Configuration> configurations) {
+        List<ListenerRegistration> registrations = new ArrayList<>(configurationListeners);
+        List<CompletableFuture<Void>> refreshes = new ArrayList<>(registrations.size());
+
+        // every listener has own lane, so the next update of the path waits for the previous one
+        // even if the previous update call returned by timeout
+        synchronized (listenerLanes) {
+            registrations.forEach(registration -> {
+                CompletableFuture<Void> refresh = listenerLanes
+                    .getOrDefault(registration, CompletableFuture.completedFuture(null))
+                    // failure of the previous update is already reported, it must not skip the next updates
+                    .exceptionally(e -> null)
+                    .thenRunAsync(() -> notifyListener(registration, configurations), listenerExecutor);
+                listenerLanes.put(registration, refresh);
+                refreshes.add(refresh);
+            });
+        }
+
+        try {
+            CompletableFuture.allOf(refreshes.toArray(new CompletableFuture[0]))
+                             .get(listenerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            for (int i = 0; i < registrations.size(); i++) {
+                if (!refreshes.get(i).isDone()) {
+                    refreshMetrics.onListenerTimeout();
+                    log.warn("Configuration listener [{}] not finished refresh in {} ms, continue in background",
+                        registrations.get(i).getName(), listenerTimeoutMs);
+                }
+            }
+        } catch (ExecutionException e) {
+            log.error("Error notify configuration listeners", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void notifyListener(ListenerRegistration registration, List<Configuration> configurations) {
+        long startNanos = System.nanoTime();
+        for (Configuration configuration : configurations) {
+            try {
+                registration.getListener().onConfigurationChanged(configuration);
+            } catch (Exception e) {
+                refreshMetrics.onListenerError();
+                log.error("Configuration listener [{}] failed on [{}]",
+                    registration.getName(), configuration.getPath(), e);
+            }
+        }
+        long refreshNanos = System.nanoTime() - startNanos;
+        refreshMetrics.onListenerRefresh(registration.getName(), refreshNanos);
+        log.debug("Configuration listener [{}] refreshed {} configurations in {} ms",
+            registration.getName(), configurations.size(), TimeUnit.NANOSECONDS.toMillis(refreshNanos));
     }
 
     private Configuration getNonNullConfiguration(final Map<String, Configuration> configurationsMap,
@@ -46,4 +164,12 @@ public abstract class AbstractConfigService implements ConfigService {
         return Optional.ofNullable(configurationsMap.get(path))
                        .orElseGet(() -> new Configuration(path, null));
     }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class ListenerRegistration {
+
+        private final String name;
+        private final ConfigurationChangedListener listener;
+    }
 }
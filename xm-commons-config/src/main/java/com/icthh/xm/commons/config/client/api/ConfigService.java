@@ -10,6 +10,22 @@ public interface ConfigService {
 
     Map<String, Configuration> getConfigurationMap(String commit);
     Map<String, Configuration> getConfigurationMap(String commit, Collection<String> paths);
+
+    /**
+     * Pass all configurations of the commit to the consumer one by one.
+     *
+     * @param commit commit hash, latest configuration if null
+     * @param configurationConsumer consumer of configurations
+     */
+    default void getConfigurations(String commit, Consumer<Configuration> configurationConsumer) {
+        getConfigurationMap(commit).values().forEach(configurationConsumer);
+    }
+
     void addConfigurationChangedListener(ConfigurationChangedListener listener);
+
+    default void addConfigurationChangedListener(String name, ConfigurationChangedListener listener) {
+        addConfigurationChangedListener(listener);
+    }
+
     void updateConfigurations(String commit, Collection<String> paths);
 }
@@ -8,20 +8,39 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @RequiredArgsConstructor
-public class InitRefreshableConfigurationBeanPostProcessor implements BeanPostProcessor {
+public class InitRefreshableConfigurationBeanPostProcessor implements BeanPostProcessor,
+                                                                      ApplicationListener<ContextRefreshedEvent> {
 
     public static final String LOG_CONFIG_EMPTY = "<CONFIG_EMPTY>";
+    public static final String LOG_CONFIG_DELETED = "<CONFIG_DELETED>";
 
     private final ConfigService configService;
 
     private final Map<String, RefreshableConfiguration> refreshableConfigurations = new HashMap<>();
-    private Map<String, Configuration> configMap;
+    /**
+     * Configurations streamed once for all beans created on context startup, released when context is refreshed.
+     */
+    private List<Configuration> initConfigurations;
+
+    /**
+     * Last hashed content by path. All listeners receive the same content instance for an update,
+     * so the hash is calculated once per update and shared between beans. The content is weakly referenced
+     * to not retain the whole configuration after beans are refreshed.
+     */
+    private final Map<String, ContentHash> contentHashes = new ConcurrentHashMap<>();
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) {
@@ -35,54 +54,88 @@ public class InitRefreshableConfigurationBeanPostProcessor implements BeanPostPr
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) {
         if (refreshableConfigurations.containsKey(beanName)) {
-            initBean(refreshableConfigurations.get(beanName), getConfig());
+            initBean(refreshableConfigurations.get(beanName));
         }
         return bean;
     }
 
-    private Map<String, Configuration> getConfig() {
-        if (configMap == null) {
-            configMap = configService.getConfigurationMap(null);
+    @Override
+    public synchronized void onApplicationEvent(ContextRefreshedEvent event) {
+        initConfigurations = null;
+    }
+
+    /**
+     * Get configurations for beans created on context startup. Configurations are streamed from config service
+     * on first call and parsed once for all beans, the response is not buffered.
+     */
+    private synchronized List<Configuration> getInitConfigurations() {
+        if (initConfigurations == null) {
+            List<Configuration> configurations = new ArrayList<>();
+            configService.getConfigurations(null, configurations::add);
+            initConfigurations = configurations;
         }
-        return configMap;
+        return initConfigurations;
     }
 
-    private void initBean(RefreshableConfiguration refreshableConfiguration, Map<String, Configuration> configMap) {
-        configMap.forEach((key, value) -> {
+    /**
+     * Initialize the bean with configurations fetched once on context startup. Beans created after the context
+     * is refreshed, e.g. lazy beans, fetch configurations again.
+     */
+    private void initBean(RefreshableConfiguration refreshableConfiguration) {
+        Map<String, String> appliedHashes = new ConcurrentHashMap<>();
+        AtomicInteger entries = new AtomicInteger();
+
+        getInitConfigurations().forEach(value -> {
+            entries.incrementAndGet();
+            String key = value.getPath();
             if (refreshableConfiguration.isListeningConfiguration(key)) {
+                String hash = getValueHash(key, value.getContent());
                 log.info(
                     "Process config init event: [key = {}, size = {}, newHash = {}] in bean: [{}]",
                     key,
                     StringUtils.length(value.getContent()),
-                    getValueHash(value.getContent()),
+                    hash,
                     getBeanName(refreshableConfiguration));
 
                 refreshableConfiguration.onInit(key, value.getContent());
+                appliedHashes.put(key, hash);
             }
         });
 
         log.info("refreshable configuration bean [{}] initialized by configMap with {} entries",
-            getBeanName(refreshableConfiguration), configMap.size());
+            getBeanName(refreshableConfiguration), entries.get());
 
-        configService.addConfigurationChangedListener(configuration -> onEntryChange(refreshableConfiguration, configuration));
+        configService.addConfigurationChangedListener(getBeanName(refreshableConfiguration),
+            configuration -> onEntryChange(refreshableConfiguration, appliedHashes, configuration));
     }
 
-    private void onEntryChange(RefreshableConfiguration refreshableConfiguration, Configuration configuration) {
+    private void onEntryChange(RefreshableConfiguration refreshableConfiguration,
+                               Map<String, String> appliedHashes,
+                               Configuration configuration) {
+        String path = configuration.getPath();
         String configContent = configuration.getContent();
 
-        if (refreshableConfiguration.isListeningConfiguration(configuration.getPath())) {
-            refreshableConfiguration.onRefresh(configuration.getPath(), configContent);
+        if (refreshableConfiguration.isListeningConfiguration(path)) {
+            String hash = getValueHash(path, configContent);
+            if (hash.equals(appliedHashes.get(path))) {
+                log.debug("Skip unchanged config update event: [path = {}, hash = {}] in bean: [{}]",
+                    path, hash, getBeanName(refreshableConfiguration));
+                return;
+            }
+
+            refreshableConfiguration.onRefresh(path, configContent);
+            appliedHashes.put(path, hash);
 
             log.info(
                 "Process config update event: "
                     + "[path = {}, size = {}, hash = {}] in bean: [{}]",
-                configuration.getPath(),
+                path,
                 StringUtils.length(configContent),
-                getValueHash(configContent),
+                hash,
                 getBeanName(refreshableConfiguration));
         } else {
             log.debug("Ignored config update event: [path = {}, configSize = {} in bean [{}]",
-                configuration.getPath(),
+                path,
                 StringUtils.length(configContent),
                 getBeanName(refreshableConfiguration));
         }
@@ -92,8 +145,30 @@ public class InitRefreshableConfigurationBeanPostProcessor implements BeanPostPr
         return refreshableConfiguration.getClass().getSimpleName();
     }
 
+    private String getValueHash(final String path, final String configContent) {
+        if (configContent == null) {
+            // deleted config, not compared with the cached content which may be already collected
+            contentHashes.remove(path);
+            return LOG_CONFIG_DELETED;
+        }
+        ContentHash contentHash = contentHashes.get(path);
+        // reference check: the same content instance is shared by all beans for one update
+        if (contentHash == null || contentHash.content.get() != configContent) {
+            contentHash = new ContentHash(new WeakReference<>(configContent), getValueHash(configContent));
+            contentHashes.put(path, contentHash);
+        }
+        return contentHash.hash;
+    }
+
     private static String getValueHash(final String configContent) {
         return StringUtils.isEmpty(configContent) ? LOG_CONFIG_EMPTY :
             DigestUtils.md5Hex(configContent);
     }
+
+    @RequiredArgsConstructor
+    private static final class ContentHash {
+
+        private final WeakReference<String> content;
+        private final String hash;
+    }
 }
@@ -2,12 +2,17 @@ package com.icthh.xm.commons.config.client.config;
 
 import static com.icthh.xm.commons.config.client.config.XmRestTemplateConfiguration.XM_CONFIG_REST_TEMPLATE;
 
+import com.codahale.metrics.MetricRegistry;
 import com.icthh.xm.commons.config.client.api.ConfigService;
 import com.icthh.xm.commons.config.client.listener.ApplicationReadyEventListener;
+import com.icthh.xm.commons.config.client.metric.ConfigRefreshMetricsSet;
 import com.icthh.xm.commons.config.client.repository.CommonConfigRepository;
 import com.icthh.xm.commons.config.client.repository.kafka.ConfigTopicConsumer;
 import com.icthh.xm.commons.config.client.service.CommonConfigService;
+import com.icthh.xm.commons.config.client.service.ConfigRefreshPipeline;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
@@ -23,6 +28,8 @@ import org.springframework.web.client.RestTemplate;
 @ConditionalOnProperty("xm-config.enabled")
 public class XmConfigConfiguration {
 
+    private static final String CONFIG_REFRESH_METRIC = "xm-config.refresh";
+
     @Bean
     public CommonConfigRepository commonConfigRepository(
         @Qualifier(XM_CONFIG_REST_TEMPLATE) RestTemplate restTemplate,
@@ -30,10 +37,19 @@ public class XmConfigConfiguration {
         return new CommonConfigRepository(restTemplate, xmConfigProperties);
     }
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public ConfigService configService(
-        CommonConfigRepository commonConfigRepository) {
-        return new CommonConfigService(commonConfigRepository);
+        CommonConfigRepository commonConfigRepository,
+        XmConfigProperties xmConfigProperties,
+        ConfigRefreshMetricsSet configRefreshMetricsSet) {
+        CommonConfigService configService = new CommonConfigService(commonConfigRepository);
+        configService.setRefreshMetrics(configRefreshMetricsSet);
+
+        XmConfigProperties.Refresh refresh = xmConfigProperties.getRefresh();
+        if (refresh.getListenerParallelism() > 0) {
+            configService.enableParallelDispatch(refresh.getListenerParallelism(), refresh.getListenerTimeoutMs());
+        }
+        return configService;
     }
 
     @Bean
@@ -43,8 +59,24 @@ public class XmConfigConfiguration {
     }
 
     @Bean
-    public ConfigTopicConsumer configTopicConsumer(ConfigService configService) {
-        return new ConfigTopicConsumer(configService);
+    public ConfigRefreshMetricsSet configRefreshMetricsSet(ObjectProvider<MetricRegistry> metricRegistry) {
+        ConfigRefreshMetricsSet metricsSet = new ConfigRefreshMetricsSet();
+        metricRegistry.ifAvailable(registry -> metricsSet.registerIn(registry, CONFIG_REFRESH_METRIC));
+        return metricsSet;
+    }
+
+    @Bean
+    @ConditionalOnExpression("${xm-config.refresh.coalesce-window-ms:0} > 0")
+    public ConfigRefreshPipeline configRefreshPipeline(ConfigService configService,
+                                                       XmConfigProperties xmConfigProperties,
+                                                       ConfigRefreshMetricsSet configRefreshMetricsSet) {
+        return new ConfigRefreshPipeline(configService, xmConfigProperties.getRefresh(), configRefreshMetricsSet);
+    }
+
+    @Bean
+    public ConfigTopicConsumer configTopicConsumer(ConfigService configService,
+                                                   ObjectProvider<ConfigRefreshPipeline> configRefreshPipeline) {
+        return new ConfigTopicConsumer(configService, configRefreshPipeline.getIfAvailable());
     }
 
     @Bean
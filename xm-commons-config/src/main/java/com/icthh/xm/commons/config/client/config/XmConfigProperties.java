@@ -21,6 +21,8 @@ public class XmConfigProperties {
     private String tenantConfigPattern;
     private String kafkaConfigTopic;
     private Set<String> includeTenants;
+    private Refresh refresh = new Refresh();
+    private Http http = new Http();
 
     public Set<String> getIncludeTenantLowercase() {
         return Optional.ofNullable(getIncludeTenants())
@@ -29,4 +31,69 @@ public class XmConfigProperties {
                        .map(String::toLowerCase)
                        .collect(Collectors.toSet());
     }
+
+    @Data
+    public static class Refresh {
+
+        /**
+         * Time window in milliseconds to coalesce config events into a single refresh, 0 disables coalescing.
+         */
+        private long coalesceWindowMs = 0;
+
+        /**
+         * Max time in milliseconds the first event of a coalesced batch can wait before the refresh.
+         */
+        private long maxCoalesceDelayMs = 5000;
+
+        /**
+         * Count of configuration listeners refreshed in parallel, 0 refreshes listeners one by one.
+         */
+        private int listenerParallelism = 0;
+
+        /**
+         * Max time in milliseconds to wait for parallel listeners refresh.
+         */
+        private long listenerTimeoutMs = 60000;
+
+        /**
+         * Max attempts of a failed coalesced refresh, failed paths are enqueued again till the attempts exceeded.
+         */
+        private int retryMaxAttempts = 3;
+
+        /**
+         * Delay in milliseconds before the first retry of a failed coalesced refresh.
+         */
+        private long retryDelayMs = 1000;
+
+        /**
+         * Multiplier of the retry delay for every next attempt.
+         */
+        private double retryMultiplier = 2;
+    }
+
+    @Data
+    public static class Http {
+
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 20;
+        private int connectTimeoutMs = 5000;
+        private int readTimeoutMs = 60000;
+        private int connectionRequestTimeoutMs = 5000;
+
+        /**
+         * Time in milliseconds an idle pooled connection is kept alive.
+         */
+        private long idleConnectionTimeoutMs = 30000;
+
+        /**
+         * Request Accept-Encoding gzip and decompress responses.
+         */
+        private boolean responseCompression = true;
+
+        /**
+         * Gzip request bodies bigger than the request compression threshold, the server must support it.
+         */
+        private boolean requestCompression = false;
+        private int requestCompressionThreshold = 2048;
+    }
 }
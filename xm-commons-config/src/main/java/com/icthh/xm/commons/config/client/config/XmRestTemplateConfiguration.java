@@ -2,9 +2,15 @@ package com.icthh.xm.commons.config.client.config;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.codahale.metrics.MetricRegistry;
 import com.icthh.xm.commons.config.client.exception.ConflictUpdateConfigException;
+import com.icthh.xm.commons.config.client.http.GzipRequestInterceptor;
+import com.icthh.xm.commons.config.client.http.PooledHttpClientFactory;
+import com.icthh.xm.commons.config.client.metric.HttpClientPoolMetricsSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.RestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
@@ -24,11 +30,29 @@ import java.io.IOException;
 public class XmRestTemplateConfiguration {
 
     public static final String XM_CONFIG_REST_TEMPLATE = "xm-config-rest-template";
+    public static final String XM_CONFIG_HTTP_CLIENT_FACTORY = "xm-config-http-client-factory";
+
+    private static final String HTTP_POOL_METRIC = "xm-config.http.pool";
+
+    @Bean(name = XM_CONFIG_HTTP_CLIENT_FACTORY, destroyMethod = "close")
+    public PooledHttpClientFactory pooledHttpClientFactory(XmConfigProperties xmConfigProperties,
+                                                           ObjectProvider<MetricRegistry> metricRegistry) {
+        PooledHttpClientFactory httpClientFactory = new PooledHttpClientFactory(xmConfigProperties.getHttp());
+        metricRegistry.ifAvailable(registry -> registry.register(HTTP_POOL_METRIC,
+            new HttpClientPoolMetricsSet(httpClientFactory.getConnectionManager())));
+        return httpClientFactory;
+    }
 
     @Bean(XM_CONFIG_REST_TEMPLATE)
-    public RestTemplate restTemplate(RestTemplateCustomizer customizer) {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateCustomizer customizer,
+                                     @Qualifier(XM_CONFIG_HTTP_CLIENT_FACTORY) PooledHttpClientFactory httpClientFactory,
+                                     XmConfigProperties xmConfigProperties) {
+        RestTemplate restTemplate = new RestTemplate(httpClientFactory.createRequestFactory());
         customizer.customize(restTemplate);
+        if (xmConfigProperties.getHttp().isRequestCompression()) {
+            restTemplate.getInterceptors().add(
+                new GzipRequestInterceptor(xmConfigProperties.getHttp().getRequestCompressionThreshold()));
+        }
         restTemplate.getMessageConverters().add(0, new StringHttpMessageConverter(UTF_8));
         restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
             @Override
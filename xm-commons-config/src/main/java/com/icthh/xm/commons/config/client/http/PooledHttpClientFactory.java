@@ -0,0 +1,67 @@
+package com.icthh.xm.commons.config.client.http;
+
+import com.icthh.xm.commons.config.client.config.XmConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates request factories backed by one pooled keep-alive HTTP client. RestTemplates created on these factories
+ * reuse TCP connections to ms-config and other services instead of opening a connection per request.
+ */
+@Slf4j
+public class PooledHttpClientFactory {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public PooledHttpClientFactory(XmConfigProperties.Http properties) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                                                   .setConnectTimeout(properties.getConnectTimeoutMs())
+                                                   .setSocketTimeout(properties.getReadTimeoutMs())
+                                                   .setConnectionRequestTimeout(
+                                                       properties.getConnectionRequestTimeoutMs())
+                                                   .build();
+
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                                                     .setConnectionManager(connectionManager)
+                                                     .setDefaultRequestConfig(requestConfig)
+                                                     .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                                                     .evictExpiredConnections()
+                                                     .evictIdleConnections(properties.getIdleConnectionTimeoutMs(),
+                                                                           TimeUnit.MILLISECONDS)
+                                                     .useSystemProperties();
+        if (!properties.isResponseCompression()) {
+            builder.disableContentCompression();
+        }
+        httpClient = builder.build();
+    }
+
+    public ClientHttpRequestFactory createRequestFactory() {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Error close http client", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.icthh.xm.commons.config.client.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the configuration refresh pipeline.
+ */
+public class ConfigRefreshMetricsSet implements MetricSet {
+
+    private final Counter receivedEvents = new Counter();
+    private final Counter coalescedEvents = new Counter();
+    private final Counter failedRefreshes = new Counter();
+    private final Timer refreshLatency = new Timer();
+    private final Counter failedListeners = new Counter();
+    private final Counter timedOutListeners = new Counter();
+    private final Map<String, Timer> listenerTimers = new ConcurrentHashMap<>();
+
+    private volatile MetricRegistry metricRegistry;
+    private volatile String metricName;
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("events.received", receivedEvents);
+        metrics.put("events.coalesced", coalescedEvents);
+        metrics.put("refresh.failed", failedRefreshes);
+        metrics.put("refresh.latency", refreshLatency);
+        metrics.put("listener.failed", failedListeners);
+        metrics.put("listener.timeout", timedOutListeners);
+        return metrics;
+    }
+
+    /**
+     * Register metrics in the registry. Per listener timers are registered on the first listener refresh.
+     *
+     * @param registry the metric registry
+     * @param name metrics name prefix
+     */
+    public void registerIn(MetricRegistry registry, String name) {
+        registry.register(name, this);
+        this.metricName = name;
+        this.metricRegistry = registry;
+    }
+
+    public void onEventReceived() {
+        receivedEvents.inc();
+    }
+
+    /**
+     * Track finished refresh.
+     *
+     * @param events count of config events applied by the refresh
+     * @param latencyNanos time from the first event receiving till the refresh end
+     */
+    public void onRefresh(int events, long latencyNanos) {
+        if (events > 1) {
+            coalescedEvents.inc(events - 1L);
+        }
+        refreshLatency.update(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onRefreshError() {
+        failedRefreshes.inc();
+    }
+
+    public void onListenerRefresh(String listener, long refreshNanos) {
+        getListenerTimer(listener).update(refreshNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onListenerError() {
+        failedListeners.inc();
+    }
+
+    public void onListenerTimeout() {
+        timedOutListeners.inc();
+    }
+
+    public Timer getListenerTimer(String listener) {
+        return listenerTimers.computeIfAbsent(listener, this::createListenerTimer);
+    }
+
+    private Timer createListenerTimer(String listener) {
+        MetricRegistry registry = metricRegistry;
+        if (registry == null) {
+            return new Timer();
+        }
+        return registry.timer(MetricRegistry.name(metricName, "listener", listener));
+    }
+}
@@ -0,0 +1,31 @@
+package com.icthh.xm.commons.config.client.metric;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.apache.http.pool.ConnPoolControl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gauges of the pooled HTTP client connections.
+ */
+public class HttpClientPoolMetricsSet implements MetricSet {
+
+    private final ConnPoolControl<?> connectionPool;
+
+    public HttpClientPoolMetricsSet(ConnPoolControl<?> connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("connections.leased", (Gauge<Integer>) () -> connectionPool.getTotalStats().getLeased());
+        metrics.put("connections.available", (Gauge<Integer>) () -> connectionPool.getTotalStats().getAvailable());
+        metrics.put("connections.pending", (Gauge<Integer>) () -> connectionPool.getTotalStats().getPending());
+        metrics.put("connections.max", (Gauge<Integer>) () -> connectionPool.getTotalStats().getMax());
+        return metrics;
+    }
+}
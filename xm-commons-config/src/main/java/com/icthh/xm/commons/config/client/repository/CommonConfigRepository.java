@@ -4,6 +4,10 @@ import static com.icthh.xm.commons.config.client.repository.TenantConfigReposito
 import static com.icthh.xm.commons.config.client.utils.RequestUtils.createApplicationJsonHeaders;
 import static com.icthh.xm.commons.config.client.utils.RequestUtils.createSimpleHeaders;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.icthh.xm.commons.config.client.config.XmConfigProperties;
 import com.icthh.xm.commons.config.domain.Configuration;
 import lombok.AllArgsConstructor;
@@ -14,11 +18,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -26,6 +35,9 @@ public class CommonConfigRepository {
 
     private static final String URL = "/api/private";
     private static final String VERSION = "version";
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     private final RestTemplate restTemplate;
     private final XmConfigProperties xmConfigProperties;
 
@@ -36,6 +48,42 @@ public class CommonConfigRepository {
         return restTemplate.exchange(builder.toUriString(), HttpMethod.GET, entity, typeRef).getBody();
     }
 
+    /**
+     * Stream configurations of the commit. Every configuration is passed to the consumer as soon as it is parsed,
+     * so the whole config map is never held in memory by the repository.
+     *
+     * @param commit commit hash, latest configuration if null
+     * @param configurationConsumer consumer of the parsed configurations
+     */
+    public void streamConfig(String commit, Consumer<Configuration> configurationConsumer) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(getServiceConfigUrl() + "/config_map").queryParam(VERSION, commit);
+        restTemplate.execute(builder.toUriString(), HttpMethod.GET,
+            request -> {
+                request.getHeaders().putAll(createSimpleHeaders());
+                request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            },
+            response -> {
+                readConfigurations(response.getBody(), configurationConsumer);
+                return null;
+            });
+    }
+
+    private static void readConfigurations(InputStream body,
+                                           Consumer<Configuration> configurationConsumer) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                Configuration configuration = parser.readValueAs(Configuration.class);
+                if (configuration != null) {
+                    configurationConsumer.accept(configuration);
+                }
+            }
+        }
+    }
+
     private String getServiceConfigUrl() {
         return xmConfigProperties.getXmConfigUrl() + URL;
     }
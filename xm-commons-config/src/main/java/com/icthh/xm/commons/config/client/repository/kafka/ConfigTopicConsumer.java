@@ -4,9 +4,9 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.icthh.xm.commons.config.client.api.ConfigService;
+import com.icthh.xm.commons.config.client.service.ConfigRefreshPipeline;
 import com.icthh.xm.commons.config.domain.ConfigEvent;
 import com.icthh.xm.commons.logging.util.MdcUtils;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.retry.annotation.Backoff;
@@ -15,7 +15,6 @@ import org.springframework.retry.annotation.Retryable;
 import java.io.IOException;
 
 @Slf4j
-@RequiredArgsConstructor
 public class ConfigTopicConsumer {
 
     private final ObjectMapper mapper = new ObjectMapper()
@@ -23,6 +22,22 @@ public class ConfigTopicConsumer {
         .registerModule(new JavaTimeModule());
 
     private final ConfigService configService;
+    private final ConfigRefreshPipeline refreshPipeline;
+
+    public ConfigTopicConsumer(ConfigService configService) {
+        this(configService, null);
+    }
+
+    /**
+     * Create consumer which applies config events through the refresh pipeline.
+     *
+     * @param configService the config service
+     * @param refreshPipeline the pipeline to coalesce events, events applied directly if null
+     */
+    public ConfigTopicConsumer(ConfigService configService, ConfigRefreshPipeline refreshPipeline) {
+        this.configService = configService;
+        this.refreshPipeline = refreshPipeline;
+    }
 
     /**
      * Consume tenant command event message.
@@ -41,7 +56,11 @@ public class ConfigTopicConsumer {
 
                 log.info("Process event from topic [{}], event_id ='{}'",
                     message.topic(), event.getEventId());
-                configService.updateConfigurations(event.getCommit(), event.getPaths());
+                if (refreshPipeline != null) {
+                    refreshPipeline.submit(event.getCommit(), event.getPaths());
+                } else {
+                    configService.updateConfigurations(event.getCommit(), event.getPaths());
+                }
             } catch (IOException e) {
                 log.error("Config topic message has incorrect format: '{}'", message.value(), e);
             }
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -20,6 +21,11 @@ public class CommonConfigService extends AbstractConfigService {
         return commonConfigRepository.getConfig(commit);
     }
 
+    @Override
+    public void getConfigurations(String commit, Consumer<Configuration> configurationConsumer) {
+        commonConfigRepository.streamConfig(commit, configurationConsumer);
+    }
+
     @Override
     public Map<String, Configuration> getConfigurationMap(String commit, Collection<String> paths) {
         return commonConfigRepository.getConfig(commit, paths);
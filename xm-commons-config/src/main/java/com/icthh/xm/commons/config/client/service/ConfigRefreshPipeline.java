@@ -0,0 +1,180 @@
+package com.icthh.xm.commons.config.client.service;
+
+import com.icthh.xm.commons.config.client.api.ConfigService;
+import com.icthh.xm.commons.config.client.config.XmConfigProperties;
+import com.icthh.xm.commons.config.client.metric.ConfigRefreshMetricsSet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces configuration events. All events received inside the coalesce window are merged into one
+ * path set and applied by a single {@link ConfigService#updateConfigurations(String, Collection)} call
+ * with the latest commit. The window is restarted by each event but the batch never waits longer
+ * than the max coalesce delay.
+ *
+ * <p>Paths of a failed refresh are enqueued again and refreshed with the next events or after the retry
+ * back off, till the retry attempts of the path are exceeded. A new event of the path restarts its attempts.
+ */
+@Slf4j
+public class ConfigRefreshPipeline {
+
+    private final ConfigService configService;
+    private final ConfigRefreshMetricsSet metrics;
+    private final long windowMs;
+    private final long maxDelayMs;
+    private final int retryMaxAttempts;
+    private final long retryDelayMs;
+    private final double retryMultiplier;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "xm-config-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Set<String> pendingPaths = new LinkedHashSet<>();
+    private String pendingCommit;
+    private int pendingEvents;
+    private long firstEventNanos;
+    private final Map<String, Integer> failedAttempts = new HashMap<>();
+    private ScheduledFuture<?> scheduledRefresh;
+    private volatile boolean closed;
+
+    public ConfigRefreshPipeline(ConfigService configService,
+                                 XmConfigProperties.Refresh refreshProperties,
+                                 ConfigRefreshMetricsSet metrics) {
+        this.configService = configService;
+        this.metrics = metrics;
+        this.windowMs = refreshProperties.getCoalesceWindowMs();
+        this.maxDelayMs = Math.max(refreshProperties.getMaxCoalesceDelayMs(), windowMs);
+        this.retryMaxAttempts = refreshProperties.getRetryMaxAttempts();
+        this.retryDelayMs = refreshProperties.getRetryDelayMs();
+        this.retryMultiplier = refreshProperties.getRetryMultiplier();
+    }
+
+    /**
+     * Enqueue config event for the coalesced refresh.
+     *
+     * @param commit commit hash, will be empty if configuration deleted
+     * @param paths collection of paths updated
+     */
+    public synchronized void submit(String commit, Collection<String> paths) {
+        metrics.onEventReceived();
+
+        long now = System.nanoTime();
+        if (pendingEvents == 0) {
+            firstEventNanos = now;
+        }
+        pendingEvents++;
+        pendingCommit = commit;
+        pendingPaths.addAll(paths);
+        paths.forEach(failedAttempts::remove);
+
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - firstEventNanos);
+        long delayMs = Math.max(0, Math.min(windowMs, maxDelayMs - waitedMs));
+        scheduledRefresh = executor.schedule(this::refresh, delayMs, TimeUnit.MILLISECONDS);
+
+        log.debug("Config event enqueued: commit = {}, paths = {}, pending events = {}, refresh in {} ms",
+            commit, paths.size(), pendingEvents, delayMs);
+    }
+
+    private void refresh() {
+        Set<String> paths;
+        String commit;
+        int events;
+        long startNanos;
+        synchronized (this) {
+            if (pendingEvents == 0) {
+                return;
+            }
+            paths = pendingPaths;
+            commit = pendingCommit;
+            events = pendingEvents;
+            startNanos = firstEventNanos;
+
+            pendingPaths = new LinkedHashSet<>();
+            pendingCommit = null;
+            pendingEvents = 0;
+            scheduledRefresh = null;
+        }
+
+        log.info("Refresh configuration: commit = {}, paths = {}, coalesced events = {}",
+            commit, paths.size(), events);
+        try {
+            configService.updateConfigurations(commit, paths);
+            metrics.onRefresh(events, System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            metrics.onRefreshError();
+            log.error("Error refresh configuration: commit = {}, paths = {}", commit, paths, e);
+            retry(commit, paths, events, startNanos);
+        }
+    }
+
+    /**
+     * Enqueue paths of the failed refresh again. Events received after the failed refresh keep their commit,
+     * the failed paths are refreshed with them.
+     */
+    private synchronized void retry(String commit, Set<String> paths, int events, long startNanos) {
+        Set<String> retryPaths = new LinkedHashSet<>();
+        int minAttempt = Integer.MAX_VALUE;
+        for (String path : paths) {
+            int attempt = failedAttempts.getOrDefault(path, 0) + 1;
+            if (attempt >= retryMaxAttempts || closed) {
+                failedAttempts.remove(path);
+                log.error("Refresh configuration retries exceeded: commit = {}, path = {}, attempts = {}",
+                    commit, path, attempt);
+            } else {
+                failedAttempts.put(path, attempt);
+                retryPaths.add(path);
+                minAttempt = Math.min(minAttempt, attempt);
+            }
+        }
+        if (retryPaths.isEmpty()) {
+            metrics.onRefresh(events, System.nanoTime() - startNanos);
+            return;
+        }
+
+        retryPaths.addAll(pendingPaths);
+        pendingPaths = retryPaths;
+        pendingCommit = pendingEvents == 0 ? commit : pendingCommit;
+        pendingEvents += events;
+        firstEventNanos = startNanos;
+
+        if (scheduledRefresh == null) {
+            // back off of the least retried path, so paths failed first do not delay the recently added ones
+            long delayMs = (long) (retryDelayMs * Math.pow(retryMultiplier, minAttempt - 1));
+            scheduledRefresh = executor.schedule(this::refresh, delayMs, TimeUnit.MILLISECONDS);
+            log.info("Refresh configuration retry in {} ms: commit = {}, paths = {}", delayMs, commit,
+                pendingPaths.size());
+        }
+    }
+
+    /**
+     * Apply pending events and stop the pipeline, failed refresh is not retried.
+     */
+    public void close() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        closed = true;
+        executor.submit(this::refresh);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(maxDelayMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
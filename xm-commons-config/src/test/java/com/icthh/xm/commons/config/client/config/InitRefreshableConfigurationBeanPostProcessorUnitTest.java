@@ -0,0 +1,130 @@
+package com.icthh.xm.commons.config.client.config;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.config.client.api.ConfigService;
+import com.icthh.xm.commons.config.client.api.ConfigurationChangedListener;
+import com.icthh.xm.commons.config.client.api.RefreshableConfiguration;
+import com.icthh.xm.commons.config.domain.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InitRefreshableConfigurationBeanPostProcessorUnitTest {
+
+    private static final String PATH = "/config/tenants/TEST/test.yml";
+
+    @Mock
+    private ConfigService configService;
+    @Mock
+    private RefreshableConfiguration refreshableConfiguration;
+
+    private InitRefreshableConfigurationBeanPostProcessor postProcessor;
+    private ConfigurationChangedListener listener;
+
+    @Before
+    public void before() {
+        doAnswer(invocation -> {
+            Consumer<Configuration> consumer = invocation.getArgument(1);
+            consumer.accept(new Configuration(PATH, "content"));
+            return null;
+        }).when(configService).getConfigurations(isNull(), any());
+        when(refreshableConfiguration.isListeningConfiguration(PATH)).thenReturn(true);
+
+        postProcessor = new InitRefreshableConfigurationBeanPostProcessor(configService);
+        postProcessor.postProcessBeforeInitialization(refreshableConfiguration, "bean");
+        postProcessor.postProcessAfterInitialization(refreshableConfiguration, "bean");
+
+        ArgumentCaptor<ConfigurationChangedListener> listenerCaptor =
+            ArgumentCaptor.forClass(ConfigurationChangedListener.class);
+        verify(configService).addConfigurationChangedListener(anyString(), listenerCaptor.capture());
+        listener = listenerCaptor.getValue();
+        verify(refreshableConfiguration).onInit(PATH, "content");
+    }
+
+    @Test
+    public void testUnchangedContentSkipped() {
+        listener.onConfigurationChanged(new Configuration(PATH, new String("content")));
+
+        verify(refreshableConfiguration, never()).onRefresh(any(), any());
+    }
+
+    @Test
+    public void testChangedContentRefreshedOnce() {
+        listener.onConfigurationChanged(new Configuration(PATH, "new content"));
+        listener.onConfigurationChanged(new Configuration(PATH, "new content"));
+        listener.onConfigurationChanged(new Configuration(PATH, null));
+
+        verify(refreshableConfiguration, times(1)).onRefresh(PATH, "new content");
+        verify(refreshableConfiguration).onRefresh(eq(PATH), isNull());
+    }
+
+    @Test
+    public void testDeletedAfterEmptyContentRefreshed() {
+        listener.onConfigurationChanged(new Configuration(PATH, ""));
+        listener.onConfigurationChanged(new Configuration(PATH, null));
+        listener.onConfigurationChanged(new Configuration(PATH, null));
+
+        verify(refreshableConfiguration).onRefresh(PATH, "");
+        verify(refreshableConfiguration, times(1)).onRefresh(eq(PATH), isNull());
+    }
+
+    @Test
+    public void testDeletedAfterContentCollected() throws ReflectiveOperationException {
+        Map<?, ?> contentHashes = (Map<?, ?>) getField(postProcessor, "contentHashes");
+        ((WeakReference<?>) getField(contentHashes.get(PATH), "content")).clear();
+
+        listener.onConfigurationChanged(new Configuration(PATH, null));
+
+        verify(refreshableConfiguration).onRefresh(eq(PATH), isNull());
+    }
+
+    @Test
+    public void testConfigurationsFetchedOnceOnStartup() {
+        RefreshableConfiguration second = mock(RefreshableConfiguration.class);
+        RefreshableConfiguration third = mock(RefreshableConfiguration.class);
+        when(second.isListeningConfiguration(PATH)).thenReturn(true);
+        postProcessor.postProcessBeforeInitialization(second, "second");
+        postProcessor.postProcessAfterInitialization(second, "second");
+        postProcessor.postProcessBeforeInitialization(third, "third");
+        postProcessor.postProcessAfterInitialization(third, "third");
+
+        verify(configService).getConfigurations(isNull(), any());
+        verify(second).onInit(PATH, "content");
+        verify(third, never()).onInit(any(), any());
+
+        postProcessor.onApplicationEvent(mock(ContextRefreshedEvent.class));
+        RefreshableConfiguration lazy = mock(RefreshableConfiguration.class);
+        when(lazy.isListeningConfiguration(PATH)).thenReturn(true);
+        postProcessor.postProcessBeforeInitialization(lazy, "lazy");
+        postProcessor.postProcessAfterInitialization(lazy, "lazy");
+
+        verify(configService, times(2)).getConfigurations(isNull(), any());
+        verify(lazy).onInit(PATH, "content");
+    }
+
+    private static Object getField(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,133 @@
+package com.icthh.xm.commons.config.client.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.icthh.xm.commons.config.client.config.XmConfigProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Checks the pooled client against a local HTTP server.
+ */
+public class PooledHttpClientFactoryUnitTest {
+
+    private static final String CONTENT = "config content";
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final Set<String> requestBodies = ConcurrentHashMap.newKeySet();
+    private final Set<String> requestEncodings = ConcurrentHashMap.newKeySet();
+    private final Set<String> responseEncodings = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private PooledHttpClientFactory httpClientFactory;
+    private RestTemplate restTemplate;
+    private String url;
+
+    @Before
+    public void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/config", this::handle);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/config";
+
+        XmConfigProperties.Http properties = new XmConfigProperties.Http();
+        properties.setRequestCompressionThreshold(1);
+        httpClientFactory = new PooledHttpClientFactory(properties);
+        restTemplate = new RestTemplate(httpClientFactory.createRequestFactory());
+        restTemplate.getInterceptors().add(new GzipRequestInterceptor(properties.getRequestCompressionThreshold()));
+    }
+
+    @After
+    public void after() {
+        httpClientFactory.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionReused() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(restTemplate.getForObject(url, String.class)).isEqualTo(CONTENT);
+        }
+
+        assertThat(clientPorts).hasSize(1);
+        assertThat(httpClientFactory.getConnectionManager().getTotalStats().getAvailable()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRequestCompressed() {
+        assertThat(restTemplate.postForObject(url, "request body", String.class)).isEqualTo(CONTENT);
+
+        assertThat(requestBodies).containsExactly("request body");
+        assertThat(requestEncodings).containsExactly("gzip");
+    }
+
+    @Test
+    public void testResponseDecompressed() {
+        assertThat(restTemplate.getForObject(url, String.class)).isEqualTo(CONTENT);
+
+        assertThat(responseEncodings).containsExactly("gzip");
+    }
+
+    @Test
+    public void testResponseNotCompressedWhenDisabled() {
+        XmConfigProperties.Http properties = new XmConfigProperties.Http();
+        properties.setResponseCompression(false);
+        PooledHttpClientFactory plainClientFactory = new PooledHttpClientFactory(properties);
+        try {
+            RestTemplate plainRestTemplate = new RestTemplate(plainClientFactory.createRequestFactory());
+
+            assertThat(plainRestTemplate.getForObject(url, String.class)).isEqualTo(CONTENT);
+            assertThat(responseEncodings).isEmpty();
+        } finally {
+            plainClientFactory.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        InputStream requestBody = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            requestEncodings.add("gzip");
+            requestBody = new GZIPInputStream(requestBody);
+        }
+        String body = StreamUtils.copyToString(requestBody, UTF_8);
+        if (!body.isEmpty()) {
+            requestBodies.add(body);
+        }
+
+        byte[] response = CONTENT.getBytes(UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(response);
+            }
+            response = compressed.toByteArray();
+            responseEncodings.add("gzip");
+            exchange.getResponseHeaders().put("Content-Encoding", Collections.singletonList("gzip"));
+        }
+        exchange.getResponseHeaders().put("Content-Type", Collections.singletonList("text/plain"));
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+        }
+    }
+}
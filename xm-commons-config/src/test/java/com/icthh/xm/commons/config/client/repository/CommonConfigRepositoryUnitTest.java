@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.refEq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
@@ -18,9 +19,17 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -44,6 +53,24 @@ public class CommonConfigRepositoryUnitTest {
         assertThat(configRepository.getConfig("commit")).isEqualTo(config);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamConfig() throws IOException {
+        String body = "{\"path1\":{\"path\":\"path1\",\"content\":\"content1\"},"
+                      + "\"path2\":{\"path\":\"path2\",\"content\":\"content2\",\"unknown\":1}}";
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getBody()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        when(xmConfigProperties.getXmConfigUrl()).thenReturn("configUrl");
+        when(restTemplate.execute(eq("configUrl/api/private/config_map?version=commit"), eq(HttpMethod.GET),
+                                  any(RequestCallback.class), any(ResponseExtractor.class)))
+            .thenAnswer(invocation -> ((ResponseExtractor<?>) invocation.getArgument(3)).extractData(response));
+
+        List<Configuration> configurations = new ArrayList<>();
+        configRepository.streamConfig("commit", configurations::add);
+
+        assertThat(configurations).extracting(Configuration::getContent).containsExactly("content1", "content2");
+    }
+
     @Test
     public void updateConfig() {
         when(xmConfigProperties.getXmConfigUrl()).thenReturn("configUrl");
@@ -18,9 +18,15 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CommonConfigServiceUnitTest {
@@ -73,4 +79,69 @@ public class CommonConfigServiceUnitTest {
                                                .onConfigurationChanged(refEq(new Configuration("path", null))));
     }
 
+    @Test
+    public void updateConfigurationsInParallelIsolatesFailedListener() {
+        Map<String, Configuration> config = new HashMap<>();
+        config.put("path1", new Configuration("path1", "content1"));
+        config.put("path2", new Configuration("path2", "content2"));
+        when(commonConfigRepository.getConfig(eq("commit"), anyList())).thenReturn(config);
+        configService.enableParallelDispatch(2, 5000);
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        configService.addConfigurationChangedListener("failed", configuration -> {
+            throw new IllegalStateException("test");
+        });
+        configService.addConfigurationChangedListener("success",
+                                                      configuration -> received.add(configuration.getPath()));
+
+        configService.updateConfigurations("commit", Arrays.asList("path1", "path2"));
+
+        assertThat(received).containsExactly("path1", "path2");
+    }
+
+    @Test
+    public void updateConfigurationsInParallelAfterListenerError() {
+        Map<String, Configuration> config = Collections.singletonMap("path", new Configuration("path", "content"));
+        when(commonConfigRepository.getConfig(eq("commit"), anyList())).thenReturn(config);
+        configService.enableParallelDispatch(2, 5000);
+
+        AtomicInteger calls = new AtomicInteger();
+        configService.addConfigurationChangedListener("error", configuration -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new AssertionError("test");
+            }
+        });
+
+        configService.updateConfigurations("commit", Collections.singletonList("path"));
+        configService.updateConfigurations("commit", Collections.singletonList("path"));
+        configService.close();
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void updateConfigurationsInParallelNotWaitSlowListener() {
+        Map<String, Configuration> config = Collections.singletonMap("path", new Configuration("path", "content"));
+        when(commonConfigRepository.getConfig(eq("commit"), anyList())).thenReturn(config);
+        configService.enableParallelDispatch(2, 100);
+
+        CountDownLatch slowListenerLatch = new CountDownLatch(1);
+        ConfigurationChangedListener fastListener = mock(ConfigurationChangedListener.class);
+        configService.addConfigurationChangedListener("slow", configuration -> awaitQuietly(slowListenerLatch));
+        configService.addConfigurationChangedListener("fast", fastListener);
+
+        configService.updateConfigurations("commit", Collections.singletonList("path"));
+
+        verify(fastListener).onConfigurationChanged(refEq(config.get("path")));
+        slowListenerLatch.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
 }
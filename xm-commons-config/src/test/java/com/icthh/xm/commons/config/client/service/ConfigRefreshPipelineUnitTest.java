@@ -0,0 +1,121 @@
+package com.icthh.xm.commons.config.client.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.icthh.xm.commons.config.client.api.ConfigService;
+import com.icthh.xm.commons.config.client.config.XmConfigProperties;
+import com.icthh.xm.commons.config.client.metric.ConfigRefreshMetricsSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigRefreshPipelineUnitTest {
+
+    @Mock
+    private ConfigService configService;
+
+    private ConfigRefreshMetricsSet metrics;
+    private ConfigRefreshPipeline pipeline;
+
+    @Before
+    public void before() {
+        XmConfigProperties.Refresh refresh = new XmConfigProperties.Refresh();
+        refresh.setCoalesceWindowMs(200);
+        refresh.setMaxCoalesceDelayMs(1000);
+        refresh.setRetryMaxAttempts(3);
+        refresh.setRetryDelayMs(50);
+        metrics = new ConfigRefreshMetricsSet();
+        pipeline = new ConfigRefreshPipeline(configService, refresh, metrics);
+    }
+
+    @After
+    public void after() {
+        pipeline.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventsCoalescedIntoSingleRefresh() {
+        pipeline.submit("commit1", Arrays.asList("/a", "/b"));
+        pipeline.submit("commit2", Collections.singletonList("/b"));
+        pipeline.submit("commit3", Collections.singletonList("/c"));
+
+        ArgumentCaptor<Collection<String>> paths = ArgumentCaptor.forClass(Collection.class);
+        verify(configService, timeout(2000).times(1)).updateConfigurations(eq("commit3"), paths.capture());
+        assertThat(paths.getValue()).containsExactly("/a", "/b", "/c");
+
+        assertThat(((Counter) metrics.getMetrics().get("events.received")).getCount()).isEqualTo(3);
+        assertThat(((Counter) metrics.getMetrics().get("events.coalesced")).getCount()).isEqualTo(2);
+        assertThat(((Timer) metrics.getMetrics().get("refresh.latency")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRefreshErrorCounted() {
+        doThrow(new IllegalStateException("test")).when(configService).updateConfigurations(anyString(), any());
+
+        pipeline.submit("commit", Collections.singletonList("/a"));
+        pipeline.close();
+
+        verify(configService).updateConfigurations(eq("commit"), any());
+        assertThat(((Counter) metrics.getMetrics().get("refresh.failed")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedRefreshRetried() {
+        doThrow(new IllegalStateException("test")).doNothing()
+            .when(configService).updateConfigurations(anyString(), any());
+
+        pipeline.submit("commit", Arrays.asList("/a", "/b"));
+
+        ArgumentCaptor<Collection<String>> paths = ArgumentCaptor.forClass(Collection.class);
+        verify(configService, timeout(2000).times(2)).updateConfigurations(eq("commit"), paths.capture());
+        assertThat(paths.getValue()).containsExactly("/a", "/b");
+        assertThat(((Counter) metrics.getMetrics().get("refresh.failed")).getCount()).isEqualTo(1);
+        assertThat(((Timer) metrics.getMetrics().get("refresh.latency")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRetriesStoppedWhenAttemptsExceeded() throws InterruptedException {
+        doThrow(new IllegalStateException("test")).when(configService).updateConfigurations(anyString(), any());
+
+        pipeline.submit("commit", Collections.singletonList("/a"));
+
+        verify(configService, timeout(2000).times(3)).updateConfigurations(eq("commit"), any());
+        Thread.sleep(500);
+        verify(configService, times(3)).updateConfigurations(eq("commit"), any());
+        assertThat(((Counter) metrics.getMetrics().get("refresh.failed")).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRetryAttemptsCountedPerPath() {
+        doThrow(new IllegalStateException("test")).when(configService).updateConfigurations(anyString(), any());
+
+        pipeline.submit("commit1", Collections.singletonList("/a"));
+        verify(configService, timeout(2000).times(2)).updateConfigurations(eq("commit1"), any());
+        pipeline.submit("commit2", Collections.singletonList("/b"));
+
+        verify(configService, timeout(2000))
+            .updateConfigurations("commit2", new LinkedHashSet<>(Arrays.asList("/a", "/b")));
+        verify(configService, timeout(2000).times(2)).updateConfigurations("commit2", Collections.singleton("/b"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.icthh.xm.commons.permission.access;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import com.icthh.xm.commons.permission.service.PermissionService;
+import com.icthh.xm.commons.permission.service.RoleService;
+import com.icthh.xm.commons.permission.service.audit.LoggingPermissionAuditSink;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditMetricsSet;
+import com.icthh.xm.commons.permission.service.decision.PermissionDecisionCache;
+import com.icthh.xm.commons.security.internal.SpringSecurityXmAuthenticationContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.commons.tenant.internal.DefaultTenantContextHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code @PostFilter} of a 10k elements list, per element evaluation of
+ * {@link DefaultMethodSecurityExpressionHandler} against the bulk {@link XmMethodSecurityExpressionHandler}.
+ * Run with {@code gradle :xm-commons-permission:jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmMethodSecurityExpressionHandlerBenchmark {
+
+    private static final String TENANT = "XM";
+    private static final String ROLE = "ROLE_USER";
+    private static final int SIZE = 10_000;
+
+    private static final String PERMISSIONS = "benchmark:\n"
+        + "  " + ROLE + ":\n"
+        + "    - privilegeKey: BENCHMARK.ALLOWED\n"
+        + "    - privilegeKey: BENCHMARK.RESOURCE\n"
+        + "      envCondition: \"#subject.role == '" + ROLE + "'\"\n"
+        + "      resourceCondition: \"#returnObject['owner'] == #subject.login\"\n";
+
+    private static final String ROLES = ROLE + ":\n"
+        + "  description: benchmark role\n";
+
+    private final TenantContextHolder tenantContextHolder = new DefaultTenantContextHolder();
+
+    @Param({"BENCHMARK.ALLOWED", "BENCHMARK.RESOURCE"})
+    private String privilege;
+
+    private Authentication authentication;
+    private DefaultMethodSecurityExpressionHandler defaultHandler;
+    private XmMethodSecurityExpressionHandler bulkHandler;
+    private Expression filterExpression;
+    private List<Map<String, Object>> elements;
+
+    @Setup
+    public void setup() {
+        PermissionProperties properties = new PermissionProperties();
+        PermissionService permissionService = new PermissionService(properties);
+        permissionService.onRefresh(properties.getPermissionsSpecPath().replace("{tenantName}", TENANT),
+            PERMISSIONS);
+        RoleService roleService = new RoleService(properties);
+        roleService.onRefresh(properties.getRolesSpecPath().replace("{tenantName}", TENANT), ROLES);
+
+        PermissionCheckService permissionCheckService = new PermissionCheckService(tenantContextHolder,
+            permissionService, (resourceId, objectType) -> null, new SpringSecurityXmAuthenticationContextHolder(),
+            roleService, new PermissionDecisionCache(properties),
+            new LoggingPermissionAuditSink(properties.getAudit(), new PermissionAuditMetricsSet()));
+
+        defaultHandler = new DefaultMethodSecurityExpressionHandler();
+        defaultHandler.setPermissionEvaluator(new XmPermissionEvaluator(permissionCheckService));
+        bulkHandler = new XmMethodSecurityExpressionHandler(permissionCheckService);
+        bulkHandler.setPermissionEvaluator(new XmPermissionEvaluator(permissionCheckService));
+        filterExpression = defaultHandler.getExpressionParser()
+            .parseExpression("hasPermission({'returnObject': filterObject}, '" + privilege + "')");
+
+        authentication = new UsernamePasswordAuthenticationToken("user", "password",
+            Collections.singletonList(new SimpleGrantedAuthority(ROLE)));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        TenantContextUtils.setTenant(tenantContextHolder, TENANT);
+
+        elements = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            Map<String, Object> element = new HashMap<>();
+            element.put("id", i);
+            element.put("owner", i % 2 == 0 ? "user" : "other");
+            elements.add(element);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tenantContextHolder.getPrivilegedContext().destroyCurrentContext();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object perElementFilter() {
+        return filter(defaultHandler);
+    }
+
+    @Benchmark
+    public Object bulkFilter() {
+        return filter(bulkHandler);
+    }
+
+    private Object filter(DefaultMethodSecurityExpressionHandler handler) {
+        EvaluationContext context = handler.createEvaluationContext(authentication,
+            new SimpleMethodInvocation(this, XmMethodSecurityExpressionHandlerBenchmark.class.getDeclaredMethods()[0]));
+        return handler.filter(new ArrayList<>(elements), filterExpression, context);
+    }
+}
@@ -0,0 +1,101 @@
+package com.icthh.xm.commons.permission.service;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.service.audit.LoggingPermissionAuditSink;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditMetricsSet;
+import com.icthh.xm.commons.permission.service.decision.PermissionDecisionCache;
+import com.icthh.xm.commons.security.internal.SpringSecurityXmAuthenticationContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.commons.tenant.internal.DefaultTenantContextHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single {@code @PreAuthorize} check. Run with {@code gradle :xm-commons-permission:jmh},
+ * the gc profiler reports allocation per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PermissionCheckServiceBenchmark {
+
+    private static final String TENANT = "XM";
+    private static final String ROLE = "ROLE_USER";
+
+    private static final String PERMISSIONS = "benchmark:\n"
+        + "  " + ROLE + ":\n"
+        + "    - privilegeKey: BENCHMARK.ALLOWED\n"
+        + "    - privilegeKey: BENCHMARK.ENV\n"
+        + "      envCondition: \"#subject.role == '" + ROLE + "'\"\n"
+        + "    - privilegeKey: BENCHMARK.RESOURCE\n"
+        + "      resourceCondition: \"#owner == 'user'\"\n";
+
+    private static final String ROLES = ROLE + ":\n"
+        + "  description: benchmark role\n";
+
+    private final TenantContextHolder tenantContextHolder = new DefaultTenantContextHolder();
+
+    private PermissionCheckService permissionCheckService;
+    private Authentication authentication;
+    private Map<String, Object> resource;
+
+    @Setup
+    public void setup() {
+        PermissionProperties properties = new PermissionProperties();
+        PermissionService permissionService = new PermissionService(properties);
+        permissionService.onRefresh(properties.getPermissionsSpecPath().replace("{tenantName}", TENANT),
+            PERMISSIONS);
+        RoleService roleService = new RoleService(properties);
+        roleService.onRefresh(properties.getRolesSpecPath().replace("{tenantName}", TENANT), ROLES);
+
+        permissionCheckService = new PermissionCheckService(tenantContextHolder, permissionService,
+            (resourceId, objectType) -> null, new SpringSecurityXmAuthenticationContextHolder(), roleService,
+            new PermissionDecisionCache(properties),
+            new LoggingPermissionAuditSink(properties.getAudit(), new PermissionAuditMetricsSet()));
+
+        authentication = new UsernamePasswordAuthenticationToken("user", "password",
+            Collections.singletonList(new SimpleGrantedAuthority(ROLE)));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        TenantContextUtils.setTenant(tenantContextHolder, TENANT);
+
+        resource = new HashMap<>();
+        resource.put("owner", "user");
+    }
+
+    @TearDown
+    public void tearDown() {
+        tenantContextHolder.getPrivilegedContext().destroyCurrentContext();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean unconditionalPermission() {
+        return permissionCheckService.hasPermission(authentication, "BENCHMARK.ALLOWED");
+    }
+
+    @Benchmark
+    public boolean envConditionPermission() {
+        return permissionCheckService.hasPermission(authentication, "BENCHMARK.ENV");
+    }
+
+    @Benchmark
+    public boolean resourceConditionPermission() {
+        return permissionCheckService.hasPermission(authentication, resource, "BENCHMARK.RESOURCE");
+    }
+}
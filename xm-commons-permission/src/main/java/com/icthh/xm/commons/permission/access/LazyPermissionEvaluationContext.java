@@ -0,0 +1,131 @@
+package com.icthh.xm.commons.permission.access;
+
+import com.icthh.xm.commons.permission.access.subject.Subject;
+import com.icthh.xm.commons.permission.domain.EnvironmentVariable;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.expression.OAuth2SecurityExpressionMethods;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Evaluation context of permission conditions which resolves {@code #subject}, {@code #oauth2}, {@code #env}
+ * variables on the first access. Resource variables are read from the resource map without copying.
+ */
+public class LazyPermissionEvaluationContext extends StandardEvaluationContext {
+
+    public static final String SUBJECT = "subject";
+    public static final String OAUTH2 = "oauth2";
+    public static final String ENV = "env";
+    public static final String GET_REQUEST_HEADER = "getRequestHeader";
+
+    private final Map<String, Object> resource;
+    private final Supplier<Subject> subjectSupplier;
+    private final Authentication authentication;
+    private final Supplier<String> remoteAddressSupplier;
+    private final Method getRequestHeaderFunction;
+
+    private LazyPermissionEvaluationContext shared;
+    private Subject subject;
+    private OAuth2SecurityExpressionMethods oauth2;
+    private Map<String, String> env;
+
+    public LazyPermissionEvaluationContext(Map<String, Object> resource,
+                                           Supplier<Subject> subjectSupplier,
+                                           Authentication authentication,
+                                           Supplier<String> remoteAddressSupplier,
+                                           Method getRequestHeaderFunction) {
+        this.resource = resource == null ? Collections.emptyMap() : resource;
+        this.subjectSupplier = subjectSupplier;
+        this.authentication = authentication;
+        this.remoteAddressSupplier = remoteAddressSupplier;
+        this.getRequestHeaderFunction = getRequestHeaderFunction;
+    }
+
+    /**
+     * Create context for another resource, {@code #subject}, {@code #oauth2} and {@code #env} variables are
+     * resolved once and shared with this context.
+     *
+     * @param resource the resource
+     * @return context for the resource
+     */
+    public LazyPermissionEvaluationContext withResource(Map<String, Object> resource) {
+        LazyPermissionEvaluationContext context = new LazyPermissionEvaluationContext(resource, subjectSupplier,
+            authentication, remoteAddressSupplier, getRequestHeaderFunction);
+        context.shared = shared == null ? this : shared;
+        return context;
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        Object value = super.lookupVariable(name);
+        if (value != null) {
+            return value;
+        }
+        switch (name) {
+            case SUBJECT:
+                return getSubject();
+            case OAUTH2:
+                return getOAuth2();
+            case ENV:
+                return getEnv();
+            case GET_REQUEST_HEADER:
+                return getRequestHeaderFunction;
+            default:
+                return resource.get(name);
+        }
+    }
+
+    private Subject getSubject() {
+        if (shared != null) {
+            return shared.getSubject();
+        }
+        if (subject == null) {
+            subject = subjectSupplier.get();
+        }
+        return subject;
+    }
+
+    private OAuth2SecurityExpressionMethods getOAuth2() {
+        if (shared != null) {
+            return shared.getOAuth2();
+        }
+        if (oauth2 == null) {
+            oauth2 = new OAuth2SecurityExpressionMethods(authentication);
+        }
+        return oauth2;
+    }
+
+    private Map<String, String> getEnv() {
+        if (shared != null) {
+            return shared.getEnv();
+        }
+        if (env == null) {
+            env = Collections.singletonMap(EnvironmentVariable.IP.getName(), remoteAddressSupplier.get());
+        }
+        return env;
+    }
+
+    /**
+     * Variables as they are visible to conditions, lazy variables are included only if resolved.
+     */
+    @Override
+    public String toString() {
+        LazyPermissionEvaluationContext resolved = shared == null ? this : shared;
+        Map<String, Object> variables = new LinkedHashMap<>(resource);
+        if (resolved.subject != null) {
+            variables.put(SUBJECT, resolved.subject);
+        }
+        if (resolved.oauth2 != null) {
+            variables.put(OAUTH2, resolved.oauth2);
+        }
+        if (resolved.env != null) {
+            variables.put(ENV, resolved.env);
+        }
+        return variables.toString();
+    }
+}
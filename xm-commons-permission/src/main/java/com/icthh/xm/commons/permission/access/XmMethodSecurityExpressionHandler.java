@@ -0,0 +1,89 @@
+package com.icthh.xm.commons.permission.access;
+
+import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import lombok.Value;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.ExpressionState;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Method security expression handler which filters collections with {@code @PostFilter("hasPermission(resource,
+ * 'PRIVILEGE')")} by {@link PermissionCheckService#filterPermitted}, so permission is resolved once per
+ * collection instead of once per element.
+ *
+ * <p>Other filter expressions and targets are filtered by {@link DefaultMethodSecurityExpressionHandler}.
+ * Register it as the method security expression handler together with {@link XmPermissionEvaluator}.
+ */
+public class XmMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    private static final String HAS_PERMISSION = "hasPermission";
+
+    private final PermissionCheckService permissionCheckService;
+    private final Map<String, Optional<BulkFilter>> bulkFilters = new ConcurrentHashMap<>();
+
+    public XmMethodSecurityExpressionHandler(PermissionCheckService permissionCheckService) {
+        this.permissionCheckService = permissionCheckService;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object filter(Object filterTarget, Expression filterExpression, EvaluationContext ctx) {
+        Optional<BulkFilter> bulkFilter = filterTarget instanceof Collection
+                                          ? getBulkFilter(filterExpression) : Optional.empty();
+        if (!bulkFilter.isPresent()) {
+            return super.filter(filterTarget, filterExpression, ctx);
+        }
+
+        MethodSecurityExpressionOperations rootObject =
+            (MethodSecurityExpressionOperations) ctx.getRootObject().getValue();
+        SpelNode resource = bulkFilter.get().getResource();
+        Collection<Object> collection = (Collection<Object>) filterTarget;
+        List<Object> permitted = permissionCheckService.filterPermitted(rootObject.getAuthentication(), collection,
+            element -> {
+                rootObject.setFilterObject(element);
+                return resource.getValue(new ExpressionState(ctx));
+            }, bulkFilter.get().getPrivilege());
+
+        collection.clear();
+        collection.addAll(permitted);
+        return filterTarget;
+    }
+
+    private Optional<BulkFilter> getBulkFilter(Expression filterExpression) {
+        if (!(filterExpression instanceof SpelExpression)) {
+            return Optional.empty();
+        }
+        return bulkFilters.computeIfAbsent(filterExpression.getExpressionString(),
+            key -> toBulkFilter(((SpelExpression) filterExpression).getAST()));
+    }
+
+    /**
+     * Match {@code hasPermission(resource, 'PRIVILEGE')} expression.
+     */
+    private static Optional<BulkFilter> toBulkFilter(SpelNode ast) {
+        if (ast instanceof MethodReference && HAS_PERMISSION.equals(((MethodReference) ast).getName())
+            && ast.getChildCount() == 2 && ast.getChild(1) instanceof StringLiteral) {
+            Object privilege = ((StringLiteral) ast.getChild(1)).getLiteralValue().getValue();
+            return Optional.of(new BulkFilter(ast.getChild(0), privilege));
+        }
+        return Optional.empty();
+    }
+
+    @Value
+    private static class BulkFilter {
+        private final SpelNode resource;
+        private final Object privilege;
+    }
+}
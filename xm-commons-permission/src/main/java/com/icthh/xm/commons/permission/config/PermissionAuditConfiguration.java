@@ -0,0 +1,41 @@
+package com.icthh.xm.commons.permission.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.icthh.xm.commons.permission.service.audit.AsyncPermissionAuditSink;
+import com.icthh.xm.commons.permission.service.audit.LoggingPermissionAuditSink;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditMetricsSet;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditSink;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PermissionAuditConfiguration {
+
+    private static final String PERMISSION_AUDIT_METRIC = "permission.audit";
+
+    @Bean
+    public PermissionAuditMetricsSet permissionAuditMetricsSet(ObjectProvider<MetricRegistry> metricRegistry) {
+        PermissionAuditMetricsSet metricsSet = new PermissionAuditMetricsSet();
+        metricRegistry.ifAvailable(registry -> registry.register(PERMISSION_AUDIT_METRIC, metricsSet));
+        return metricsSet;
+    }
+
+    /**
+     * Permission audit sink, synchronous by default. Define own {@link PermissionAuditSink} bean marked
+     * {@code @Primary} to write decisions elsewhere.
+     *
+     * @param permissionProperties the permission properties
+     * @param metricsSet the audit metrics
+     * @return bean
+     */
+    @Bean
+    public PermissionAuditSink permissionAuditSink(PermissionProperties permissionProperties,
+                                                   PermissionAuditMetricsSet metricsSet) {
+        PermissionProperties.Audit audit = permissionProperties.getAudit();
+        if (audit.isAsync()) {
+            return new AsyncPermissionAuditSink(audit, metricsSet);
+        }
+        return new LoggingPermissionAuditSink(audit, metricsSet);
+    }
+}
@@ -5,6 +5,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties("xm-permission")
 @Getter
@@ -20,4 +23,27 @@ public class PermissionProperties {
     private String permissionsSpecPath = DEFAULT_PERMISSIONS_SPEC;
     private String rolesSpecPath = DEFAULT_ROLES_SPEC;
     private String envSpecPath = DEFAULT_ENV_SPEC;
+    private boolean decisionCacheEnabled = false;
+    /**
+     * Read privileges only from build-time index written by xm-commons-permission-index processor, classpath
+     * is scanned if there is no index. Enable it only if all secured methods are compiled with the processor.
+     */
+    private boolean privilegeIndexEnabled = false;
+    private Audit audit = new Audit();
+
+    @Getter
+    @Setter
+    public static class Audit {
+
+        /**
+         * Write decisions from a bounded queue in a background thread instead of the caller thread.
+         */
+        private boolean async = false;
+        private int queueCapacity = 10000;
+        /**
+         * Share of granted decisions written to the log, from 0 to 1. Denied decisions are always written.
+         */
+        private double grantedSampleRate = 1;
+        private Map<String, Double> tenantGrantedSampleRates = new HashMap<>();
+    }
 }
@@ -8,6 +8,7 @@ import org.reflections.util.FilterBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 public class ReflectionConfig {
@@ -16,11 +17,12 @@ public class ReflectionConfig {
     private String scanPackage;
 
     /**
-     * {@link Reflections} bean.
+     * {@link Reflections} bean, created on first use as it scans classpath.
      *
      * @return bean
      */
     @Bean
+    @Lazy
     public Reflections reflections() {
         return new Reflections(new ConfigurationBuilder()
                                     .setUrls(ClasspathHelper.forPackage(scanPackage.trim()))
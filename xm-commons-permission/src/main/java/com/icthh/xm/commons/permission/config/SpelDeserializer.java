@@ -5,13 +5,19 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 import java.io.IOException;
 
 public class SpelDeserializer extends StdDeserializer<Expression> {
 
-    private transient ExpressionParser parser = new SpelExpressionParser();
+    /**
+     * Hot conditions are compiled to bytecode, interpreted evaluation is used if compilation is not possible.
+     */
+    private transient ExpressionParser parser = new SpelExpressionParser(
+        new SpelParserConfiguration(SpelCompilerMode.MIXED, SpelDeserializer.class.getClassLoader()));
 
     public SpelDeserializer() {
         this(null);
@@ -1,5 +1,8 @@
 package com.icthh.xm.commons.permission.inspector;
 
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.domain.Privilege;
+import com.icthh.xm.commons.permission.inspector.index.PrivilegeIndexReader;
 import com.icthh.xm.commons.permission.inspector.kafka.PrivilegeEventProducer;
 import com.icthh.xm.commons.permission.inspector.scanner.PrivilegeScanner;
 import lombok.RequiredArgsConstructor;
@@ -7,6 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+
 @Component
 @Slf4j
 @RequiredArgsConstructor
@@ -14,12 +19,27 @@ public class PrivilegeInspector {
 
     private final PrivilegeScanner scanner;
     private final PrivilegeEventProducer eventProducer;
+    private final PrivilegeIndexReader indexReader;
+    private final PermissionProperties permissionProperties;
 
     /**
-     * Scan for permission annotations and send event to kafka.
+     * Scan for permission annotations, or read privileges from build-time index if it is enabled,
+     * and send event to kafka.
      */
     @Async
     public void readPrivileges(String eventId) {
-        eventProducer.sendEvent(eventId, scanner.scan());
+        eventProducer.sendEvent(eventId, getPrivileges());
+    }
+
+    private Set<Privilege> getPrivileges() {
+        if (!permissionProperties.isPrivilegeIndexEnabled()) {
+            return scanner.scan();
+        }
+        return indexReader.read()
+            .map(scanner::read)
+            .orElseGet(() -> {
+                log.warn("Privilege index is enabled but not found, scan classpath");
+                return scanner.scan();
+            });
     }
 }
@@ -0,0 +1,116 @@
+package com.icthh.xm.commons.permission.inspector.index;
+
+import lombok.Value;
+
+/**
+ * Secured method record of the build-time privilege index.
+ *
+ * <p>Entry is stored as a single line of tab separated fields: annotation, expression, description flag,
+ * description and method. Tabs, line breaks and backslashes in values are escaped.
+ */
+@Value
+public class PrivilegeIndexEntry {
+
+    /**
+     * Index resource location, one index per jar or classes directory.
+     */
+    public static final String LOCATION = "META-INF/xm-permission/privileges.idx";
+
+    private static final char SEPARATOR = '\t';
+    private static final int FIELDS = 5;
+
+    public enum Annotation {
+        PRE_AUTHORIZE("org.springframework.security.access.prepost.PreAuthorize", false),
+        POST_AUTHORIZE("org.springframework.security.access.prepost.PostAuthorize", false),
+        FIND_WITH_PERMISSION("com.icthh.xm.commons.permission.annotation.FindWithPermission", true),
+        POST_FILTER("org.springframework.security.access.prepost.PostFilter", true);
+
+        private final String className;
+        private final boolean returnObject;
+
+        Annotation(String className, boolean returnObject) {
+            this.className = className;
+            this.returnObject = returnObject;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Check if secured method result is a privilege resource.
+         * @return true if {@code returnObject} resource should be added to privilege
+         */
+        public boolean isReturnObject() {
+            return returnObject;
+        }
+    }
+
+    private final Annotation annotation;
+    private final String expression;
+    /**
+     * Value of {@code @PrivilegeDescription}, null if method is not annotated.
+     */
+    private final String description;
+    private final String method;
+
+    /**
+     * Format entry as index line.
+     * @return index line
+     */
+    public String toLine() {
+        return annotation.name() + SEPARATOR + escape(expression) + SEPARATOR + (description != null) + SEPARATOR
+               + escape(description == null ? "" : description) + SEPARATOR + escape(method);
+    }
+
+    /**
+     * Parse index line.
+     * @param line the index line
+     * @return index entry
+     */
+    public static PrivilegeIndexEntry fromLine(String line) {
+        String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != FIELDS) {
+            throw new IllegalArgumentException("Invalid privilege index line: " + line);
+        }
+        return new PrivilegeIndexEntry(Annotation.valueOf(fields[0]), unescape(fields[1]),
+            Boolean.parseBoolean(fields[2]) ? unescape(fields[3]) : null, unescape(fields[4]));
+    }
+
+    private static String escape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char escaped = value.charAt(++i);
+                result.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
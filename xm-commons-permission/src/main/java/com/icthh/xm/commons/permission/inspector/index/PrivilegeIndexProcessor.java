@@ -0,0 +1,131 @@
+package com.icthh.xm.commons.permission.inspector.index;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor which writes {@link PrivilegeIndexEntry#LOCATION} index of methods secured with
+ * {@code @PreAuthorize}, {@code @PostAuthorize}, {@code @PostFilter} and {@code @FindWithPermission},
+ * so privileges are read at startup without classpath scanning.
+ *
+ * <p>Processor is not registered in xm-commons-permission, so it does not run on every compilation.
+ * Enable it in the service build with
+ * {@code annotationProcessor "com.icthh.xm.commons:xm-commons-permission-index:<version>"}
+ * and read privileges from index with {@code xm-permission.privilege-index-enabled=true}.
+ */
+@SupportedAnnotationTypes({
+    "org.springframework.security.access.prepost.PreAuthorize",
+    "org.springframework.security.access.prepost.PostAuthorize",
+    "org.springframework.security.access.prepost.PostFilter",
+    "com.icthh.xm.commons.permission.annotation.FindWithPermission"
+})
+public class PrivilegeIndexProcessor extends AbstractProcessor {
+
+    private static final String PRIVILEGE_DESCRIPTION =
+        "com.icthh.xm.commons.permission.annotation.PrivilegeDescription";
+
+    /**
+     * Annotations in order of precedence, the same as in runtime scanning.
+     */
+    private static final PrivilegeIndexEntry.Annotation[] PRECEDENCE = {
+        PrivilegeIndexEntry.Annotation.POST_FILTER,
+        PrivilegeIndexEntry.Annotation.FIND_WITH_PERMISSION,
+        PrivilegeIndexEntry.Annotation.POST_AUTHORIZE,
+        PrivilegeIndexEntry.Annotation.PRE_AUTHORIZE
+    };
+
+    private final Map<String, PrivilegeIndexEntry> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    toEntry((ExecutableElement) element).ifPresent(entry -> entries.put(entry.getMethod(), entry));
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private Optional<PrivilegeIndexEntry> toEntry(ExecutableElement method) {
+        for (PrivilegeIndexEntry.Annotation annotation : PRECEDENCE) {
+            Optional<String> expression = getValue(method, annotation.getClassName());
+            if (expression.isPresent()) {
+                return Optional.of(new PrivilegeIndexEntry(annotation, expression.get(),
+                    getValue(method, PRIVILEGE_DESCRIPTION).orElse(null), getSignature(method)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<String> getValue(Element element, String annotationClassName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationClassName)) {
+                return mirror.getElementValues().entrySet().stream()
+                    .filter(value -> value.getKey().getSimpleName().contentEquals("value"))
+                    .map(Map.Entry::getValue)
+                    .map(AnnotationValue::getValue)
+                    .map(String::valueOf)
+                    .findFirst();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static String getSignature(ExecutableElement method) {
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        return type.getQualifiedName() + "." + method.getSimpleName()
+               + method.getParameters().stream()
+                       .map(parameter -> parameter.asType().toString())
+                       .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject index = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", PrivilegeIndexEntry.LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (PrivilegeIndexEntry entry : entries.values()) {
+                    writer.write(entry.toLine());
+                    writer.write('\n');
+                }
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Privilege index with " + entries.size() + " secured methods written to "
+                + PrivilegeIndexEntry.LOCATION);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Privilege index can not be written: " + e.getMessage());
+        }
+    }
+}
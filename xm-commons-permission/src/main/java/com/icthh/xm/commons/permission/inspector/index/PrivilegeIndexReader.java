@@ -0,0 +1,69 @@
+package com.icthh.xm.commons.permission.inspector.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads privilege indexes written by {@link PrivilegeIndexProcessor} from the classpath.
+ */
+@Slf4j
+@Component
+public class PrivilegeIndexReader {
+
+    private final ClassLoader classLoader;
+
+    public PrivilegeIndexReader() {
+        this(PrivilegeIndexReader.class.getClassLoader());
+    }
+
+    public PrivilegeIndexReader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Read entries of all privilege indexes on the classpath.
+     *
+     * @return index entries, or empty if there is no index
+     */
+    public Optional<List<PrivilegeIndexEntry>> read() {
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(PrivilegeIndexEntry.LOCATION);
+            if (!indexes.hasMoreElements()) {
+                return Optional.empty();
+            }
+            List<PrivilegeIndexEntry> entries = new ArrayList<>();
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                log.info("Read privilege index {}", index);
+                read(index, entries);
+            }
+            return Optional.of(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Privilege index can not be read", e);
+        }
+    }
+
+    private static void read(URL index, List<PrivilegeIndexEntry> entries) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isNotBlank(line)) {
+                    entries.add(PrivilegeIndexEntry.fromLine(line));
+                }
+            }
+        }
+    }
+}
@@ -3,19 +3,21 @@ package com.icthh.xm.commons.permission.inspector.scanner;
 import com.icthh.xm.commons.permission.annotation.FindWithPermission;
 import com.icthh.xm.commons.permission.annotation.PrivilegeDescription;
 import com.icthh.xm.commons.permission.domain.Privilege;
+import com.icthh.xm.commons.permission.inspector.index.PrivilegeIndexEntry;
 import java.lang.annotation.Annotation;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.reflections.Reflections;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PostFilter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -23,7 +25,6 @@ import static java.util.Objects.nonNull;
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class PrivilegeScanner {
 
     private final Reflections reflections;
@@ -31,6 +32,15 @@ public class PrivilegeScanner {
     @Value("${spring.application.name}")
     private String appName;
 
+    /**
+     * Reflections are injected lazily, so classpath is not scanned when privileges are read from index.
+     *
+     * @param reflections the reflections
+     */
+    public PrivilegeScanner(@Lazy Reflections reflections) {
+        this.reflections = reflections;
+    }
+
     /**
      * Scan for {@link PreAuthorize} and {@link PostAuthorize} annotations
      * and create {@link Set} of {@link Privilege}.
@@ -73,7 +83,8 @@ public class PrivilegeScanner {
             }
 
             if (nonNull(privilege.getKey())) {
-                updateCustomPrivilege(method, privilege);
+                PrivilegeDescription description = method.getAnnotation(PrivilegeDescription.class);
+                updateCustomPrivilege(method, nonNull(description) ? description.value() : null, privilege);
                 privileges.add(privilege);
             }
         }
@@ -82,9 +93,34 @@ public class PrivilegeScanner {
         return privileges;
     }
 
-    private void updateCustomPrivilege(Method method, Privilege privilege) {
-        if (method.isAnnotationPresent(PrivilegeDescription.class)) {
-            String customDescription = method.getAnnotation(PrivilegeDescription.class).value();
+    /**
+     * Create {@link Set} of {@link Privilege} from build-time privilege index.
+     *
+     * @param entries the privilege index entries
+     * @return set of privileges
+     */
+    public Set<Privilege> read(Collection<PrivilegeIndexEntry> entries) {
+        StopWatch stopWatch = StopWatch.createStarted();
+
+        Set<Privilege> privileges = new HashSet<>();
+        for (PrivilegeIndexEntry entry : entries) {
+            Privilege privilege = parse(entry.getExpression());
+            if (entry.getAnnotation().isReturnObject()) {
+                privilege.getResources().add("returnObject");
+            }
+
+            if (nonNull(privilege.getKey())) {
+                updateCustomPrivilege(entry.getMethod(), entry.getDescription(), privilege);
+                privileges.add(privilege);
+            }
+        }
+
+        log.info("Read {} privileges from index in {} ms", privileges.size(), stopWatch.getTime());
+        return privileges;
+    }
+
+    private void updateCustomPrivilege(Object method, String customDescription, Privilege privilege) {
+        if (nonNull(customDescription)) {
             if (StringUtils.isNotEmpty(customDescription)) {
                 privilege.setCustomDescription(customDescription);
             }
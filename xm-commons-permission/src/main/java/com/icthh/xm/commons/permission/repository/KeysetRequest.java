@@ -0,0 +1,68 @@
+package com.icthh.xm.commons.permission.repository;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+import java.util.regex.Pattern;
+
+/**
+ * Keyset (seek) page request: entities are returned ordered by the sort key, starting after the last seen value.
+ *
+ * <p>Sort key must be unique and not null for entities, e.g. {@code id}, otherwise rows with equal key values
+ * can be skipped between pages.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetRequest {
+
+    private static final Pattern SORT_KEY_PATTERN = Pattern.compile("[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)*");
+
+    private final String sortKey;
+    private final Sort.Direction direction;
+    private final Object lastValue;
+    private final int size;
+
+    /**
+     * Create ascending keyset request.
+     * @param sortKey the entity property to order and seek by
+     * @param lastValue the sort key value of last entity from previous slice, null for the first slice
+     * @param size the slice size
+     * @return keyset request
+     */
+    public static KeysetRequest of(String sortKey, Object lastValue, int size) {
+        return of(sortKey, Sort.Direction.ASC, lastValue, size);
+    }
+
+    /**
+     * Create keyset request.
+     * @param sortKey the entity property to order and seek by
+     * @param direction the sort direction
+     * @param lastValue the sort key value of last entity from previous slice, null for the first slice
+     * @param size the slice size
+     * @return keyset request
+     */
+    public static KeysetRequest of(String sortKey, Sort.Direction direction, Object lastValue, int size) {
+        if (sortKey == null || !SORT_KEY_PATTERN.matcher(sortKey).matches()) {
+            throw new IllegalArgumentException("Invalid keyset sort key: " + sortKey);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Keyset size must not be less than one");
+        }
+        return new KeysetRequest(sortKey, direction, lastValue, size);
+    }
+
+    /**
+     * Request for the next slice.
+     * @param lastValue the sort key value of last entity from current slice
+     * @return keyset request
+     */
+    public KeysetRequest next(Object lastValue) {
+        return new KeysetRequest(sortKey, direction, lastValue, size);
+    }
+
+    Sort getSort() {
+        return Sort.by(direction, sortKey);
+    }
+}
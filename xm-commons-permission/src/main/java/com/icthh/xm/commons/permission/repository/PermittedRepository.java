@@ -4,25 +4,38 @@ import static java.lang.String.format;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import com.icthh.xm.commons.permission.service.translator.JpqlCondition;
+import com.icthh.xm.commons.permission.service.translator.SpelToJpqlConditionTranslator;
 import com.icthh.xm.commons.permission.service.translator.SpelToJpqlTranslator;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.Query;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -40,10 +53,14 @@ public class PermittedRepository {
     public static final String AND_SQL = " and ";
     public static final String ORDER_BY_SQL = " order by ";
     private static final String GRAPH_DELIMETER = ".";
+    private static final String KEYSET_PARAM = "keysetLastValue";
 
     private final SpelToJpqlTranslator spelToJpqlTranslator = new SpelToJpqlTranslator();
+    private final SpelToJpqlConditionTranslator spelToJpqlConditionTranslator = new SpelToJpqlConditionTranslator();
 
     private final PermissionCheckService permissionCheckService;
+    private final boolean permissionConditionOverridden =
+        isPermissionConditionOverridden(ClassUtils.getUserClass(getClass()));
 
     @Setter(AccessLevel.PACKAGE)
     @VisibleForTesting
@@ -73,15 +90,19 @@ public class PermittedRepository {
         String selectSql = format(SELECT_ALL_SQL, entityClass.getSimpleName());
         String countSql = format(COUNT_ALL_SQL, entityClass.getSimpleName());
 
-        String permittedCondition = createPermissionCondition(privilegeKey);
-        if (StringUtils.isNotBlank(permittedCondition)) {
-            selectSql += WHERE_SQL + permittedCondition;
-            countSql += WHERE_SQL + permittedCondition;
+        JpqlCondition permittedCondition = createPermissionJpqlCondition(privilegeKey);
+        if (isNotBlank(permittedCondition)) {
+            selectSql += WHERE_SQL + permittedCondition.getJpql();
+            countSql += WHERE_SQL + permittedCondition.getJpql();
         }
 
+        TypedQuery<T> selectQuery = createSelectQuery(selectSql, pageable, entityClass);
+        TypedQuery<Long> countQuery = createCountQuery(countSql);
+        bindPermissionParams(permittedCondition, selectQuery, countQuery);
+
         log.debug("Executing SQL '{}'", selectSql);
 
-        return execute(createCountQuery(countSql), pageable, createSelectQuery(selectSql, pageable, entityClass));
+        return execute(countQuery, pageable, selectQuery);
     }
 
     /**
@@ -141,10 +162,10 @@ public class PermittedRepository {
         selectSql += WHERE_SQL + whereCondition;
         countSql += WHERE_SQL + whereCondition;
 
-        String permittedCondition = createPermissionCondition(privilegeKey);
-        if (StringUtils.isNotBlank(permittedCondition)) {
-            selectSql += AND_SQL + "(" + permittedCondition + ")";
-            countSql += AND_SQL + "(" + permittedCondition + ")";
+        JpqlCondition permittedCondition = createPermissionJpqlCondition(privilegeKey);
+        if (isNotBlank(permittedCondition)) {
+            selectSql += AND_SQL + "(" + permittedCondition.getJpql() + ")";
+            countSql += AND_SQL + "(" + permittedCondition.getJpql() + ")";
         }
 
         TypedQuery<T> selectQuery = createSelectQuery(selectSql, pageable, entityClass);
@@ -157,12 +178,145 @@ public class PermittedRepository {
             selectQuery.setParameter(paramName, paramValue);
             countQuery.setParameter(paramName, paramValue);
         });
+        bindPermissionParams(permittedCondition, selectQuery, countQuery);
 
         log.debug("Executing SQL '{}' with params '{}'", selectQuery, conditionParams);
 
         return execute(countQuery, pageable, selectQuery);
     }
 
+    /**
+     * Find keyset slice of permitted entities.
+     * @param keyset the keyset request
+     * @param entityClass the entity class to get
+     * @param privilegeKey the privilege key for permission lookup
+     * @param <T> the type of entity
+     * @return slice of permitted entities ordered by keyset sort key
+     */
+    public <T> Slice<T> findAllAfter(KeysetRequest keyset, Class<T> entityClass, String privilegeKey) {
+        return findByConditionAfter(null, Collections.emptyMap(), keyset, entityClass, privilegeKey);
+    }
+
+    /**
+     * Find keyset slice of permitted entities by parameters.
+     *
+     * <p>Unlike offset pages, the database seeks by the sort key from the last seen value and no count query
+     * is executed, so the cost of a slice does not grow with its depth.
+     *
+     * @param whereCondition the parameters condition, can be null
+     * @param conditionParams the parameters map
+     * @param keyset the keyset request
+     * @param entityClass the entity class to get
+     * @param privilegeKey the privilege key for permission lookup
+     * @param <T> the type of entity
+     * @return slice of permitted entities ordered by keyset sort key
+     */
+    public <T> Slice<T> findByConditionAfter(String whereCondition,
+                                             Map<String, Object> conditionParams,
+                                             KeysetRequest keyset,
+                                             Class<T> entityClass,
+                                             String privilegeKey) {
+        List<String> conditions = new ArrayList<>();
+        if (StringUtils.isNotBlank(whereCondition)) {
+            conditions.add("(" + whereCondition + ")");
+        }
+
+        JpqlCondition permittedCondition = createPermissionJpqlCondition(privilegeKey);
+        if (isNotBlank(permittedCondition)) {
+            conditions.add("(" + permittedCondition.getJpql() + ")");
+        }
+
+        if (keyset.getLastValue() != null) {
+            conditions.add(keyset.getSortKey() + (keyset.getDirection().isAscending() ? " > " : " < ")
+                + ":" + KEYSET_PARAM);
+        }
+
+        String selectSql = format(SELECT_ALL_SQL, entityClass.getSimpleName()) + where(conditions);
+
+        Pageable pageable = PageRequest.of(0, keyset.getSize(), keyset.getSort());
+        TypedQuery<T> selectQuery = createSelectQuery(selectSql, pageable, entityClass);
+        conditionParams.forEach((paramName, paramValue) -> selectQuery.setParameter(paramName, paramValue));
+        bindPermissionParams(permittedCondition, selectQuery);
+        if (keyset.getLastValue() != null) {
+            selectQuery.setParameter(KEYSET_PARAM, keyset.getLastValue());
+        }
+        selectQuery.setMaxResults(keyset.getSize() + 1);
+
+        log.debug("Executing SQL '{}' with params '{}' after '{}'", selectSql, conditionParams,
+            keyset.getLastValue());
+
+        List<T> content = selectQuery.getResultList();
+        boolean hasNext = content.size() > keyset.getSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, keyset.getSize()));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Stream all permitted entities.
+     * @param fetchSize the JDBC fetch size and persistence context clear interval
+     * @param entityClass the entity class to get
+     * @param privilegeKey the privilege key for permission lookup
+     * @param <T> the type of entity
+     * @return stream of permitted entities, must be closed
+     * @see #streamByCondition(String, Map, Sort, int, Class, String)
+     */
+    public <T> Stream<T> streamAll(int fetchSize, Class<T> entityClass, String privilegeKey) {
+        return streamByCondition(null, Collections.emptyMap(), null, fetchSize, entityClass, privilegeKey);
+    }
+
+    /**
+     * Stream permitted entities by parameters.
+     *
+     * <p>Rows are read with forward-only cursor, {@code fetchSize} rows per database round trip, and persistence
+     * context is cleared every {@code fetchSize} entities. Entities consumed before the last clear are detached,
+     * so they must be processed when they are read. Stream must be closed to release the cursor, should be
+     * used within a transaction.
+     *
+     * @param whereCondition the parameters condition, can be null
+     * @param conditionParams the parameters map
+     * @param sort the sort, can be null
+     * @param fetchSize the JDBC fetch size and persistence context clear interval
+     * @param entityClass the entity class to get
+     * @param privilegeKey the privilege key for permission lookup
+     * @param <T> the type of entity
+     * @return stream of permitted entities, must be closed
+     */
+    public <T> Stream<T> streamByCondition(String whereCondition,
+                                           Map<String, Object> conditionParams,
+                                           Sort sort,
+                                           int fetchSize,
+                                           Class<T> entityClass,
+                                           String privilegeKey) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must not be less than one");
+        }
+        List<String> conditions = new ArrayList<>();
+        if (StringUtils.isNotBlank(whereCondition)) {
+            conditions.add("(" + whereCondition + ")");
+        }
+
+        JpqlCondition permittedCondition = createPermissionJpqlCondition(privilegeKey);
+        if (isNotBlank(permittedCondition)) {
+            conditions.add("(" + permittedCondition.getJpql() + ")");
+        }
+
+        String selectSql = format(SELECT_ALL_SQL, entityClass.getSimpleName()) + where(conditions);
+
+        TypedQuery<T> selectQuery = em.createQuery(applyOrder(selectSql, sort), entityClass);
+        conditionParams.forEach((paramName, paramValue) -> selectQuery.setParameter(paramName, paramValue));
+        bindPermissionParams(permittedCondition, selectQuery);
+
+        log.debug("Streaming SQL '{}' with params '{}' and fetch size {}", selectSql, conditionParams, fetchSize);
+
+        ScrollableResults results = selectQuery.unwrap(Query.class)
+            .setFetchSize(fetchSize)
+            .scroll(ScrollMode.FORWARD_ONLY);
+        return StreamSupport.stream(new ScrollableResultsSpliterator<T>(results, em, fetchSize), false)
+            .onClose(results::close);
+    }
+
     protected <T> TypedQuery<T> createSelectQuery(String selectSql, Pageable pageable, Class<T> entityClass) {
         Sort sort = pageable == null ? null : pageable.getSort();
         return em.createQuery(applyOrder(selectSql, sort), entityClass);
@@ -177,6 +331,14 @@ public class PermittedRepository {
             : readPage(countSql, query, pageable);
     }
 
+    /**
+     * Create permission condition with subject values inlined to JPQL.
+     * @param privilegeKey the privilege key for permission lookup
+     * @return JPQL condition
+     * @deprecated use {@link #createPermissionJpqlCondition(String)} which binds subject values as parameters,
+     *     the condition is still used if subclass overrides this method
+     */
+    @Deprecated
     protected String createPermissionCondition(String privilegeKey) {
         return permissionCheckService.createCondition(
             SecurityContextHolder.getContext().getAuthentication(),
@@ -184,6 +346,49 @@ public class PermittedRepository {
             spelToJpqlTranslator);
     }
 
+    protected JpqlCondition createPermissionJpqlCondition(String privilegeKey) {
+        if (permissionConditionOverridden) {
+            return JpqlCondition.of(createPermissionCondition(privilegeKey));
+        }
+        return permissionCheckService.createJpqlCondition(
+            SecurityContextHolder.getContext().getAuthentication(),
+            privilegeKey,
+            spelToJpqlConditionTranslator);
+    }
+
+    private static boolean isPermissionConditionOverridden(Class<?> type) {
+        for (Class<?> current = type; current != PermittedRepository.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("createPermissionCondition", String.class);
+                log.warn("{} overrides deprecated createPermissionCondition, override createPermissionJpqlCondition",
+                    type.getName());
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden on this level
+            }
+        }
+        return false;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : WHERE_SQL + String.join(AND_SQL, conditions);
+    }
+
+    private static boolean isNotBlank(JpqlCondition condition) {
+        return condition != null && StringUtils.isNotBlank(condition.getJpql());
+    }
+
+    private static void bindPermissionParams(JpqlCondition condition, TypedQuery<?>... queries) {
+        if (!isNotBlank(condition)) {
+            return;
+        }
+        condition.getParams().forEach((paramName, paramValue) -> {
+            for (TypedQuery<?> query : queries) {
+                query.setParameter(paramName, paramValue);
+            }
+        });
+    }
+
     private static String applyOrder(String sql, Sort sort) {
         StringBuilder builder = new StringBuilder(sql);
 
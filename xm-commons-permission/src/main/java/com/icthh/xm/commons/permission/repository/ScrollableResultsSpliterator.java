@@ -0,0 +1,42 @@
+package com.icthh.xm.commons.permission.repository;
+
+import org.hibernate.ScrollableResults;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+
+/**
+ * Spliterator over forward-only scrollable results which clears persistence context every {@code clearInterval}
+ * entities, so already consumed entities do not stay in memory.
+ */
+class ScrollableResultsSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final ScrollableResults results;
+    private final EntityManager em;
+    private final int clearInterval;
+
+    private long count;
+
+    ScrollableResultsSpliterator(ScrollableResults results, EntityManager em, int clearInterval) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.results = results;
+        this.em = em;
+        this.clearInterval = clearInterval;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (count > 0 && count % clearInterval == 0) {
+            em.clear();
+        }
+        if (!results.next()) {
+            return false;
+        }
+        count++;
+        action.accept((T) results.get(0));
+        return true;
+    }
+}
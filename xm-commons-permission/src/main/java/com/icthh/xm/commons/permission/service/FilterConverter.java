@@ -8,98 +8,146 @@ import io.github.jhipster.service.filter.StringFilter;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.ToString;
-import org.springframework.cglib.beans.BeanMap;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
 
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Converts Criteria to JPQL statement.
+ *
+ * <p>Filter properties of a criteria class are resolved once into a template, so a conversion only reads
+ * property values and builds expressions for non-null ones.
  */
 public class FilterConverter {
 
-    @SuppressWarnings("unchecked")
+    private static final Map<Class<?>, FilterTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
     public static <T> QueryPart toJpql(T criteria) {
-        return toJpql(BeanMap.create(criteria));
+        return TEMPLATES.computeIfAbsent(criteria.getClass(), FilterTemplate::of).toJpql(criteria);
     }
 
-    private static QueryPart toJpql(Map<String, Filter> filterMap) {
-
-        return filterMap.entrySet()
-                        .stream()
-                        .filter(s -> s.getValue() != null)
-                        .flatMap(FilterConverter::resolveExpression)
-                        .collect(QueryPart::new,
-                                 QueryPart::accumulateExpression,
-                                 QueryPart::combineQueryParts
-                        );
+    /**
+     * Pre-processes foreign key field name from camelCase to snake_case.
+     *
+     * The reason to preprocess is because jhipster generates FK fields in snake case in DB.
+     *
+     * @param fieldName field name
+     * @return preprocessed field name if field ends with 'Id'
+     */
+    private static String preProcessForeignKeyField(String fieldName) {
+        if (fieldName.endsWith("Id")) {
+            return fieldName.replaceFirst("Id$", "_id");
+        }
+        return fieldName;
     }
 
-    private static Stream<Expression> resolveExpression(Map.Entry<String, Filter> entry) {
-
-        Stream.Builder<Expression> expressions = Stream.builder();
+    /**
+     * Filter properties of criteria class with value readers, resolved once per class.
+     */
+    private static class FilterTemplate {
 
-        Filter<?> filter = entry.getValue();
-        String fieldName = preProcessForeignKeyField(entry.getKey());
+        private final List<PropertyTemplate> properties;
 
-        if (filter.getEquals() != null) {
-            expressions.add(new Expression(fieldName, Operation.EQUALS, filter.getEquals()));
+        private FilterTemplate(List<PropertyTemplate> properties) {
+            this.properties = properties;
         }
-        if (filter.getSpecified() != null) {
-            Boolean specified = filter.getSpecified();
-            expressions.add(new Expression(fieldName,
-                                           specified ? Operation.SPECIFIED : Operation.NOT_SPECIFIED,
-                                           specified));
+
+        private static FilterTemplate of(Class<?> criteriaClass) {
+            List<PropertyTemplate> properties = Stream.of(BeanUtils.getPropertyDescriptors(criteriaClass))
+                .filter(property -> property.getReadMethod() != null && property.getPropertyType() != null)
+                .filter(property -> Filter.class.isAssignableFrom(property.getPropertyType()))
+                .map(PropertyTemplate::of)
+                .collect(Collectors.toList());
+            return new FilterTemplate(properties);
         }
-        if (filter.getIn() != null) {
-            expressions.add(new Expression(fieldName, Operation.IN, filter.getIn()));
+
+        private QueryPart toJpql(Object criteria) {
+            QueryPart queryPart = new QueryPart();
+            for (PropertyTemplate property : properties) {
+                Filter<?> filter = (Filter<?>) ReflectionUtils.invokeMethod(property.getter, criteria);
+                if (filter != null) {
+                    property.accumulate(queryPart, filter);
+                }
+            }
+            return queryPart;
         }
+    }
+
+    private static class PropertyTemplate {
+
+        private final String fieldName;
+        private final Method getter;
+        private final List<ExpressionReader> readers;
 
-        if (filter instanceof StringFilter && ((StringFilter) filter).getContains() != null) {
-            expressions.add(new Expression(fieldName, Operation.CONTAINS, ((StringFilter) filter).getContains()));
+        private PropertyTemplate(String fieldName, Method getter, List<ExpressionReader> readers) {
+            this.fieldName = fieldName;
+            this.getter = getter;
+            this.readers = readers;
         }
 
-        if (filter instanceof RangeFilter) {
-            RangeFilter rangeFilter = (RangeFilter<?>) filter;
-            if (rangeFilter.getGreaterThan() != null) {
-                expressions.add(new Expression(fieldName,
-                                               Operation.GREATER_THAN,
-                                               rangeFilter.getGreaterThan()));
+        private static PropertyTemplate of(PropertyDescriptor property) {
+            Class<?> type = property.getPropertyType();
+            List<ExpressionReader> readers = new ArrayList<>();
+            readers.add(value(Operation.EQUALS, Filter::getEquals));
+            readers.add((fieldName, filter) -> filter.getSpecified() == null ? null
+                : new Expression(fieldName,
+                                 filter.getSpecified() ? Operation.SPECIFIED : Operation.NOT_SPECIFIED,
+                                 filter.getSpecified()));
+            readers.add(value(Operation.IN, Filter::getIn));
+
+            if (isCompatible(type, StringFilter.class)) {
+                readers.add(value(Operation.CONTAINS, filter -> filter instanceof StringFilter
+                    ? ((StringFilter) filter).getContains() : null));
             }
-            if (rangeFilter.getGreaterThanOrEqual() != null) {
-                expressions.add(new Expression(fieldName,
-                                               Operation.GREATER_OR_EQ_THAN,
-                                               rangeFilter.getGreaterThanOrEqual()));
+            if (isCompatible(type, RangeFilter.class)) {
+                readers.add(range(Operation.GREATER_THAN, RangeFilter::getGreaterThan));
+                readers.add(range(Operation.GREATER_OR_EQ_THAN, RangeFilter::getGreaterThanOrEqual));
+                readers.add(range(Operation.LESS_THAN, RangeFilter::getLessThan));
+                readers.add(range(Operation.LESS_OR_EQ_THAN, RangeFilter::getLessThanOrEqual));
             }
-            if (rangeFilter.getLessThan() != null) {
-                expressions.add(new Expression(fieldName,
-                                               Operation.LESS_THAN,
-                                               rangeFilter.getLessThan()));
-            }
-            if (rangeFilter.getLessThanOrEqual() != null) {
-                expressions.add(new Expression(fieldName,
-                                               Operation.LESS_OR_EQ_THAN,
-                                               rangeFilter.getLessThanOrEqual()));
+            return new PropertyTemplate(preProcessForeignKeyField(property.getName()), property.getReadMethod(),
+                                        readers);
+        }
+
+        private void accumulate(QueryPart queryPart, Filter<?> filter) {
+            for (ExpressionReader reader : readers) {
+                Expression expression = reader.read(fieldName, filter);
+                if (expression != null) {
+                    QueryPart.accumulateExpression(queryPart, expression);
+                }
             }
         }
 
-        return expressions.build();
-    }
+        private static boolean isCompatible(Class<?> type, Class<?> filterType) {
+            return filterType.isAssignableFrom(type) || type.isAssignableFrom(filterType);
+        }
 
-    /**
-     * Pre-processes foreign key field name from camelCase to snake_case.
-     *
-     * The reason to preprocess is because jhipster generates FK fields in snake case in DB.
-     *
-     * @param fieldName field name
-     * @return preprocessed field name if field ends with 'Id'
-     */
-    private static String preProcessForeignKeyField(String fieldName) {
-        if (fieldName.endsWith("Id")) {
-            return fieldName.replaceFirst("Id$", "_id");
+        private static ExpressionReader value(Operation operation, Function<Filter<?>, Object> valueReader) {
+            return (fieldName, filter) -> {
+                Object value = valueReader.apply(filter);
+                return value == null ? null : new Expression(fieldName, operation, value);
+            };
         }
-        return fieldName;
+
+        private static ExpressionReader range(Operation operation, Function<RangeFilter<?>, Object> valueReader) {
+            return value(operation, filter -> filter instanceof RangeFilter
+                ? valueReader.apply((RangeFilter<?>) filter) : null);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExpressionReader {
+        Expression read(String fieldName, Filter<?> filter);
     }
 
     @Getter
@@ -140,13 +188,6 @@ public class FilterConverter {
             }
         }
 
-        private static QueryPart combineQueryParts(final QueryPart qp1,
-                                                   final QueryPart qp2) {
-            qp1.getQuery().append(JPQL_AND).append(qp2.getQuery());
-            qp1.getParams().putAll(qp2.getParams());
-            return qp1;
-        }
-
     }
 
     @Getter
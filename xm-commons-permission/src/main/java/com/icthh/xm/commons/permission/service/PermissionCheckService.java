@@ -2,38 +2,46 @@ package com.icthh.xm.commons.permission.service;
 
 import com.icthh.xm.commons.exceptions.SkipPermissionException;
 import com.icthh.xm.commons.logging.aop.IgnoreLogginAspect;
+import com.icthh.xm.commons.permission.access.LazyPermissionEvaluationContext;
 import com.icthh.xm.commons.permission.access.ResourceFactory;
 import com.icthh.xm.commons.permission.access.subject.Subject;
 import com.icthh.xm.commons.permission.constants.RoleConstant;
-import com.icthh.xm.commons.permission.domain.EnvironmentVariable;
 import com.icthh.xm.commons.permission.domain.Permission;
 import com.icthh.xm.commons.permission.domain.ReactionStrategy;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditEvent;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditSink;
+import com.icthh.xm.commons.permission.service.decision.PermissionDecision;
+import com.icthh.xm.commons.permission.service.decision.PermissionDecisionCache;
+import com.icthh.xm.commons.permission.service.translator.JpqlCondition;
+import com.icthh.xm.commons.permission.service.translator.SpelToJpqlConditionTranslator;
 import com.icthh.xm.commons.permission.service.translator.SpelTranslator;
 import com.icthh.xm.commons.security.XmAuthenticationContext;
 import com.icthh.xm.commons.security.XmAuthenticationContextHolder;
 import com.icthh.xm.commons.tenant.TenantContextHolder;
 import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.commons.tenant.TenantKey;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.slf4j.event.Level;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.expression.spel.standard.SpelExpression;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.provider.expression.OAuth2SecurityExpressionMethods;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -43,6 +51,7 @@ public class PermissionCheckService {
 
     private static final String ERROR_ROLE_IS_UNDEFINED = "Role is undefined";
     private static final String LOG_KEY = "log";
+    private static final String ACCESS_GRANTED = "access granted: privilege={}, role={}, userKey={}";
 
     private static final Method GET_REQUEST_HEADER = lookupGetRequestHeaderMethod();
 
@@ -51,6 +60,8 @@ public class PermissionCheckService {
     private final ResourceFactory resourceFactory;
     private final XmAuthenticationContextHolder xmAuthenticationContextHolder;
     private final RoleService roleService;
+    private final PermissionDecisionCache decisionCache;
+    private final PermissionAuditSink auditSink;
 
     /**
      * Check permission for role and privilege key only.
@@ -106,15 +117,105 @@ public class PermissionCheckService {
         return checkPermission(authentication, resource, privilege, true, logPermission);
     }
 
+    /**
+     * Filter elements by role, privilege key and resource condition.
+     *
+     * <p>The result is the same as {@link #hasPermission(Authentication, Object, Object)} called for every element,
+     * but role, permission, subject and resource free conditions are resolved once per collection, so only
+     * conditions which reference the resource are evaluated per element. The decision is logged once.
+     *
+     * @param authentication the authentication
+     * @param elements the elements to filter
+     * @param resourceMapper builds permission resource of the element
+     * @param privilege the privilege key
+     * @param <T> the element type
+     * @return permitted elements in the iteration order
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> filterPermitted(Authentication authentication,
+                                       Collection<T> elements,
+                                       Function<? super T, ?> resourceMapper,
+                                       Object privilege) {
+        if (elements.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> resources = new ArrayList<>(elements.size());
+        boolean logPermission = true;
+        for (T element : elements) {
+            Object resource = resourceMapper.apply(element);
+            logPermission &= isLogPermission(resource);
+            resources.add((Map<String, Object>) resource);
+        }
+
+        if (checkRole(authentication, privilege, logPermission)) {
+            return new ArrayList<>(elements);
+        }
+
+        String roleKey = getRoleKey(authentication);
+        PermissionDecision decision = getDecision(roleKey, privilege);
+        if (decision.isDenied()) {
+            logDenied(logPermission,
+                "access denied: privilege={}, role={}, userKey={} due to privilege is not permitted",
+                privilege, roleKey);
+            return new ArrayList<>();
+        }
+        if (decision.isUnconditional(true)) {
+            logGranted(logPermission, privilege, roleKey);
+            return new ArrayList<>(elements);
+        }
+
+        if (decision.isResourceFree(true)) {
+            boolean permitted = checkConditions(authentication, null, privilege, roleKey, decision, true,
+                logPermission);
+            return permitted ? new ArrayList<>(elements) : new ArrayList<>();
+        }
+
+        LazyPermissionEvaluationContext context = createContext(authentication, null, roleKey);
+        Permission permission = decision.getPermission();
+        boolean skip = ReactionStrategy.SKIP.equals(permission.getReactionStrategy());
+        if (decision.isEnvConditionResourceFree() && !isConditionValid(decision.getEnvCondition(), context)) {
+            logDenied(logPermission,
+                "access denied: privilege={}, role={}, userKey={} due to env condition: [{}] with context [{}]",
+                privilege, roleKey, permission.getEnvCondition().getExpressionString(), context);
+            if (skip) {
+                throw skipPermission(permission);
+            }
+            return new ArrayList<>();
+        }
+        Expression envCondition = decision.isEnvConditionResourceFree() ? null : decision.getEnvCondition();
+
+        List<T> permitted = new ArrayList<>();
+        int index = 0;
+        for (T element : elements) {
+            LazyPermissionEvaluationContext elementContext = context.withResource(resources.get(index++));
+            if (isConditionValid(envCondition, elementContext)
+                && isConditionValid(decision.getResourceCondition(), elementContext)) {
+                permitted.add(element);
+            } else if (skip) {
+                throw skipPermission(permission);
+            }
+        }
+
+        if (permitted.size() < elements.size()) {
+            logDenied(logPermission,
+                "access denied: privilege={}, role={}, userKey={} due to conditions for {} of {} elements",
+                privilege, roleKey, elements.size() - permitted.size(), elements.size());
+        }
+        if (!permitted.isEmpty()) {
+            logGranted(logPermission, privilege, roleKey);
+        }
+        return permitted;
+    }
+
     /**
      * Create condition with replaced subject variables.
      *
      * <p>SpEL condition translated to SQL condition with replacing #returnObject to returnObject
      * and enriching #subject.* from Subject object (see {@link Subject}).
      *
-     * <p>As an option, SpEL could be translated to SQL
-     * via {@link SpelExpression} method {@code getAST()}
-     * with traversing through {@link SpelNode} nodes and building SQL expression.
+     * <p>SpEL translated to JPQL via {@link SpelExpression} method {@code getAST()}
+     * with traversing through {@link SpelNode} nodes is available with
+     * {@link #createJpqlCondition(Authentication, Object, SpelToJpqlConditionTranslator)}.
      *
      * @param authentication the authentication
      * @param privilegeKey the privilege key
@@ -122,24 +223,45 @@ public class PermissionCheckService {
      * @return condition if permitted, or null
      */
     public String createCondition(Authentication authentication, Object privilegeKey, SpelTranslator translator) {
+        return translateCondition(authentication, privilegeKey, translator::translate);
+    }
+
+    /**
+     * Create JPQL condition with subject variables as named parameters.
+     *
+     * <p>Unlike {@link #createCondition(Authentication, Object, SpelTranslator)} the JPQL string does not depend on
+     * the subject, so it can be reused by the query plan cache.
+     *
+     * @param authentication the authentication
+     * @param privilegeKey the privilege key
+     * @param translator the spel to JPQL translator
+     * @return condition if permitted, or null
+     */
+    public JpqlCondition createJpqlCondition(Authentication authentication, Object privilegeKey,
+                                             SpelToJpqlConditionTranslator translator) {
+        return translateCondition(authentication, privilegeKey, translator::translate);
+    }
+
+    private <C> C translateCondition(Authentication authentication, Object privilegeKey,
+                                     BiFunction<String, Subject, C> translator) {
         if (!hasPermission(authentication, privilegeKey)) {
             throw new AccessDeniedException("Access is denied");
         }
 
         String roleKey = getRoleKey(authentication);
 
-        Permission permission = getPermission(roleKey, privilegeKey);
+        PermissionDecision decision = getDecision(roleKey, privilegeKey);
 
         Subject subject = getSubject(roleKey);
 
         if (!RoleConstant.SUPER_ADMIN.equals(roleKey)
-            && permission != null && permission.getResourceCondition() != null) {
-            return translator.translate(permission.getResourceCondition().getExpressionString(), subject);
+            && decision.getPermission() != null && decision.getPermission().getResourceCondition() != null) {
+            return translator.apply(decision.getPermission().getResourceCondition().getExpressionString(),
+                subject);
         }
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     @SneakyThrows
     private boolean checkPermission(Authentication authentication,
                                     Object resource,
@@ -147,82 +269,104 @@ public class PermissionCheckService {
                                     boolean checkCondition,
                                     boolean logPermission) {
         String roleKey = getRoleKey(authentication);
-        Map<String, Object> resources = new HashMap<>();
+        PermissionDecision decision = getDecision(roleKey, privilegeKey);
 
-        if (resource != null) {
-            resources.putAll((Map<String, Object>) resource);
+        if (decision.isDenied()) {
+            logDenied(logPermission,
+                "access denied: privilege={}, role={}, userKey={} due to privilege is not permitted",
+                privilegeKey, roleKey);
+            return false;
         }
-        resources.put("subject", getSubject(roleKey));
-        resources.put("oauth2", new OAuth2SecurityExpressionMethods(authentication));
 
-        Map<String, String> env = new HashMap<>();
-        env.put(EnvironmentVariable.IP.getName(), xmAuthenticationContextHolder
-            .getContext().getRemoteAddress().orElse(null));
-        resources.put("env", env);//put some env variables in this map
+        if (decision.isUnconditional(checkCondition)) {
+            logGranted(logPermission, privilegeKey, roleKey);
+            return true;
+        }
 
-        StandardEvaluationContext context = new StandardEvaluationContext();
-        context.setVariables(resources);
-        context.registerFunction("getRequestHeader", GET_REQUEST_HEADER);
+        if (decisionCache.isEnabled() && decision.isResourceFree(checkCondition)) {
+            return decisionCache.getOrEvaluate(
+                TenantContextUtils.getRequiredTenantKeyValue(tenantContextHolder.getContext()), roleKey,
+                privilegeKey, checkCondition,
+                () -> checkConditions(authentication, resource, privilegeKey, roleKey, decision, checkCondition,
+                    logPermission));
+        }
+        return checkConditions(authentication, resource, privilegeKey, roleKey, decision, checkCondition,
+            logPermission);
+    }
 
-        Permission permission = getPermission(roleKey, privilegeKey);
+    @SuppressWarnings("unchecked")
+    private boolean checkConditions(Authentication authentication,
+                                    Object resource,
+                                    Object privilegeKey,
+                                    String roleKey,
+                                    PermissionDecision decision,
+                                    boolean checkCondition,
+                                    boolean logPermission) {
+        LazyPermissionEvaluationContext context = createContext(authentication, (Map<String, Object>) resource,
+            roleKey);
 
-        if (!isPermissionValid(permission)) {
-            log(logPermission, Level.ERROR,
-                "access denied: privilege={}, role={}, userKey={} due to privilege is not permitted",
-                privilegeKey, roleKey, getUserKey());
-            return false;
-        }
+        Permission permission = decision.getPermission();
         boolean validCondition = true;
-        if (!isConditionValid(permission.getEnvCondition(), context)) {
-            log(logPermission, Level.ERROR,
+        if (!isConditionValid(decision.getEnvCondition(), context)) {
+            logDenied(logPermission,
                 "access denied: privilege={}, role={}, userKey={} due to env condition: [{}] with context [{}]",
-                privilegeKey, roleKey, getUserKey(), permission.getEnvCondition().getExpressionString(), resources);
+                privilegeKey, roleKey, permission.getEnvCondition().getExpressionString(), context);
             validCondition = false;
         }
-        if (checkCondition && !isConditionValid(permission.getResourceCondition(), context)) {
-            log(logPermission, Level.ERROR,
+        if (checkCondition && !isConditionValid(decision.getResourceCondition(), context)) {
+            logDenied(logPermission,
                 "access denied: privilege={}, role={}, userKey={} due to env condition: [{}] with context [{}] "
                     + "with context [{}]",
-                privilegeKey, roleKey, getUserKey(), permission.getResourceCondition().getExpressionString(),
-                resources);
+                privilegeKey, roleKey, permission.getResourceCondition().getExpressionString(), context);
             validCondition = false;
         }
         if (!validCondition && ReactionStrategy.SKIP.equals(permission.getReactionStrategy())) {
-            throw new SkipPermissionException("Skip permission", permission.getRoleKey() + ":"
-                + permission.getPrivilegeKey());
+            throw skipPermission(permission);
         } else if (!validCondition) {
             return false;
         }
-        log(logPermission, Level.INFO,
-            "access granted: privilege={}, role={}, userKey={}",
-            privilegeKey, roleKey, getUserKey());
+        logGranted(logPermission, privilegeKey, roleKey);
         return true;
     }
 
+    private LazyPermissionEvaluationContext createContext(Authentication authentication,
+                                                          Map<String, Object> resource,
+                                                          String roleKey) {
+        return new LazyPermissionEvaluationContext(
+            resource,
+            () -> getSubject(roleKey),
+            authentication,
+            () -> xmAuthenticationContextHolder.getContext().getRemoteAddress().orElse(null),
+            GET_REQUEST_HEADER);
+    }
+
+    private static SkipPermissionException skipPermission(Permission permission) {
+        return new SkipPermissionException("Skip permission", permission.getRoleKey() + ":"
+            + permission.getPrivilegeKey());
+    }
+
     private boolean checkRole(Authentication authentication, Object privilege, boolean logPermission) {
         String roleKey = getRoleKey(authentication);
 
         if (RoleConstant.SUPER_ADMIN.equals(roleKey)) {
-            log(logPermission, Level.INFO,
-                "access granted: privilege={}, role=SUPER-ADMIN, userKey={}",
-                privilege, getUserKey());
+            logGranted(logPermission, privilege, roleKey);
             return true;
         }
 
-        if (!roleService.getRoles(TenantContextUtils.getRequiredTenantKeyValue(tenantContextHolder.getContext()))
-            .containsKey(roleKey)) {
-            log(logPermission, Level.ERROR,
+        if (!roleService.hasRole(TenantContextUtils.getRequiredTenantKeyValue(tenantContextHolder.getContext()),
+            roleKey)) {
+            logDenied(logPermission,
                 "access denied: privilege={}, role={}, userKey={} due to role is missing",
-                privilege, roleKey, getUserKey());
+                privilege, roleKey);
             throw new AccessDeniedException("Access is denied");
         }
 
         return false;
     }
 
-    private static boolean isConditionValid(Expression expression, StandardEvaluationContext context) {
+    private static boolean isConditionValid(Expression expression, EvaluationContext context) {
         boolean result;
-        if (expression == null || StringUtils.isEmpty(expression.getExpressionString())) {
+        if (expression == null) {
             result = true;
         } else {
             try {
@@ -235,14 +379,6 @@ public class PermissionCheckService {
         return result;
     }
 
-    private static boolean isPermissionValid(Permission permission) {
-        boolean result = true;
-        if (permission == null || permission.isDisabled()) {
-            result = false;
-        }
-        return result;
-    }
-
     private Subject getSubject(String roleKey) {
         XmAuthenticationContext authContext = xmAuthenticationContextHolder.getContext();
         return new Subject(authContext.getLogin().orElse(null),
@@ -260,10 +396,10 @@ public class PermissionCheckService {
             .getAuthority();
     }
 
-    private Permission getPermission(String roleKey, Object privilegeKey) {
-        return permissionService.getPermissions(
+    private PermissionDecision getDecision(String roleKey, Object privilegeKey) {
+        return permissionService.getPermissionIndex(
             TenantContextUtils.getRequiredTenantKeyValue(tenantContextHolder.getContext()))
-            .get(roleKey + ":" + privilegeKey);
+            .getDecision(roleKey, privilegeKey);
     }
 
     @SuppressWarnings("unchecked")
@@ -279,20 +415,38 @@ public class PermissionCheckService {
         return true;
     }
 
-    private static void log(boolean allowToLog, Level logLevel, String logMessage, Object... logArgs) {
+    private void logGranted(boolean allowToLog, Object privilege, String roleKey) {
+        if (!allowToLog) {
+            return;
+        }
+        String tenant = getTenantKey();
+        if (auditSink.isGrantedAudited(tenant)) {
+            auditSink.audit(new PermissionAuditEvent(tenant, true, ACCESS_GRANTED,
+                new Object[] {privilege, roleKey, getUserKey()}));
+        }
+    }
+
+    /**
+     * Write denied decision. Message arguments are privilege, role key, user key and then details, details are
+     * formatted in the caller thread as they can refer to mutable resource.
+     */
+    private void logDenied(boolean allowToLog, String logMessage, Object privilege, String roleKey,
+                           Object... details) {
         if (!allowToLog) {
             return;
         }
-        switch (logLevel) {
-            case INFO:
-                log.info(logMessage, logArgs);
-                break;
-            case ERROR:
-                log.error(logMessage, logArgs);
-                break;
-            default:
-                break;
+        Object[] args = new Object[details.length + 3];
+        args[0] = privilege;
+        args[1] = roleKey;
+        args[2] = getUserKey();
+        for (int i = 0; i < details.length; i++) {
+            args[i + 3] = String.valueOf(details[i]);
         }
+        auditSink.audit(new PermissionAuditEvent(getTenantKey(), false, logMessage, args));
+    }
+
+    private String getTenantKey() {
+        return tenantContextHolder.getContext().getTenantKey().map(TenantKey::getValue).orElse(null);
     }
 
     @SneakyThrows
@@ -5,6 +5,7 @@ import com.icthh.xm.commons.logging.aop.IgnoreLogginAspect;
 import com.icthh.xm.commons.permission.config.PermissionProperties;
 import com.icthh.xm.commons.permission.domain.Permission;
 import com.icthh.xm.commons.permission.domain.mapper.PermissionMapper;
+import com.icthh.xm.commons.permission.service.decision.TenantPermissionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -25,6 +26,7 @@ public class PermissionService implements RefreshableConfiguration {
     private static final String TENANT_NAME = "tenantName";
     // root map key is tenant name, value is map with key = "role_key:privilege_key", value = permission
     private ConcurrentHashMap<String, Map<String, Permission>> permissions = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, TenantPermissionIndex> permissionIndexes = new ConcurrentHashMap<>();
     private final AntPathMatcher matcher = new AntPathMatcher();
 
     private final PermissionProperties permissionProperties;
@@ -46,6 +48,16 @@ public class PermissionService implements RefreshableConfiguration {
         return permissions.get(tenant);
     }
 
+    /**
+     * Get pre-resolved permission decisions for tenant.
+     *
+     * @param tenant the tenant
+     * @return permission decisions index
+     */
+    public TenantPermissionIndex getPermissionIndex(String tenant) {
+        return permissionIndexes.getOrDefault(tenant, TenantPermissionIndex.EMPTY);
+    }
+
     @Override
     public void onRefresh(String key, String config) {
         try {
@@ -53,9 +65,12 @@ public class PermissionService implements RefreshableConfiguration {
                 .getPermissionsSpecPath(), key).get(TENANT_NAME);
             if (StringUtils.isBlank(config)) {
                 permissions.remove(tenant);
+                permissionIndexes.remove(tenant);
                 log.info("Permission specification for tenant {} was removed", tenant);
             } else {
-                permissions.put(tenant, PermissionMapper.ymlToPermissions(config, appName));
+                Map<String, Permission> tenantPermissions = PermissionMapper.ymlToPermissions(config, appName);
+                permissionIndexes.put(tenant, TenantPermissionIndex.of(tenantPermissions));
+                permissions.put(tenant, tenantPermissions);
                 log.info("Permission specification for tenant {} was updated", tenant);
             }
         } catch (Exception e) {
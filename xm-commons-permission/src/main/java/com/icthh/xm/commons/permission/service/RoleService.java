@@ -11,6 +11,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,6 +42,18 @@ public class RoleService implements RefreshableConfiguration {
         return roles.get(tenant);
     }
 
+    /**
+     * Check if role exists in tenant.
+     *
+     * @param tenant the tenant
+     * @param roleKey the role key
+     * @return true if role is configured
+     */
+    public boolean hasRole(String tenant, String roleKey) {
+        Map<String, Role> tenantRoles = roles.get(tenant);
+        return tenantRoles != null && tenantRoles.containsKey(roleKey);
+    }
+
     @Override
     public void onRefresh(String key, String config) {
         try {
@@ -50,7 +63,7 @@ public class RoleService implements RefreshableConfiguration {
                 roles.remove(tenant);
                 log.info("Role specification for tenant {} was removed", tenant);
             } else {
-                roles.put(tenant, RoleMapper.ymlToRoles(config));
+                roles.put(tenant, Collections.unmodifiableMap(RoleMapper.ymlToRoles(config)));
                 log.info("Role specification for tenant {} was updated", tenant);
             }
         } catch (Exception e) {
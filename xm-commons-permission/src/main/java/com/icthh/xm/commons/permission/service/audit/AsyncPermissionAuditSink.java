@@ -0,0 +1,93 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit sink which writes granted decisions from a bounded queue in a background thread.
+ *
+ * <p>MDC of the caller, e.g. rid, tenant and user, is restored while the queued decision is written. When the queue
+ * is full granted decisions are dropped and counted. Denied decisions are written in the caller thread, so they are
+ * never lost and never wait behind granted ones.
+ */
+@Slf4j
+public class AsyncPermissionAuditSink extends LoggingPermissionAuditSink implements DisposableBean {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final BlockingQueue<QueuedEvent> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AsyncPermissionAuditSink(PermissionProperties.Audit audit, PermissionAuditMetricsSet metrics) {
+        super(audit, metrics);
+        this.queue = new ArrayBlockingQueue<>(audit.getQueueCapacity());
+        metrics.setQueueSize(queue::size);
+        this.writer = new Thread(this::writeQueue, "permission-audit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void audit(PermissionAuditEvent event) {
+        if (!event.isGranted()) {
+            write(event);
+        } else if (!queue.offer(new QueuedEvent(event, MDC.getCopyOfContextMap()))) {
+            metrics.onDropped();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(SHUTDOWN_TIMEOUT_MS);
+    }
+
+    private void writeQueue() {
+        while (running) {
+            try {
+                QueuedEvent event = queue.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    writeSafely(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<QueuedEvent> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::writeSafely);
+    }
+
+    private void writeSafely(QueuedEvent queuedEvent) {
+        if (queuedEvent.mdc != null) {
+            MDC.setContextMap(queuedEvent.mdc);
+        }
+        try {
+            write(queuedEvent.event);
+        } catch (Exception e) {
+            log.warn("Permission audit event can not be written", e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class QueuedEvent {
+
+        private final PermissionAuditEvent event;
+        private final Map<String, String> mdc;
+    }
+}
@@ -0,0 +1,59 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Audit sink which writes decisions to the {@link PermissionCheckService} log in the caller thread.
+ *
+ * <p>Granted decisions are sampled with {@code xm-permission.audit.granted-sample-rate}, overridden per tenant by
+ * {@code xm-permission.audit.tenant-granted-sample-rates}. Denied decisions are never sampled out.
+ */
+public class LoggingPermissionAuditSink implements PermissionAuditSink {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionCheckService.class);
+
+    private final double grantedSampleRate;
+    private final Map<String, Double> tenantGrantedSampleRates;
+    protected final PermissionAuditMetricsSet metrics;
+
+    public LoggingPermissionAuditSink(PermissionProperties.Audit audit, PermissionAuditMetricsSet metrics) {
+        this.grantedSampleRate = audit.getGrantedSampleRate();
+        this.tenantGrantedSampleRates = new HashMap<>(audit.getTenantGrantedSampleRates());
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean isGrantedAudited(String tenant) {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        double rate = tenant == null ? grantedSampleRate
+                                     : tenantGrantedSampleRates.getOrDefault(tenant, grantedSampleRate);
+        if (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return true;
+        }
+        metrics.onSampledOut();
+        return false;
+    }
+
+    @Override
+    public void audit(PermissionAuditEvent event) {
+        write(event);
+    }
+
+    protected void write(PermissionAuditEvent event) {
+        if (event.isGranted()) {
+            log.info(event.getMessage(), event.getArgs());
+        } else {
+            log.error(event.getMessage(), event.getArgs());
+        }
+        metrics.onWritten(event.isGranted());
+    }
+}
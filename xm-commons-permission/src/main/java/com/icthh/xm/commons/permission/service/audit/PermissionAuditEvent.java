@@ -0,0 +1,18 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+import lombok.Value;
+
+/**
+ * Permission check decision to be written to the audit log.
+ *
+ * <p>Message is an SLF4J pattern, arguments are resolved by the caller thread, so the event does not depend on
+ * the security context when it is written asynchronously.
+ */
+@Value
+public class PermissionAuditEvent {
+
+    private final String tenant;
+    private final boolean granted;
+    private final String message;
+    private final Object[] args;
+}
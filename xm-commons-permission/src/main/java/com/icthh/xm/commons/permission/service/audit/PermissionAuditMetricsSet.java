@@ -0,0 +1,70 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the permission audit log.
+ */
+public class PermissionAuditMetricsSet implements MetricSet {
+
+    private final Counter grantedEvents = new Counter();
+    private final Counter sampledOutEvents = new Counter();
+    private final Counter deniedEvents = new Counter();
+    private final Counter droppedEvents = new Counter();
+
+    private volatile IntSupplier queueSize = () -> 0;
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("granted.written", grantedEvents);
+        metrics.put("granted.sampled-out", sampledOutEvents);
+        metrics.put("denied.written", deniedEvents);
+        metrics.put("dropped", droppedEvents);
+        metrics.put("queue.size", (Gauge<Integer>) () -> queueSize.getAsInt());
+        return metrics;
+    }
+
+    public void setQueueSize(IntSupplier queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void onWritten(boolean granted) {
+        if (granted) {
+            grantedEvents.inc();
+        } else {
+            deniedEvents.inc();
+        }
+    }
+
+    public void onSampledOut() {
+        sampledOutEvents.inc();
+    }
+
+    public void onDropped() {
+        droppedEvents.inc();
+    }
+
+    public long getGrantedCount() {
+        return grantedEvents.getCount();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOutEvents.getCount();
+    }
+
+    public long getDeniedCount() {
+        return deniedEvents.getCount();
+    }
+
+    public long getDroppedCount() {
+        return droppedEvents.getCount();
+    }
+}
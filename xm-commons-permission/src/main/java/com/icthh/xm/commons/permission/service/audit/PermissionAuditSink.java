@@ -0,0 +1,25 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+/**
+ * Destination of permission check decisions.
+ *
+ * <p>Denied decisions are always written. Granted decisions are written only if
+ * {@link #isGrantedAudited(String)} returns true, so the caller can skip building the event.
+ */
+public interface PermissionAuditSink {
+
+    /**
+     * Check if granted decision of the tenant should be written.
+     *
+     * @param tenant the tenant key, null if tenant is not set
+     * @return true if event should be passed to {@link #audit(PermissionAuditEvent)}
+     */
+    boolean isGrantedAudited(String tenant);
+
+    /**
+     * Write permission check decision.
+     *
+     * @param event the decision event
+     */
+    void audit(PermissionAuditEvent event);
+}
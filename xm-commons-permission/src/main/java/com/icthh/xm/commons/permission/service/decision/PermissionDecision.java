@@ -0,0 +1,124 @@
+package com.icthh.xm.commons.permission.service.decision;
+
+import com.icthh.xm.commons.permission.access.LazyPermissionEvaluationContext;
+import com.icthh.xm.commons.permission.domain.Permission;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pre-resolved access decision for a role and privilege pair.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PermissionDecision {
+
+    public static final PermissionDecision DENY = new PermissionDecision(Type.DENY, null, null, null, true, true);
+
+    /**
+     * Variables which are the same during a request, unlike resource variables.
+     */
+    private static final Set<String> REQUEST_VARIABLES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        LazyPermissionEvaluationContext.SUBJECT, LazyPermissionEvaluationContext.OAUTH2,
+        LazyPermissionEvaluationContext.ENV, LazyPermissionEvaluationContext.GET_REQUEST_HEADER)));
+
+    public enum Type {
+        /**
+         * Permission is missing or disabled.
+         */
+        DENY,
+        /**
+         * Permission is granted without conditions.
+         */
+        ALLOW,
+        /**
+         * Permission is granted if env and resource conditions are valid.
+         */
+        CONDITIONAL
+    }
+
+    private final Type type;
+    private final Permission permission;
+    private final Expression envCondition;
+    private final Expression resourceCondition;
+    private final boolean envConditionResourceFree;
+    private final boolean resourceConditionResourceFree;
+
+    /**
+     * Resolve decision for the permission.
+     *
+     * @param permission the permission, can be null
+     * @return the decision
+     */
+    public static PermissionDecision of(Permission permission) {
+        if (permission == null || permission.isDisabled()) {
+            return permission == null ? DENY : new PermissionDecision(Type.DENY, permission, null, null, true, true);
+        }
+        Expression envCondition = nonEmpty(permission.getEnvCondition());
+        Expression resourceCondition = nonEmpty(permission.getResourceCondition());
+        Type type = envCondition == null && resourceCondition == null ? Type.ALLOW : Type.CONDITIONAL;
+        return new PermissionDecision(type, permission, envCondition, resourceCondition,
+            isResourceFree(envCondition), isResourceFree(resourceCondition));
+    }
+
+    public boolean isDenied() {
+        return type == Type.DENY;
+    }
+
+    /**
+     * Check if access is granted without conditions evaluation.
+     *
+     * @param checkResourceCondition true if resource condition must be checked
+     * @return true if no condition evaluation needed
+     */
+    public boolean isUnconditional(boolean checkResourceCondition) {
+        return type == Type.ALLOW
+               || (type == Type.CONDITIONAL && envCondition == null && !checkResourceCondition);
+    }
+
+    /**
+     * Check if the decision result depends only on the request, so it can be reused for other resources.
+     * True when conditions reference no variables except {@code #subject}, {@code #oauth2}, {@code #env}
+     * and {@code #getRequestHeader}.
+     *
+     * @param checkResourceCondition true if resource condition must be checked
+     * @return true if decision result can be cached for the request
+     */
+    public boolean isResourceFree(boolean checkResourceCondition) {
+        return envConditionResourceFree && (!checkResourceCondition || resourceConditionResourceFree);
+    }
+
+    private static boolean isResourceFree(Expression expression) {
+        if (expression == null) {
+            return true;
+        }
+        return expression instanceof SpelExpression && isResourceFree(((SpelExpression) expression).getAST());
+    }
+
+    private static boolean isResourceFree(SpelNode node) {
+        if (node instanceof VariableReference
+            && !REQUEST_VARIABLES.contains(node.toStringAST().substring(1))) {
+            return false;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (!isResourceFree(node.getChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Expression nonEmpty(Expression expression) {
+        return expression == null || StringUtils.isEmpty(expression.getExpressionString()) ? null : expression;
+    }
+}
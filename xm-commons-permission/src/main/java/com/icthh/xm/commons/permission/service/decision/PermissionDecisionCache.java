@@ -0,0 +1,80 @@
+package com.icthh.xm.commons.permission.service.decision;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Memo of permission check results for the current web request.
+ *
+ * <p>Results are stored in request attributes, so they are dropped when the request ends. Outside of a web
+ * request, or when {@code xm-permission.decision-cache-enabled} is false, every check is evaluated.
+ */
+@Slf4j
+@Component
+public class PermissionDecisionCache {
+
+    private static final String ATTRIBUTE_NAME = PermissionDecisionCache.class.getName();
+
+    private final boolean enabled;
+
+    public PermissionDecisionCache(PermissionProperties permissionProperties) {
+        this.enabled = permissionProperties.isDecisionCacheEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get cached check result or evaluate and cache it for the current request.
+     *
+     * @param tenant the tenant key
+     * @param roleKey the role key
+     * @param privilegeKey the privilege key
+     * @param checkResourceCondition true if resource condition is checked
+     * @param check the permission check
+     * @return check result
+     */
+    public boolean getOrEvaluate(String tenant, String roleKey, Object privilegeKey, boolean checkResourceCondition,
+                                 BooleanSupplier check) {
+        Map<String, Boolean> decisions = getRequestDecisions();
+        if (decisions == null) {
+            return check.getAsBoolean();
+        }
+
+        String key = tenant + ":" + roleKey + ":" + privilegeKey + ":" + checkResourceCondition;
+        Boolean result = decisions.get(key);
+        if (result != null) {
+            log.debug("cached access decision: privilege={}, role={}, granted={}", privilegeKey, roleKey, result);
+            return result;
+        }
+        result = check.getAsBoolean();
+        decisions.put(key, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Boolean> getRequestDecisions() {
+        if (!enabled) {
+            return null;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Boolean> decisions = (Map<String, Boolean>) attributes.getAttribute(ATTRIBUTE_NAME,
+            RequestAttributes.SCOPE_REQUEST);
+        if (decisions == null) {
+            decisions = new ConcurrentHashMap<>();
+            attributes.setAttribute(ATTRIBUTE_NAME, decisions, RequestAttributes.SCOPE_REQUEST);
+        }
+        return decisions;
+    }
+}
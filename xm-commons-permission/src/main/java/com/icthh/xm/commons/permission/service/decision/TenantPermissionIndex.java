@@ -0,0 +1,55 @@
+package com.icthh.xm.commons.permission.service.decision;
+
+import com.icthh.xm.commons.permission.domain.Permission;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable per tenant index of role and privilege pairs to pre-resolved decisions.
+ * Built once on permissions refresh, so a check does neither key concatenation nor condition parsing.
+ */
+public final class TenantPermissionIndex {
+
+    public static final TenantPermissionIndex EMPTY = new TenantPermissionIndex(Collections.emptyMap());
+
+    private final Map<String, Map<String, PermissionDecision>> decisions;
+
+    private TenantPermissionIndex(Map<String, Map<String, PermissionDecision>> decisions) {
+        this.decisions = decisions;
+    }
+
+    /**
+     * Build index from tenant permissions.
+     *
+     * @param permissions permissions by ROLE_KEY:PRIVILEGE_KEY
+     * @return the index
+     */
+    public static TenantPermissionIndex of(Map<String, Permission> permissions) {
+        Map<String, Map<String, PermissionDecision>> decisions = new HashMap<>();
+        permissions.values().forEach(permission ->
+            decisions.computeIfAbsent(permission.getRoleKey(), roleKey -> new HashMap<>())
+                     .put(permission.getPrivilegeKey(), PermissionDecision.of(permission)));
+
+        Map<String, Map<String, PermissionDecision>> immutableDecisions = new HashMap<>();
+        decisions.forEach((roleKey, roleDecisions) ->
+            immutableDecisions.put(roleKey, Collections.unmodifiableMap(roleDecisions)));
+        return new TenantPermissionIndex(Collections.unmodifiableMap(immutableDecisions));
+    }
+
+    /**
+     * Get decision for role and privilege.
+     *
+     * @param roleKey the role key
+     * @param privilegeKey the privilege key
+     * @return the decision, {@link PermissionDecision#DENY} if permission is missing
+     */
+    public PermissionDecision getDecision(String roleKey, Object privilegeKey) {
+        Map<String, PermissionDecision> roleDecisions = decisions.get(roleKey);
+        if (roleDecisions == null || privilegeKey == null) {
+            return PermissionDecision.DENY;
+        }
+        return roleDecisions.getOrDefault(privilegeKey.toString(), PermissionDecision.DENY);
+    }
+}
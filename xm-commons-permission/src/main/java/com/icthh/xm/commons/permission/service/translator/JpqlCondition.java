@@ -0,0 +1,20 @@
+package com.icthh.xm.commons.permission.service.translator;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * JPQL condition with named parameters to bind to the query.
+ */
+@Value
+public class JpqlCondition {
+
+    private final String jpql;
+    private final Map<String, Object> params;
+
+    public static JpqlCondition of(String jpql) {
+        return new JpqlCondition(jpql, Collections.emptyMap());
+    }
+}
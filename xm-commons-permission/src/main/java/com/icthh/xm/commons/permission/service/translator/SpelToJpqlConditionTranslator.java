@@ -0,0 +1,208 @@
+package com.icthh.xm.commons.permission.service.translator;
+
+import com.icthh.xm.commons.permission.access.subject.Subject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.BooleanLiteral;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.NullLiteral;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpEQ;
+import org.springframework.expression.spel.ast.OpGE;
+import org.springframework.expression.spel.ast.OpGT;
+import org.springframework.expression.spel.ast.OpLE;
+import org.springframework.expression.spel.ast.OpLT;
+import org.springframework.expression.spel.ast.OpNE;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.ast.OperatorNot;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Translates SpEL resource condition to JPQL by walking the expression AST.
+ *
+ * <p>The JPQL fragment is built once per condition and cached, {@code #subject.*} values are returned as named
+ * parameters, so the query string is the same for all users and hits the Hibernate query plan cache.
+ * Conditions with unsupported constructs (method calls, indexers, etc.) fall back to {@link SpelToJpqlTranslator}.
+ */
+@Slf4j
+public class SpelToJpqlConditionTranslator {
+
+    public static final String PARAM_PREFIX = "permissionSubject";
+
+    private static final String RETURN_OBJECT = "returnObject";
+    private static final String SUBJECT = "subject";
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    private final SpelToJpqlTranslator fallbackTranslator = new SpelToJpqlTranslator();
+
+    /**
+     * Translate SpEL condition to JPQL with subject parameters.
+     *
+     * @param spel the SpEL expression
+     * @param subject the subject
+     * @return JPQL condition
+     */
+    public JpqlCondition translate(String spel, Subject subject) {
+        if (StringUtils.isBlank(spel)) {
+            return JpqlCondition.of(spel);
+        }
+        Template template = templates.computeIfAbsent(spel, SpelToJpqlConditionTranslator::compile);
+        if (template == Template.UNSUPPORTED) {
+            return JpqlCondition.of(fallbackTranslator.translate(spel, subject));
+        }
+        return template.apply(subject);
+    }
+
+    private static Template compile(String spel) {
+        try {
+            SpelNode ast = ((SpelExpression) PARSER.parseExpression(spel)).getAST();
+            Map<String, Function<Subject, Object>> params = new LinkedHashMap<>();
+            String jpql = toJpql(ast, params);
+            log.debug("SpEL was translated to JPQL for permission filtering: [{}] --> [{}] with params {}",
+                spel, jpql, params.keySet());
+            return new Template(jpql, params);
+        } catch (RuntimeException e) {
+            log.warn("SpEL [{}] can not be translated by AST, fallback to string replacement: {}",
+                spel, e.getMessage());
+            return Template.UNSUPPORTED;
+        }
+    }
+
+    private static String toJpql(SpelNode node, Map<String, Function<Subject, Object>> params) {
+        if (node instanceof OpAnd) {
+            return binary(node, " and ", params);
+        } else if (node instanceof OpOr) {
+            return binary(node, " or ", params);
+        } else if (node instanceof OperatorNot) {
+            return "not (" + toJpql(node.getChild(0), params) + ")";
+        } else if (node instanceof OpEQ) {
+            return isNullLiteral(node.getChild(1)) ? toJpql(node.getChild(0), params) + " is null"
+                                                   : compare(node, " = ", params);
+        } else if (node instanceof OpNE) {
+            return isNullLiteral(node.getChild(1)) ? toJpql(node.getChild(0), params) + " is not null"
+                                                   : compare(node, " <> ", params);
+        } else if (node instanceof OpLT) {
+            return compare(node, " < ", params);
+        } else if (node instanceof OpLE) {
+            return compare(node, " <= ", params);
+        } else if (node instanceof OpGT) {
+            return compare(node, " > ", params);
+        } else if (node instanceof OpGE) {
+            return compare(node, " >= ", params);
+        } else if (node instanceof Literal) {
+            return literal((Literal) node);
+        } else if (node instanceof VariableReference && RETURN_OBJECT.equals(variableName(node))) {
+            return RETURN_OBJECT;
+        } else if (node instanceof CompoundExpression) {
+            return path(node, params);
+        } else if (node instanceof PropertyOrFieldReference) {
+            return ((PropertyOrFieldReference) node).getName();
+        }
+        throw new IllegalArgumentException("unsupported node " + node.getClass().getSimpleName());
+    }
+
+    private static String binary(SpelNode node, String operator, Map<String, Function<Subject, Object>> params) {
+        return "(" + toJpql(node.getChild(0), params) + operator + toJpql(node.getChild(1), params) + ")";
+    }
+
+    private static String compare(SpelNode node, String operator, Map<String, Function<Subject, Object>> params) {
+        return toJpql(node.getChild(0), params) + operator + toJpql(node.getChild(1), params);
+    }
+
+    private static String path(SpelNode node, Map<String, Function<Subject, Object>> params) {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < node.getChildCount(); i++) {
+            SpelNode child = node.getChild(i);
+            if (i == 0 && child instanceof VariableReference) {
+                String variable = variableName(child);
+                if (SUBJECT.equals(variable) && node.getChildCount() == 2) {
+                    return subjectParam(node.getChild(1), params);
+                } else if (!RETURN_OBJECT.equals(variable)) {
+                    throw new IllegalArgumentException("unsupported variable #" + variable);
+                }
+                path.append(RETURN_OBJECT);
+            } else if (child instanceof PropertyOrFieldReference) {
+                if (path.length() > 0) {
+                    path.append('.');
+                }
+                path.append(((PropertyOrFieldReference) child).getName());
+            } else {
+                throw new IllegalArgumentException("unsupported path " + node.toStringAST());
+            }
+        }
+        return path.toString();
+    }
+
+    private static String subjectParam(SpelNode node, Map<String, Function<Subject, Object>> params) {
+        if (!(node instanceof PropertyOrFieldReference)) {
+            throw new IllegalArgumentException("unsupported subject reference " + node.toStringAST());
+        }
+        String property = ((PropertyOrFieldReference) node).getName();
+        Function<Subject, Object> accessor;
+        switch (property) {
+            case "login":
+                accessor = Subject::getLogin;
+                break;
+            case "userKey":
+                accessor = Subject::getUserKey;
+                break;
+            case "role":
+                accessor = Subject::getRole;
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported subject property " + property);
+        }
+        String paramName = PARAM_PREFIX + StringUtils.capitalize(property);
+        params.put(paramName, accessor);
+        return ":" + paramName;
+    }
+
+    private static String literal(Literal node) {
+        if (node instanceof NullLiteral) {
+            return "null";
+        } else if (node instanceof StringLiteral) {
+            return "'" + String.valueOf(node.getLiteralValue().getValue()).replace("'", "''") + "'";
+        } else if (node instanceof BooleanLiteral) {
+            return Boolean.TRUE.equals(node.getLiteralValue().getValue()) ? "TRUE" : "FALSE";
+        }
+        return String.valueOf(node.getLiteralValue().getValue());
+    }
+
+    private static boolean isNullLiteral(SpelNode node) {
+        return node instanceof NullLiteral;
+    }
+
+    private static String variableName(SpelNode node) {
+        return node.toStringAST().substring(1);
+    }
+
+    @RequiredArgsConstructor
+    private static class Template {
+
+        private static final Template UNSUPPORTED = new Template(null, Collections.emptyMap());
+
+        private final String jpql;
+        private final Map<String, Function<Subject, Object>> params;
+
+        JpqlCondition apply(Subject subject) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            params.forEach((name, accessor) -> values.put(name, accessor.apply(subject)));
+            return new JpqlCondition(jpql, values);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.icthh.xm.commons.permission.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.permission.access.subject.Subject;
+import org.junit.Test;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyPermissionEvaluationContextUnitTest {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private final AtomicInteger subjectCalls = new AtomicInteger();
+    private final AtomicInteger addressCalls = new AtomicInteger();
+
+    private final LazyPermissionEvaluationContext context = new LazyPermissionEvaluationContext(
+        Collections.singletonMap("owner", "admin"),
+        () -> {
+            subjectCalls.incrementAndGet();
+            return new Subject("admin", "userKey", "ROLE_ADMIN");
+        },
+        null,
+        () -> {
+            addressCalls.incrementAndGet();
+            return "127.0.0.1";
+        },
+        null);
+
+    @Test
+    public void testResourceConditionDoesNotResolveLazyVariables() {
+        assertTrue(parser.parseExpression("#owner == 'admin'").getValue(context, Boolean.class));
+
+        assertEquals(0, subjectCalls.get());
+        assertEquals(0, addressCalls.get());
+        assertEquals("{owner=admin}", context.toString());
+    }
+
+    @Test
+    public void testSubjectResolvedOnce() {
+        assertTrue(parser.parseExpression("#subject.login == #owner").getValue(context, Boolean.class));
+        assertTrue(parser.parseExpression("#subject.role == 'ROLE_ADMIN'").getValue(context, Boolean.class));
+
+        assertEquals(1, subjectCalls.get());
+        assertEquals(0, addressCalls.get());
+    }
+
+    @Test
+    public void testEnvResolvedOnAccess() {
+        assertTrue(parser.parseExpression("#env['ipAddress'] == '127.0.0.1'").getValue(context, Boolean.class));
+        assertFalse(parser.parseExpression("#env['ipAddress'] == null").getValue(context, Boolean.class));
+
+        assertEquals(1, addressCalls.get());
+        assertEquals(0, subjectCalls.get());
+    }
+}
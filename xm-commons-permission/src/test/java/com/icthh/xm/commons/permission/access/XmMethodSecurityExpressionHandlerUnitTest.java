@@ -0,0 +1,151 @@
+package com.icthh.xm.commons.permission.access;
+
+import static org.junit.Assert.assertEquals;
+
+import com.icthh.xm.commons.exceptions.SkipPermissionException;
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import com.icthh.xm.commons.permission.service.PermissionService;
+import com.icthh.xm.commons.permission.service.RoleService;
+import com.icthh.xm.commons.permission.service.audit.LoggingPermissionAuditSink;
+import com.icthh.xm.commons.permission.service.audit.PermissionAuditMetricsSet;
+import com.icthh.xm.commons.permission.service.decision.PermissionDecisionCache;
+import com.icthh.xm.commons.security.internal.SpringSecurityXmAuthenticationContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.commons.tenant.internal.DefaultTenantContextHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class XmMethodSecurityExpressionHandlerUnitTest {
+
+    private static final String TENANT = "XM";
+    private static final String ROLE = "ROLE_USER";
+
+    private static final String PERMISSIONS = "test:\n"
+        + "  " + ROLE + ":\n"
+        + "    - privilegeKey: TEST.ALLOWED\n"
+        + "    - privilegeKey: TEST.RESOURCE\n"
+        + "      envCondition: \"#subject.role == '" + ROLE + "'\"\n"
+        + "      resourceCondition: \"#returnObject['owner'] == 'user'\"\n"
+        + "    - privilegeKey: TEST.ENV_DENIED\n"
+        + "      envCondition: \"#subject.role == 'ROLE_ADMIN'\"\n"
+        + "      resourceCondition: \"#returnObject['owner'] == 'user'\"\n"
+        + "    - privilegeKey: TEST.SKIP\n"
+        + "      resourceCondition: \"#returnObject['owner'] == 'user'\"\n"
+        + "      reactionStrategy: SKIP\n";
+
+    private static final String ROLES = ROLE + ":\n"
+        + "  description: test role\n";
+
+    private final TenantContextHolder tenantContextHolder = new DefaultTenantContextHolder();
+
+    private Authentication authentication;
+    private DefaultMethodSecurityExpressionHandler defaultHandler;
+    private XmMethodSecurityExpressionHandler bulkHandler;
+
+    @Before
+    public void before() {
+        PermissionProperties properties = new PermissionProperties();
+        PermissionService permissionService = new PermissionService(properties);
+        permissionService.onRefresh(properties.getPermissionsSpecPath().replace("{tenantName}", TENANT),
+            PERMISSIONS);
+        RoleService roleService = new RoleService(properties);
+        roleService.onRefresh(properties.getRolesSpecPath().replace("{tenantName}", TENANT), ROLES);
+
+        PermissionCheckService permissionCheckService = new PermissionCheckService(tenantContextHolder,
+            permissionService, (resourceId, objectType) -> null, new SpringSecurityXmAuthenticationContextHolder(),
+            roleService, new PermissionDecisionCache(properties),
+            new LoggingPermissionAuditSink(properties.getAudit(), new PermissionAuditMetricsSet()));
+
+        defaultHandler = new DefaultMethodSecurityExpressionHandler();
+        defaultHandler.setPermissionEvaluator(new XmPermissionEvaluator(permissionCheckService));
+        bulkHandler = new XmMethodSecurityExpressionHandler(permissionCheckService);
+        bulkHandler.setPermissionEvaluator(new XmPermissionEvaluator(permissionCheckService));
+
+        authentication = new UsernamePasswordAuthenticationToken("user", "password",
+            Collections.singletonList(new SimpleGrantedAuthority(ROLE)));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        TenantContextUtils.setTenant(tenantContextHolder, TENANT);
+    }
+
+    @After
+    public void after() {
+        tenantContextHolder.getPrivilegedContext().destroyCurrentContext();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testResourceCondition() {
+        assertBulkFilterMatchesDefault("hasPermission({'returnObject': filterObject}, 'TEST.RESOURCE')", 2);
+    }
+
+    @Test
+    public void testUnconditionalPermission() {
+        assertBulkFilterMatchesDefault("hasPermission({'returnObject': filterObject}, 'TEST.ALLOWED')", 4);
+    }
+
+    @Test
+    public void testEnvConditionDenied() {
+        assertBulkFilterMatchesDefault("hasPermission({'returnObject': filterObject}, 'TEST.ENV_DENIED')", 0);
+    }
+
+    @Test
+    public void testMissingPermission() {
+        assertBulkFilterMatchesDefault("hasPermission({'returnObject': filterObject}, 'TEST.MISSING')", 0);
+    }
+
+    @Test
+    public void testCompoundExpressionFilteredByDefault() {
+        assertBulkFilterMatchesDefault("hasPermission({'returnObject': filterObject}, 'TEST.RESOURCE')"
+                                       + " and filterObject['id'] > 0", 1);
+    }
+
+    @Test(expected = SkipPermissionException.class)
+    public void testSkipReactionStrategy() {
+        filter(bulkHandler, "hasPermission({'returnObject': filterObject}, 'TEST.SKIP')");
+    }
+
+    private void assertBulkFilterMatchesDefault(String expression, int permitted) {
+        List<Map<String, Object>> expected = filter(defaultHandler, expression);
+        List<Map<String, Object>> actual = filter(bulkHandler, expression);
+
+        assertEquals(permitted, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> filter(DefaultMethodSecurityExpressionHandler handler, String expression) {
+        List<Map<String, Object>> elements = IntStream.range(0, 4)
+            .mapToObj(i -> element(i, i % 2 == 0 ? "user" : "other"))
+            .collect(Collectors.toCollection(ArrayList::new));
+        EvaluationContext context = handler.createEvaluationContext(authentication,
+            new SimpleMethodInvocation(this, getClass().getDeclaredMethods()[0]));
+        Expression filterExpression = handler.getExpressionParser().parseExpression(expression);
+        return (List<Map<String, Object>>) handler.filter(elements, filterExpression, context);
+    }
+
+    private static Map<String, Object> element(int id, String owner) {
+        Map<String, Object> element = new HashMap<>();
+        element.put("id", id);
+        element.put("owner", owner);
+        return element;
+    }
+}
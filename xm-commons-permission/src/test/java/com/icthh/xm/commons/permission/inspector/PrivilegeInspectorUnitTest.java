@@ -0,0 +1,70 @@
+package com.icthh.xm.commons.permission.inspector;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import com.icthh.xm.commons.permission.domain.Privilege;
+import com.icthh.xm.commons.permission.inspector.index.PrivilegeIndexEntry;
+import com.icthh.xm.commons.permission.inspector.index.PrivilegeIndexReader;
+import com.icthh.xm.commons.permission.inspector.kafka.PrivilegeEventProducer;
+import com.icthh.xm.commons.permission.inspector.scanner.PrivilegeScanner;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class PrivilegeInspectorUnitTest {
+
+    private final PrivilegeScanner scanner = mock(PrivilegeScanner.class);
+    private final PrivilegeEventProducer eventProducer = mock(PrivilegeEventProducer.class);
+    private final PrivilegeIndexReader indexReader = mock(PrivilegeIndexReader.class);
+    private final PermissionProperties permissionProperties = new PermissionProperties();
+    private final PrivilegeInspector inspector =
+        new PrivilegeInspector(scanner, eventProducer, indexReader, permissionProperties);
+
+    @Test
+    public void testScanWhenIndexDisabled() {
+        Set<Privilege> scanned = Collections.singleton(new Privilege());
+        when(scanner.scan()).thenReturn(scanned);
+
+        inspector.readPrivileges("eventId");
+
+        verify(eventProducer).sendEvent("eventId", scanned);
+        verifyZeroInteractions(indexReader);
+    }
+
+    @Test
+    public void testReadIndexWhenEnabled() {
+        permissionProperties.setPrivilegeIndexEnabled(true);
+        List<PrivilegeIndexEntry> entries = Collections.singletonList(new PrivilegeIndexEntry(
+            PrivilegeIndexEntry.Annotation.PRE_AUTHORIZE, "hasPermission('KEY')", null, "Type.method()"));
+        Set<Privilege> indexed = Collections.singleton(new Privilege());
+        when(indexReader.read()).thenReturn(Optional.of(entries));
+        when(scanner.read(entries)).thenReturn(indexed);
+
+        inspector.readPrivileges("eventId");
+
+        verify(eventProducer).sendEvent("eventId", indexed);
+        verify(scanner, never()).scan();
+    }
+
+    @Test
+    public void testScanWhenIndexEnabledButNotFound() {
+        permissionProperties.setPrivilegeIndexEnabled(true);
+        Set<Privilege> scanned = Collections.singleton(new Privilege());
+        when(indexReader.read()).thenReturn(Optional.empty());
+        when(scanner.scan()).thenReturn(scanned);
+
+        inspector.readPrivileges("eventId");
+
+        verify(eventProducer).sendEvent("eventId", scanned);
+        verify(scanner, never()).read(anyCollection());
+    }
+}
@@ -0,0 +1,108 @@
+package com.icthh.xm.commons.permission.inspector.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.permission.domain.Privilege;
+import com.icthh.xm.commons.permission.inspector.scanner.PrivilegeScanner;
+import com.icthh.xm.commons.permission.inspector.scanner.TestClassWithPrivileges;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+public class PrivilegeIndexProcessorUnitTest {
+
+    private static final String SOURCE =
+        "src/test/java/com/icthh/xm/commons/permission/inspector/scanner/TestClassWithPrivileges.java";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexMatchesScan() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        File output = folder.newFolder();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjects(new File(SOURCE));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                Arrays.asList("-d", output.getAbsolutePath(), "-classpath", System.getProperty("java.class.path"),
+                    "-proc:only"),
+                null, sources);
+            task.setProcessors(Collections.singletonList(new PrivilegeIndexProcessor()));
+            assertTrue(task.call());
+        }
+
+        Optional<List<PrivilegeIndexEntry>> entries;
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {output.toURI().toURL()}, null)) {
+            entries = new PrivilegeIndexReader(classLoader).read();
+        }
+        assertTrue(entries.isPresent());
+        assertEquals(10, entries.get().size());
+
+        Reflections reflections = mock(Reflections.class);
+        when(reflections.getMethodsAnnotatedWith((Class<? extends Annotation>) any()))
+            .thenReturn(new HashSet<>(Arrays.asList(TestClassWithPrivileges.class.getDeclaredMethods())));
+        PrivilegeScanner scanner = new PrivilegeScanner(reflections);
+        ReflectionTestUtils.setField(scanner, "appName", "TEST-APP-NAME");
+
+        Map<String, Privilege> scanned = byKey(scanner.scan());
+        Map<String, Privilege> indexed = byKey(scanner.read(entries.get()));
+
+        assertEquals(10, indexed.size());
+        assertEquals(scanned.keySet(), indexed.keySet());
+        scanned.forEach((key, privilege) -> {
+            assertEquals(privilege.getResources(), indexed.get(key).getResources());
+            assertEquals(privilege.getCustomDescription(), indexed.get(key).getCustomDescription());
+        });
+    }
+
+    @Test
+    public void testNoIndex() {
+        URLClassLoader classLoader = new URLClassLoader(new URL[0], null);
+
+        assertFalse(new PrivilegeIndexReader(classLoader).read().isPresent());
+    }
+
+    @Test
+    public void testEntryLineEscaping() {
+        PrivilegeIndexEntry entry = new PrivilegeIndexEntry(PrivilegeIndexEntry.Annotation.PRE_AUTHORIZE,
+            "hasPermission({'a': #a},\t'KEY')", "multi\nline \\ description", "Type.method(java.lang.Object)");
+        PrivilegeIndexEntry withoutDescription = new PrivilegeIndexEntry(
+            PrivilegeIndexEntry.Annotation.POST_FILTER, "hasPermission('KEY')", null, "Type.method()");
+
+        assertEquals(entry, PrivilegeIndexEntry.fromLine(entry.toLine()));
+        assertEquals(withoutDescription, PrivilegeIndexEntry.fromLine(withoutDescription.toLine()));
+        assertFalse(entry.toLine().contains("\n"));
+    }
+
+    private static Map<String, Privilege> byKey(Set<Privilege> privileges) {
+        return privileges.stream().collect(Collectors.toMap(Privilege::getKey, Function.identity()));
+    }
+}
@@ -0,0 +1,195 @@
+package com.icthh.xm.commons.permission.repository;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.permission.service.PermissionCheckService;
+import com.icthh.xm.commons.permission.service.translator.JpqlCondition;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.Id;
+
+/**
+ * Checks keyset slices and streams against offset pages on embedded H2 database.
+ */
+public class PermittedRepositoryIntTest {
+
+    private static final int ROWS = 20_000;
+    private static final int OWNERS = 4;
+    private static final String PRIVILEGE_KEY = "TEST";
+
+    private static SessionFactory sessionFactory;
+
+    private EntityManager em;
+    private PermittedRepository repository;
+
+    @BeforeClass
+    public static void createDataset() {
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(PermittedItem.class)
+            .setProperty(AvailableSettings.URL, "jdbc:h2:mem:permitted;DB_CLOSE_DELAY=-1")
+            .setProperty(AvailableSettings.DRIVER, "org.h2.Driver")
+            .setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "500")
+            .buildSessionFactory();
+
+        EntityManager em = sessionFactory.createEntityManager();
+        em.getTransaction().begin();
+        for (long id = 1; id <= ROWS; id++) {
+            PermittedItem item = new PermittedItem();
+            item.setId(id);
+            item.setOwnerKey("owner" + id % OWNERS);
+            item.setPriority((int) (id % 10));
+            em.persist(item);
+            if (id % 500 == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    @AfterClass
+    public static void closeDataset() {
+        sessionFactory.close();
+    }
+
+    @Before
+    public void before() {
+        PermissionCheckService permissionCheckService = mock(PermissionCheckService.class);
+        when(permissionCheckService.createJpqlCondition(any(), eq(PRIVILEGE_KEY), any()))
+            .thenReturn(new JpqlCondition("returnObject.ownerKey = :permissionSubjectUserKey",
+                singletonMap("permissionSubjectUserKey", "owner1")));
+
+        em = sessionFactory.createEntityManager();
+        repository = new PermittedRepository(permissionCheckService);
+        repository.setEm(em);
+    }
+
+    @After
+    public void after() {
+        em.close();
+    }
+
+    @Test
+    public void testAllSlicesMatchOffsetPages() {
+        List<Long> keysetIds = new ArrayList<>();
+        KeysetRequest keyset = KeysetRequest.of("id", null, 700);
+        Slice<PermittedItem> slice;
+        do {
+            slice = repository.findAllAfter(keyset, PermittedItem.class, PRIVILEGE_KEY);
+            slice.forEach(item -> keysetIds.add(item.getId()));
+            if (slice.hasContent()) {
+                keyset = keyset.next(slice.getContent().get(slice.getNumberOfElements() - 1).getId());
+            }
+            em.clear();
+        } while (slice.hasNext());
+
+        List<Long> offsetIds = new ArrayList<>();
+        Page<PermittedItem> page;
+        Pageable pageable = PageRequest.of(0, 700, Sort.by("id"));
+        do {
+            page = repository.findAll(pageable, PermittedItem.class, PRIVILEGE_KEY);
+            page.forEach(item -> offsetIds.add(item.getId()));
+            pageable = page.nextPageable();
+            em.clear();
+        } while (page.hasNext());
+
+        assertThat(keysetIds).hasSize(ROWS / OWNERS);
+        assertThat(keysetIds).isSorted();
+        assertThat(keysetIds).isEqualTo(offsetIds);
+    }
+
+    @Test
+    public void testDescendingSliceWithCondition() {
+        KeysetRequest keyset = KeysetRequest.of("id", Sort.Direction.DESC, 10_001L, 50);
+
+        Slice<PermittedItem> slice = repository.findByConditionAfter("priority = :priority",
+            singletonMap("priority", 5), keyset, PermittedItem.class, PRIVILEGE_KEY);
+
+        List<Long> ids = slice.getContent().stream().map(PermittedItem::getId).collect(Collectors.toList());
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(ids).hasSize(50);
+        assertThat(ids.get(0)).isEqualTo(9_985L);
+        assertThat(ids).isSortedAccordingTo(Collections.reverseOrder());
+        assertThat(ids).allMatch(id -> id % OWNERS == 1 && id % 10 == 5);
+    }
+
+    @Test
+    public void testLastSlice() {
+        Slice<PermittedItem> slice = repository.findAllAfter(KeysetRequest.of("id", (long) ROWS - 10, 100),
+            PermittedItem.class, PRIVILEGE_KEY);
+
+        assertThat(slice.hasNext()).isFalse();
+        assertThat(slice.getContent()).extracting(PermittedItem::getId).containsExactly(19_993L, 19_997L);
+    }
+
+    @Test
+    public void testStreamMatchesList() {
+        List<Long> listIds = repository.findAll(PermittedItem.class, PRIVILEGE_KEY).stream()
+            .map(PermittedItem::getId).sorted().collect(Collectors.toList());
+        em.clear();
+
+        List<PermittedItem> items;
+        try (Stream<PermittedItem> stream = repository.streamByCondition(null, Collections.emptyMap(),
+            Sort.by("id"), 300, PermittedItem.class, PRIVILEGE_KEY)) {
+            items = stream.collect(Collectors.toList());
+        }
+
+        assertThat(items).extracting(PermittedItem::getId).isEqualTo(listIds);
+        assertThat(items).hasSize(ROWS / OWNERS);
+        assertThat(em.contains(items.get(0))).isFalse();
+        assertThat(em.contains(items.get(items.size() - 1))).isTrue();
+    }
+
+    @Test
+    public void testStreamByCondition() {
+        long count;
+        try (Stream<PermittedItem> stream = repository.streamByCondition("priority = :priority",
+            singletonMap("priority", 5), null, 100, PermittedItem.class, PRIVILEGE_KEY)) {
+            count = stream.filter(item -> item.getId() % 20 == 5).count();
+        }
+
+        assertThat(count).isEqualTo(ROWS / 20);
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @Entity(name = "PermittedItem")
+    public static class PermittedItem {
+
+        @Id
+        private Long id;
+        private String ownerKey;
+        private Integer priority;
+    }
+}
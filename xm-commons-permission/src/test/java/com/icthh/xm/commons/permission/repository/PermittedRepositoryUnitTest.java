@@ -2,15 +2,18 @@ package com.icthh.xm.commons.permission.repository;
 
 import static com.google.common.collect.ImmutableSet.of;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.icthh.xm.commons.permission.service.PermissionCheckService;
-import com.icthh.xm.commons.permission.service.translator.SpelToJpqlTranslator;
+import com.icthh.xm.commons.permission.service.translator.JpqlCondition;
+import com.icthh.xm.commons.permission.service.translator.SpelToJpqlConditionTranslator;
 import lombok.Value;
 import org.hibernate.jpa.QueryHints;
 import org.junit.Before;
@@ -55,12 +58,13 @@ public class PermittedRepositoryUnitTest {
 
     @Test
     public void findByConditionWithoutEmbed() {
-        when(em.createQuery("select distinct returnObject from TestEntity returnObject where a = :b and (f = g) order by d ASC", TestEntity.class)).thenReturn(selectQuery);
-        when(em.createQuery("select distinct count(returnObject) from TestEntity returnObject where a = :b and (f = g)", Long.class)).thenReturn(countQuery);
-        when(permissionCheckService.createCondition(
+        when(em.createQuery("select distinct returnObject from TestEntity returnObject where a = :b and (f = :permissionSubjectLogin) order by d ASC", TestEntity.class)).thenReturn(selectQuery);
+        when(em.createQuery("select distinct count(returnObject) from TestEntity returnObject where a = :b and (f = :permissionSubjectLogin)", Long.class)).thenReturn(countQuery);
+        when(permissionCheckService.createJpqlCondition(
             eq(SecurityContextHolder.getContext().getAuthentication()),
             eq("TEST"),
-            any(SpelToJpqlTranslator.class))).thenReturn("f = g");
+            any(SpelToJpqlConditionTranslator.class)))
+            .thenReturn(new JpqlCondition("f = :permissionSubjectLogin", singletonMap("permissionSubjectLogin", "g")));
         when(selectQuery.getResultList()).thenReturn(asList(new TestEntity(1), new TestEntity(2)));
 
         Page<TestEntity> result = repository.findByCondition("a = :b",
@@ -75,6 +79,8 @@ public class PermittedRepositoryUnitTest {
         assertThat(result.getTotalElements()).isEqualTo(52);
         assertThat(result.getContent()).containsExactly(new TestEntity(1), new TestEntity(2));
 
+        verify(selectQuery).setParameter("permissionSubjectLogin", "g");
+        verify(countQuery).setParameter("permissionSubjectLogin", "g");
         verify(em, times(0)).createEntityGraph(any(Class.class));
         verify(selectQuery, times(0)).setHint(QueryHints.HINT_LOADGRAPH, entityGraph);
     }
@@ -82,13 +88,14 @@ public class PermittedRepositoryUnitTest {
     @Test
     public void findByConditionWithEmbed() {
         when(em.createEntityGraph(TestEntity.class)).thenReturn(entityGraph);
-        when(em.createQuery("select distinct returnObject from TestEntity returnObject where a = :b and (f = g) order by d ASC", TestEntity.class)).thenReturn(selectQuery);
-        when(em.createQuery("select distinct count(returnObject) from TestEntity returnObject where a = :b and (f = g)", Long.class)).thenReturn(countQuery);
+        when(em.createQuery("select distinct returnObject from TestEntity returnObject where a = :b and (f = :permissionSubjectLogin) order by d ASC", TestEntity.class)).thenReturn(selectQuery);
+        when(em.createQuery("select distinct count(returnObject) from TestEntity returnObject where a = :b and (f = :permissionSubjectLogin)", Long.class)).thenReturn(countQuery);
         when(entityGraph.addSubgraph("d")).thenReturn(subgraph);
-        when(permissionCheckService.createCondition(
+        when(permissionCheckService.createJpqlCondition(
             eq(SecurityContextHolder.getContext().getAuthentication()),
             eq("TEST"),
-            any(SpelToJpqlTranslator.class))).thenReturn("f = g");
+            any(SpelToJpqlConditionTranslator.class)))
+            .thenReturn(new JpqlCondition("f = :permissionSubjectLogin", singletonMap("permissionSubjectLogin", "g")));
         when(selectQuery.getResultList()).thenReturn(asList(new TestEntity(1), new TestEntity(2)));
 
         Page result = repository.findByCondition("a = :b",
@@ -110,6 +117,25 @@ public class PermittedRepositoryUnitTest {
         verify(subgraph).addAttributeNodes("e");
     }
 
+    @Test
+    public void findAllWithOverriddenDeprecatedCondition() {
+        PermittedRepository legacyRepository = new PermittedRepository(permissionCheckService) {
+            @Override
+            protected String createPermissionCondition(String privilegeKey) {
+                return "f = 'legacy'";
+            }
+        };
+        legacyRepository.setEm(em);
+        when(em.createQuery("select distinct returnObject from TestEntity returnObject where f = 'legacy'",
+            TestEntity.class)).thenReturn(selectQuery);
+        when(em.createQuery("select distinct count(returnObject) from TestEntity returnObject where f = 'legacy'",
+            Long.class)).thenReturn(countQuery);
+        when(selectQuery.getResultList()).thenReturn(asList(new TestEntity(1)));
+
+        assertThat(legacyRepository.findAll(TestEntity.class, "TEST")).containsExactly(new TestEntity(1));
+        verifyZeroInteractions(permissionCheckService);
+    }
+
     @Value
     private static class TestEntity {
         private int id;
@@ -0,0 +1,70 @@
+package com.icthh.xm.commons.permission.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.github.jhipster.service.filter.BooleanFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class FilterConverterUnitTest {
+
+    @Test
+    public void testEmptyCriteria() {
+        assertTrue(FilterConverter.toJpql(new TestCriteria()).isEmpty());
+    }
+
+    @Test
+    public void testCriteriaToJpql() {
+        TestCriteria criteria = new TestCriteria();
+        criteria.setActive(new BooleanFilter());
+        criteria.getActive().setEquals(true);
+        criteria.setName(new StringFilter());
+        criteria.getName().setSpecified(true);
+        criteria.getName().setContains("abc");
+        criteria.setOwnerId(new LongFilter());
+        criteria.getOwnerId().setIn(Arrays.asList(1L, 2L));
+        criteria.getOwnerId().setGreaterThan(5L);
+
+        FilterConverter.QueryPart queryPart = FilterConverter.toJpql(criteria);
+
+        assertEquals("active = :active and name is not null  and name like :name1"
+                     + " and owner_id in :owner_id and owner_id > :owner_id1", queryPart.getQuery().toString());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("active", true);
+        params.put("name1", "abc");
+        params.put("owner_id", Arrays.asList(1L, 2L));
+        params.put("owner_id1", 5L);
+        assertEquals(params, queryPart.getParams());
+    }
+
+    @Test
+    public void testTemplateReusedForNextCriteria() {
+        TestCriteria first = new TestCriteria();
+        first.setName(new StringFilter());
+        first.getName().setEquals("first");
+        TestCriteria second = new TestCriteria();
+        second.setOwnerId(new LongFilter());
+        second.getOwnerId().setLessThanOrEqual(10L);
+
+        assertEquals("name = :name", FilterConverter.toJpql(first).getQuery().toString());
+        assertEquals("owner_id <= :owner_id", FilterConverter.toJpql(second).getQuery().toString());
+    }
+
+    @Getter
+    @Setter
+    public static class TestCriteria {
+        private BooleanFilter active;
+        private StringFilter name;
+        private LongFilter ownerId;
+        private String notFilter = "ignored";
+    }
+}
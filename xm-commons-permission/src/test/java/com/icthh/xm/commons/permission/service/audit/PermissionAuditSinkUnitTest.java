@@ -0,0 +1,121 @@
+package com.icthh.xm.commons.permission.service.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class PermissionAuditSinkUnitTest {
+
+    private static final String MESSAGE = "access: privilege={}, role={}, userKey={}";
+
+    private final PermissionAuditMetricsSet metrics = new PermissionAuditMetricsSet();
+
+    @Test
+    public void testGrantedWrittenByDefault() {
+        LoggingPermissionAuditSink sink = new LoggingPermissionAuditSink(new PermissionProperties.Audit(), metrics);
+
+        assertTrue(sink.isGrantedAudited("XM"));
+        sink.audit(event("XM", true));
+        sink.audit(event("XM", false));
+
+        assertEquals(1, metrics.getGrantedCount());
+        assertEquals(1, metrics.getDeniedCount());
+        assertEquals(0, metrics.getSampledOutCount());
+    }
+
+    @Test
+    public void testTenantSampleRate() {
+        PermissionProperties.Audit audit = new PermissionProperties.Audit();
+        audit.setGrantedSampleRate(0);
+        audit.getTenantGrantedSampleRates().put("XM", 1.0);
+        LoggingPermissionAuditSink sink = new LoggingPermissionAuditSink(audit, metrics);
+
+        assertTrue(sink.isGrantedAudited("XM"));
+        assertFalse(sink.isGrantedAudited("DEMO"));
+        assertFalse(sink.isGrantedAudited(null));
+
+        assertEquals(2, metrics.getSampledOutCount());
+    }
+
+    @Test
+    public void testAsyncSinkWritesQueuedEvents() throws Exception {
+        AsyncPermissionAuditSink sink = new AsyncPermissionAuditSink(new PermissionProperties.Audit(), metrics);
+        try {
+            for (int i = 0; i < 100; i++) {
+                sink.audit(event("XM", true));
+            }
+            sink.audit(event("XM", false));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (metrics.getGrantedCount() + metrics.getDeniedCount() < 101 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            sink.destroy();
+        }
+
+        assertEquals(100, metrics.getGrantedCount());
+        assertEquals(1, metrics.getDeniedCount());
+        assertEquals(0, metrics.getDroppedCount());
+    }
+
+    @Test
+    public void testAsyncSinkNeverDropsDenials() throws Exception {
+        PermissionProperties.Audit audit = new PermissionProperties.Audit();
+        audit.setQueueCapacity(1);
+        AsyncPermissionAuditSink sink = new AsyncPermissionAuditSink(audit, metrics);
+        sink.destroy();
+
+        sink.audit(event("XM", true));
+        sink.audit(event("XM", true));
+        sink.audit(event("XM", false));
+
+        assertEquals(1, metrics.getDroppedCount());
+        assertEquals(1, metrics.getDeniedCount());
+        assertEquals(0, metrics.getGrantedCount());
+    }
+
+    @Test
+    public void testAsyncSinkKeepsCallerMdc() throws Exception {
+        Map<Boolean, String> rids = new ConcurrentHashMap<>();
+        Map<Boolean, String> threads = new ConcurrentHashMap<>();
+        AsyncPermissionAuditSink sink = new AsyncPermissionAuditSink(new PermissionProperties.Audit(), metrics) {
+            @Override
+            protected void write(PermissionAuditEvent event) {
+                rids.put(event.isGranted(), MDC.get("rid"));
+                threads.put(event.isGranted(), Thread.currentThread().getName());
+                super.write(event);
+            }
+        };
+        MDC.put("rid", "test-rid");
+        try {
+            sink.audit(event("XM", true));
+            sink.audit(event("XM", false));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (metrics.getGrantedCount() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            MDC.remove("rid");
+            sink.destroy();
+        }
+
+        assertEquals("test-rid", rids.get(true));
+        assertEquals("permission-audit", threads.get(true));
+        assertEquals("test-rid", rids.get(false));
+        assertEquals(Thread.currentThread().getName(), threads.get(false));
+    }
+
+    private static PermissionAuditEvent event(String tenant, boolean granted) {
+        return new PermissionAuditEvent(tenant, granted, MESSAGE, new Object[] {"PRIVILEGE", "ROLE_USER", "user"});
+    }
+}
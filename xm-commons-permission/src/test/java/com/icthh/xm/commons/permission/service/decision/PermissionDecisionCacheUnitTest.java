@@ -0,0 +1,71 @@
+package com.icthh.xm.commons.permission.service.decision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.permission.config.PermissionProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PermissionDecisionCacheUnitTest {
+
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @After
+    public void after() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testDecisionCachedForRequest() {
+        PermissionDecisionCache cache = newCache(true);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertEquals(1, checks.get());
+
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", true, this::check));
+        assertTrue(cache.getOrEvaluate("TEST", "ROLE", "PRIVILEGE", false, this::check));
+        assertEquals(3, checks.get());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertEquals(4, checks.get());
+    }
+
+    @Test
+    public void testNotCachedOutsideRequest() {
+        PermissionDecisionCache cache = newCache(true);
+
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    public void testNotCachedWhenDisabled() {
+        PermissionDecisionCache cache = newCache(false);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertTrue(cache.getOrEvaluate("XM", "ROLE", "PRIVILEGE", false, this::check));
+        assertEquals(2, checks.get());
+    }
+
+    private boolean check() {
+        checks.incrementAndGet();
+        return true;
+    }
+
+    private static PermissionDecisionCache newCache(boolean enabled) {
+        PermissionProperties properties = new PermissionProperties();
+        properties.setDecisionCacheEnabled(enabled);
+        return new PermissionDecisionCache(properties);
+    }
+}
@@ -0,0 +1,72 @@
+package com.icthh.xm.commons.permission.service.decision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.permission.domain.mapper.PermissionMapper;
+import org.junit.Test;
+
+public class TenantPermissionIndexUnitTest {
+
+    private static final String YML = "---\n"
+        + "MS:\n"
+        + "  ROLE:\n"
+        + "  - privilegeKey: \"ALLOWED\"\n"
+        + "    disabled: false\n"
+        + "  - privilegeKey: \"DISABLED\"\n"
+        + "    disabled: true\n"
+        + "  - privilegeKey: \"ENV\"\n"
+        + "    disabled: false\n"
+        + "    envCondition: \"#env['ipAddress'] != null\"\n"
+        + "  - privilegeKey: \"RESOURCE\"\n"
+        + "    disabled: false\n"
+        + "    resourceCondition: \"#subject.login == 'admin'\"\n"
+        + "  - privilegeKey: \"RETURN_OBJECT\"\n"
+        + "    disabled: false\n"
+        + "    resourceCondition: \"#returnObject.owner == #subject.login\"\n";
+
+    private final TenantPermissionIndex index = TenantPermissionIndex.of(PermissionMapper.ymlToPermissions(YML));
+
+    @Test
+    public void testAllowDecision() {
+        PermissionDecision decision = index.getDecision("ROLE", "ALLOWED");
+
+        assertEquals(PermissionDecision.Type.ALLOW, decision.getType());
+        assertTrue(decision.isUnconditional(true));
+        assertNull(decision.getEnvCondition());
+        assertNull(decision.getResourceCondition());
+    }
+
+    @Test
+    public void testDenyDecision() {
+        assertTrue(index.getDecision("ROLE", "DISABLED").isDenied());
+        assertSame(PermissionDecision.DENY, index.getDecision("ROLE", "MISSING"));
+        assertSame(PermissionDecision.DENY, index.getDecision("MISSING", "ALLOWED"));
+        assertSame(PermissionDecision.DENY, TenantPermissionIndex.EMPTY.getDecision("ROLE", "ALLOWED"));
+    }
+
+    @Test
+    public void testConditionalDecision() {
+        PermissionDecision env = index.getDecision("ROLE", "ENV");
+        PermissionDecision resource = index.getDecision("ROLE", "RESOURCE");
+
+        assertEquals(PermissionDecision.Type.CONDITIONAL, env.getType());
+        assertFalse(env.isUnconditional(false));
+        assertEquals(PermissionDecision.Type.CONDITIONAL, resource.getType());
+        assertTrue(resource.isUnconditional(false));
+        assertFalse(resource.isUnconditional(true));
+    }
+
+    @Test
+    public void testResourceFreeDecision() {
+        assertTrue(index.getDecision("ROLE", "ENV").isResourceFree(true));
+        assertTrue(index.getDecision("ROLE", "RESOURCE").isResourceFree(true));
+
+        PermissionDecision returnObject = index.getDecision("ROLE", "RETURN_OBJECT");
+        assertTrue(returnObject.isResourceFree(false));
+        assertFalse(returnObject.isResourceFree(true));
+    }
+}
@@ -0,0 +1,54 @@
+package com.icthh.xm.commons.permission.service.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.permission.access.subject.Subject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SpelToJpqlConditionTranslatorUnitTest {
+
+    private final SpelToJpqlConditionTranslator translator = new SpelToJpqlConditionTranslator();
+
+    @Test
+    public void testSubjectBoundAsParameter() {
+        String spel = "#returnObject.owner.userKey == #subject.userKey || #subject.role == 'ROLE_ADMIN'";
+
+        JpqlCondition first = translator.translate(spel, new Subject("first", "key1", "ROLE_USER"));
+        JpqlCondition second = translator.translate(spel, new Subject("second", "key2", "ROLE_USER"));
+
+        assertEquals("(returnObject.owner.userKey = :permissionSubjectUserKey"
+            + " or :permissionSubjectRole = 'ROLE_ADMIN')", first.getJpql());
+        assertEquals(first.getJpql(), second.getJpql());
+
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("permissionSubjectUserKey", "key2");
+        params.put("permissionSubjectRole", "ROLE_USER");
+        assertEquals(params, second.getParams());
+    }
+
+    @Test
+    public void testOperatorsAndLiterals() {
+        JpqlCondition condition = translator.translate(
+            "!(#returnObject.deleted == true) && #returnObject.count >= 10 && #returnObject.name != 'it''s'"
+                + " && #returnObject.removed == null",
+            new Subject("login", "userKey", "ROLE_USER"));
+
+        assertEquals("(((not (returnObject.deleted = TRUE) and returnObject.count >= 10)"
+            + " and returnObject.name <> 'it''s') and returnObject.removed is null)", condition.getJpql());
+        assertTrue(condition.getParams().isEmpty());
+    }
+
+    @Test
+    public void testFallbackForUnsupportedExpression() {
+        JpqlCondition condition = translator.translate("#returnObject.name.startsWith(#subject.login)",
+            new Subject("login", "userKey", "ROLE_USER"));
+
+        assertEquals("returnObject.name.startsWith('login')", condition.getJpql());
+        assertEquals(Collections.emptyMap(), condition.getParams());
+    }
+}
@@ -0,0 +1,121 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures consumption of a topic by per-record and batch listener containers on an embedded Kafka broker.
+ * Run with {@code gradle :xm-commons-topic:jmh}, the score is time per consumed message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageListenerContainerBenchmark {
+
+    private static final String TOPIC = "benchmark-queue";
+    private static final String TENANT = "XM";
+    private static final int MESSAGES = 1000;
+    private static final long TIMEOUT_MS = 60_000;
+
+    @Param({"false", "true"})
+    private boolean batch;
+
+    private final AtomicInteger consumed = new AtomicInteger();
+
+    private EmbeddedKafkaBroker broker;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private AbstractMessageListenerContainer container;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        broker = new EmbeddedKafkaBroker(1, true, 1, TOPIC);
+        broker.afterPropertiesSet();
+
+        kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            KafkaTestUtils.producerProps(broker), new StringSerializer(), new ByteArraySerializer()));
+
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(Collections.singletonList(broker.getBrokersAsString()));
+        kafkaProperties.getConsumer().setAutoOffsetReset("earliest");
+        kafkaProperties.getProperties().put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500");
+
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setKey("benchmark");
+        topicConfig.setTypeKey("benchmark");
+        topicConfig.setTopicName(TOPIC);
+        topicConfig.setGroupId("benchmark-" + batch);
+        topicConfig.setRetriesCount(1);
+        topicConfig.setLogBody(false);
+        topicConfig.setBatch(batch);
+
+        container = new MessageListenerContainerBuilder(kafkaProperties, kafkaTemplate, null, Collections.emptyList())
+            .build(TENANT, topicConfig, new CountingMessageHandler());
+        container.start();
+        ContainerTestUtils.waitForAssignment(container, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        container.stop();
+        broker.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int consume() throws InterruptedException {
+        int target = consumed.get() + MESSAGES;
+        for (int i = 0; i < MESSAGES; i++) {
+            kafkaTemplate.send(TOPIC, ("message " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        kafkaTemplate.flush();
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (consumed.get() < target) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Messages are not consumed in " + TIMEOUT_MS + " ms");
+            }
+            Thread.sleep(1);
+        }
+        return consumed.get();
+    }
+
+    private class CountingMessageHandler implements MessageHandler {
+
+        @Override
+        public void onMessage(String message, String tenant, TopicConfig topicConfig) {
+            consumed.incrementAndGet();
+        }
+
+        @Override
+        public void onMessages(List<String> messages, String tenant, TopicConfig topicConfig) {
+            consumed.addAndGet(messages.size());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.icthh.xm.commons.topic;
+
+import com.icthh.xm.commons.topic.config.MessageRetryTracker;
+import com.icthh.xm.commons.topic.config.SharedMessageListener;
+import com.icthh.xm.commons.topic.config.TopicConsumerMetrics;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Consumers shared by tenants, one container per configured topic pattern instead of one per tenant and topic.
+ * A shared container is started with the first registered tenant config and stopped with the last one.
+ */
+@Slf4j
+public class SharedTopicConsumers {
+
+    private final List<SharedConsumer> consumers;
+    private final BiFunction<TopicConfig, SharedMessageListener, AbstractMessageListenerContainer> containerFactory;
+
+    /**
+     * Registered tenant configs by tenant and config key.
+     */
+    private final Map<String, Map<String, TopicConfig>> tenantConfigs = new HashMap<>();
+
+    public SharedTopicConsumers(List<TopicConfig> sharedConfigs,
+                                KafkaTemplate<String, byte[]> kafkaTemplate,
+                                BiFunction<TopicConfig, SharedMessageListener, AbstractMessageListenerContainer>
+                                    containerFactory) {
+        this(sharedConfigs, kafkaTemplate, containerFactory, null);
+    }
+
+    public SharedTopicConsumers(List<TopicConfig> sharedConfigs,
+                                KafkaTemplate<String, byte[]> kafkaTemplate,
+                                BiFunction<TopicConfig, SharedMessageListener, AbstractMessageListenerContainer>
+                                    containerFactory,
+                                TopicConsumerMetrics consumerMetrics) {
+        this.consumers = sharedConfigs.stream()
+            .map(config -> new SharedConsumer(config, new SharedMessageListener(kafkaTemplate,
+                new MessageRetryTracker(MessageRetryTracker.DEFAULT_CAPACITY), consumerMetrics)))
+            .collect(Collectors.toList());
+        this.containerFactory = containerFactory;
+    }
+
+    /**
+     * Check if the tenant config is consumed by a shared consumer.
+     *
+     * @param topicConfig the tenant topic config
+     * @return true if the config is {@code shared} and its topic matches a shared consumer
+     */
+    public boolean isShared(TopicConfig topicConfig) {
+        return Boolean.TRUE.equals(topicConfig.getShared()) && find(topicConfig).isPresent();
+    }
+
+    /**
+     * Replace shared topic configs of the tenant, start and stop shared containers if needed.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfigs the tenant shared topic configs
+     * @param messageHandler the message handler
+     */
+    public synchronized void update(String tenantKey, List<TopicConfig> topicConfigs, MessageHandler messageHandler) {
+        Map<String, TopicConfig> existing = tenantConfigs.getOrDefault(tenantKey, Collections.emptyMap());
+        Map<String, TopicConfig> updated = new HashMap<>();
+        topicConfigs.forEach(topicConfig -> updated.put(topicConfig.getKey(), topicConfig));
+
+        existing.forEach((key, topicConfig) -> {
+            if (!topicConfig.equals(updated.get(key))) {
+                find(topicConfig).ifPresent(consumer -> consumer.listener.unregister(tenantKey, topicConfig));
+                log.info("[{}] unregister shared consumer: {}", tenantKey, topicConfig);
+            }
+        });
+        updated.forEach((key, topicConfig) -> {
+            if (!topicConfig.equals(existing.get(key))) {
+                find(topicConfig).ifPresent(consumer -> consumer.listener.register(tenantKey, topicConfig,
+                    messageHandler));
+                log.info("[{}] register shared consumer: {}", tenantKey, topicConfig);
+            }
+        });
+
+        if (updated.isEmpty()) {
+            tenantConfigs.remove(tenantKey);
+        } else {
+            tenantConfigs.put(tenantKey, updated);
+        }
+        consumers.forEach(SharedConsumer::refresh);
+    }
+
+    private Optional<SharedConsumer> find(TopicConfig topicConfig) {
+        return consumers.stream()
+            .filter(consumer -> consumer.pattern.matcher(topicConfig.getTopicName()).matches())
+            .findFirst();
+    }
+
+    private class SharedConsumer {
+
+        private final TopicConfig config;
+        private final Pattern pattern;
+        private final SharedMessageListener listener;
+        private AbstractMessageListenerContainer container;
+
+        SharedConsumer(TopicConfig config, SharedMessageListener listener) {
+            this.config = config;
+            this.pattern = Pattern.compile(config.getTopicName());
+            this.listener = listener;
+        }
+
+        void refresh() {
+            if (container == null && !listener.isEmpty()) {
+                log.info("start shared consumer: {}", config);
+                container = containerFactory.apply(config, listener);
+                container.start();
+            } else if (container != null && listener.isEmpty()) {
+                log.info("stop shared consumer: {}", config);
+                container.stop(() -> log.info("shared consumer stopped: {}", config));
+                container = null;
+            }
+        }
+    }
+}
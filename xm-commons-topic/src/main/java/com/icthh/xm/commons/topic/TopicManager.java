@@ -2,8 +2,14 @@ package com.icthh.xm.commons.topic;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.icthh.xm.commons.config.client.api.RefreshableConfiguration;
+import com.icthh.xm.commons.topic.config.BackpressureSignal;
 import com.icthh.xm.commons.topic.config.MessageListenerContainerBuilder;
+import com.icthh.xm.commons.topic.config.SharedMessageListener;
+import com.icthh.xm.commons.topic.config.TopicConsumerMetrics;
+import com.icthh.xm.commons.topic.config.TopicConsumerProperties;
 import com.icthh.xm.commons.topic.domain.ConsumerHolder;
 import com.icthh.xm.commons.topic.domain.TopicConfig;
 import com.icthh.xm.commons.topic.domain.TopicConsumersSpec;
@@ -13,25 +19,47 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-public class TopicManager implements RefreshableConfiguration {
+public class TopicManager implements RefreshableConfiguration, DisposableBean {
 
     private static final String TENANT_NAME = "tenant";
+    private static final int DEFAULT_LIFECYCLE_THREADS = 8;
+    private static final long DEFAULT_LIFECYCLE_TIMEOUT = 120_000L;
+    private static final long LIFECYCLE_KEEP_ALIVE_SECONDS = 60;
+    private static final String START_METRIC = "topic.consumer.start";
+    private static final String STOP_METRIC = "topic.consumer.stop";
+    private static final String REFRESH_METRIC = "topic.consumer.refresh";
 
     private AntPathMatcher matcher = new AntPathMatcher();
     private ObjectMapper ymlMapper = new ObjectMapper(new YAMLFactory());
@@ -41,23 +69,85 @@ public class TopicManager implements RefreshableConfiguration {
     @Getter
     private Map<String, Map<String, ConsumerHolder>> tenantTopicConsumers = new ConcurrentHashMap<>();
 
-    public TopicManager(@Value("${spring.application.name}") String appName,
+    private final KafkaProperties kafkaProperties;
+    private final DefaultKafkaProducerFactory<String, byte[]> forwardProducerFactory;
+    private final KafkaTemplate<String, byte[]> forwardTemplate;
+    private final MessageHandler messageHandler;
+    private final Executor lifecycleExecutor;
+    private final long lifecycleTimeout;
+    private final MetricRegistry metricRegistry;
+    private final TopicConsumerMetrics consumerMetrics;
+    private final List<BackpressureSignal> backpressureSignals;
+    private final SharedTopicConsumers sharedConsumers;
+
+    /**
+     * Consumers start and stop of the configurations init, awaited by the first configuration refresh.
+     */
+    private final List<CompletableFuture<Void>> initOperations = new ArrayList<>();
+
+    public TopicManager(String appName,
                         KafkaProperties kafkaProperties,
                         KafkaTemplate<String, String> kafkaTemplate,
                         MessageHandler messageHandler) {
+        this(appName, kafkaProperties, kafkaTemplate, messageHandler, new TopicConsumerProperties(),
+            DEFAULT_LIFECYCLE_THREADS, DEFAULT_LIFECYCLE_TIMEOUT, null, null);
+    }
+
+    /**
+     * Create topic manager.
+     *
+     * @param appName the application name
+     * @param kafkaProperties the kafka properties
+     * @param kafkaTemplate not used, kept for compatibility: dead-letter and retry records are sent with
+     *                      consumed bytes by a producer built from {@code kafkaProperties}, the producer is
+     *                      closed with the topic manager
+     * @param messageHandler the message handler
+     * @param consumerProperties the consumer properties with shared consumers
+     * @param lifecycleThreads number of threads starting consumers concurrently
+     * @param lifecycleTimeout max time in ms to wait for consumers of a configuration refresh to start and stop
+     * @param metricRegistry the metric registry for consumer lifecycle and processing metrics
+     * @param backpressureSignals the custom backpressure signals of all consumers
+     */
+    @Autowired
+    public TopicManager(@Value("${spring.application.name}") String appName,
+                        KafkaProperties kafkaProperties,
+                        KafkaTemplate<String, String> kafkaTemplate,
+                        MessageHandler messageHandler,
+                        TopicConsumerProperties consumerProperties,
+                        @Value("${xm-topic.lifecycle.threads:" + DEFAULT_LIFECYCLE_THREADS + "}") int lifecycleThreads,
+                        @Value("${xm-topic.lifecycle.timeout:" + DEFAULT_LIFECYCLE_TIMEOUT + "}") long lifecycleTimeout,
+                        ObjectProvider<MetricRegistry> metricRegistry,
+                        ObjectProvider<BackpressureSignal> backpressureSignals) {
         this.kafkaProperties = kafkaProperties;
-        this.kafkaTemplate = kafkaTemplate;
+        this.forwardProducerFactory = createForwardProducerFactory(kafkaProperties);
+        this.forwardTemplate = new KafkaTemplate<>(forwardProducerFactory);
         this.messageHandler = messageHandler;
         this.configPath = "/config/tenants/{tenant}/" + appName + "/topic-consumers.yml";
+        this.lifecycleExecutor = createLifecycleExecutor(lifecycleThreads);
+        this.lifecycleTimeout = lifecycleTimeout;
+        MetricRegistry registry = metricRegistry == null ? null : metricRegistry.getIfAvailable();
+        this.metricRegistry = registry == null ? new MetricRegistry() : registry;
+        this.backpressureSignals = backpressureSignals == null
+            ? Collections.emptyList() : backpressureSignals.orderedStream().collect(Collectors.toList());
+        this.consumerMetrics = new TopicConsumerMetrics(this.metricRegistry, consumerProperties.getMetrics());
+        this.sharedConsumers = new SharedTopicConsumers(consumerProperties.getShared(), forwardTemplate,
+            this::buildSharedContainer, consumerMetrics);
     }
 
-    private final KafkaProperties kafkaProperties;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final MessageHandler messageHandler;
+    /**
+     * Close the producer of dead-letter and retry records, pending records are sent before it is closed.
+     */
+    @Override
+    public void destroy() {
+        forwardProducerFactory.destroy();
+    }
 
     @Override
     public void onRefresh(String updatedKey, String config) {
-        refreshConfig(updatedKey, config);
+        awaitInitOperations();
+        try (Timer.Context ignored = metricRegistry.timer(REFRESH_METRIC).time()) {
+            awaitAll(extractTenant(updatedKey), refreshTenantConsumers(updatedKey, config));
+        }
     }
 
     @Override
@@ -65,40 +155,67 @@ public class TopicManager implements RefreshableConfiguration {
         return matcher.match(configPath, updatedKey);
     }
 
+    /**
+     * Start consumers of the tenant without waiting for them, so consumers of all tenants start concurrently.
+     */
     @Override
     public void onInit(String configKey, String configValue) {
         if (isListeningConfiguration(configKey)) {
-            refreshConfig(configKey, configValue);
+            List<CompletableFuture<Void>> operations = refreshTenantConsumers(configKey, configValue);
+            synchronized (initOperations) {
+                initOperations.addAll(operations);
+            }
+        }
+    }
+
+    private void awaitInitOperations() {
+        List<CompletableFuture<Void>> operations;
+        synchronized (initOperations) {
+            operations = new ArrayList<>(initOperations);
+            initOperations.clear();
         }
+        awaitAll("init", operations);
     }
 
-    private void refreshConfig(String updatedKey, String config) {
+    /**
+     * Update consumers of the tenant.
+     *
+     * @return consumers start and stop operations which are not completed yet
+     */
+    private List<CompletableFuture<Void>> refreshTenantConsumers(String updatedKey, String config) {
         String tenantKey = extractTenant(updatedKey);
         Map<String, ConsumerHolder> existingConsumers = getTenantConsumers(tenantKey);
 
         if (StringUtils.isEmpty(config)) {
             stopAllTenantConsumers(tenantKey, existingConsumers);
-            return;
+            return Collections.emptyList();
         }
         TopicConsumersSpec spec = readSpec(updatedKey, config);
         if (spec == null) {
             log.warn("Skip processing of configuration: [{}]. Specification is null", updatedKey);
-            return;
+            return Collections.emptyList();
         }
-        List<TopicConfig> forUpdate = spec.getTopics();
+        Map<Boolean, List<TopicConfig>> topicConfigs = spec.getTopics().stream()
+            .collect(Collectors.partitioningBy(sharedConsumers::isShared));
+        sharedConsumers.update(tenantKey, topicConfigs.get(true), messageHandler);
+
+        List<TopicConfig> forUpdate = topicConfigs.get(false);
+        List<CompletableFuture<Void>> operations = new ArrayList<>();
 
         //start and update consumers
-        forUpdate.forEach(topicConfig -> processTopicConfig(tenantKey, topicConfig, existingConsumers));
+        forUpdate.forEach(topicConfig -> processTopicConfig(tenantKey, topicConfig, existingConsumers, operations));
 
         //remove old consumers
-        removeOldConsumers(tenantKey, forUpdate, existingConsumers);
+        removeOldConsumers(tenantKey, forUpdate, existingConsumers, operations);
 
         tenantTopicConsumers.put(tenantKey, existingConsumers);
+        return operations;
     }
 
     private void processTopicConfig(String tenantKey,
                                     TopicConfig topicConfig,
-                                    Map<String, ConsumerHolder> existingConsumers) {
+                                    Map<String, ConsumerHolder> existingConsumers,
+                                    List<CompletableFuture<Void>> operations) {
         String topicConfigKey = topicConfig.getKey();
         ConsumerHolder existingConfig = existingConsumers.get(topicConfigKey);
 
@@ -109,8 +226,20 @@ public class TopicManager implements RefreshableConfiguration {
             return;
         }
 
+        TopicConfig.Backpressure backpressure = topicConfig.getBackpressure();
+        if (backpressure != null && backpressure.getMaxLatency() != null && topicConfig.getMaxPollInterval() != null
+              && backpressure.getMaxLatency() >= topicConfig.getMaxPollInterval()) {
+            log.warn("[{}] Backpressure maxLatency is not less than maxPollInterval, consumer may be rebalanced "
+                     + "before it is paused: [{}]", tenantKey, topicConfig);
+        }
+
+        if (Boolean.TRUE.equals(topicConfig.getShared())) {
+            log.warn("[{}] No shared consumer matches topic, dedicated consumer is used: [{}]", tenantKey,
+                topicConfig);
+        }
+
         if (existingConfig == null) {
-            startNewConsumer(tenantKey, topicConfig, existingConsumers);
+            operations.add(startNewConsumer(tenantKey, topicConfig, existingConsumers));
             return;
         }
 
@@ -119,63 +248,156 @@ public class TopicManager implements RefreshableConfiguration {
             return;
         }
 
-        updateConsumer(tenantKey, topicConfig, existingConfig, existingConsumers);
+        operations.add(updateConsumer(tenantKey, topicConfig, existingConfig, existingConsumers));
+    }
+
+    private CompletableFuture<Void> startNewConsumer(String tenantKey,
+                                                     TopicConfig topicConfig,
+                                                     Map<String, ConsumerHolder> existingConsumers) {
+        AbstractMessageListenerContainer container = buildListenerContainer(tenantKey, topicConfig);
+        existingConsumers.put(topicConfig.getKey(), new ConsumerHolder(topicConfig, container));
+        return startContainer(tenantKey, "startNewConsumer", container, topicConfig);
     }
 
-    private void startNewConsumer(String tenantKey,
-                                  TopicConfig topicConfig,
-                                  Map<String, ConsumerHolder> existingConsumers) {
-        withLog(tenantKey, "startNewConsumer", () -> {
-            AbstractMessageListenerContainer container = buildListenerContainer(tenantKey, topicConfig);
-            container.start();
-            existingConsumers.put(topicConfig.getKey(), new ConsumerHolder(topicConfig, container));
-        }, "{}", topicConfig);
+    private CompletableFuture<Void> updateConsumer(String tenantKey,
+                                                   TopicConfig topicConfig,
+                                                   ConsumerHolder existingConfig,
+                                                   Map<String, ConsumerHolder> existingConsumers) {
+        AbstractMessageListenerContainer container = buildListenerContainer(tenantKey, topicConfig);
+        existingConsumers.put(topicConfig.getKey(), new ConsumerHolder(topicConfig, container));
+        return stopContainer(tenantKey, "restartConsumer", existingConfig.getContainer(), existingConfig)
+            .thenCompose(stopped -> startContainer(tenantKey, "restartConsumer", container, topicConfig));
     }
 
-    private void updateConsumer(String tenantKey,
-                                TopicConfig topicConfig,
-                                ConsumerHolder existingConfig,
-                                Map<String, ConsumerHolder> existingConsumers) {
-        withLog(tenantKey, "restartConsumer", () -> {
-            existingConfig.getContainer().stop();
-            AbstractMessageListenerContainer container = buildListenerContainer(tenantKey, topicConfig);
-            container.start();
-            existingConsumers.put(topicConfig.getKey(), new ConsumerHolder(topicConfig, container));
-        }, "{}", topicConfig);
+    private CompletableFuture<Void> startContainer(String tenantKey,
+                                                   String command,
+                                                   AbstractMessageListenerContainer container,
+                                                   TopicConfig topicConfig) {
+        return CompletableFuture.runAsync(() -> withLog(tenantKey, command, () -> {
+            try (Timer.Context ignored = metricRegistry.timer(START_METRIC).time()) {
+                container.start();
+            }
+        }, "{}", topicConfig), lifecycleExecutor).exceptionally(e -> {
+            log.error("[{}] {} failed: {}", tenantKey, command, topicConfig, e);
+            return null;
+        });
+    }
+
+    /**
+     * Stop the container without waiting for its consumers to leave the poll loop.
+     */
+    private CompletableFuture<Void> stopContainer(String tenantKey,
+                                                  String command,
+                                                  AbstractMessageListenerContainer container,
+                                                  ConsumerHolder consumerHolder) {
+        consumerMetrics.removeConsumer(container);
+        if (!container.isRunning()) {
+            // stop callback is not run by a container which is not running, e.g. failed to start
+            log.info("[{}] skip: {}, container is not running {}", tenantKey, command,
+                consumerHolder.getTopicConfig());
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> stopped = new CompletableFuture<>();
+        Timer.Context timer = metricRegistry.timer(STOP_METRIC).time();
+        log.info("[{}] start: {} {}", tenantKey, command, consumerHolder.getTopicConfig());
+        try {
+            container.stop(() -> {
+                log.info("[{}]  stop: {}, time = {} ms.", tenantKey, command,
+                    TimeUnit.NANOSECONDS.toMillis(timer.stop()));
+                stopped.complete(null);
+            });
+        } catch (RuntimeException e) {
+            log.error("[{}] {} failed: {}", tenantKey, command, consumerHolder.getTopicConfig(), e);
+            stopped.complete(null);
+        }
+        return stopped;
+    }
+
+    /**
+     * Wait for the consumers start and stop, consumers still starting or stopping after the timeout
+     * keep going in background.
+     */
+    private void awaitAll(String tenantKey, List<CompletableFuture<Void>> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(operations.toArray(new CompletableFuture[0]))
+                .get(lifecycleTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("[{}] consumers start or stop failed", tenantKey, e);
+        } catch (TimeoutException e) {
+            long pending = operations.stream().filter(operation -> !operation.isDone()).count();
+            log.error("[{}] {} of {} consumers not started or stopped in {} ms", tenantKey, pending, operations.size(),
+                lifecycleTimeout);
+        }
     }
 
     protected AbstractMessageListenerContainer buildListenerContainer(String tenantKey, TopicConfig topicConfig) {
-        return new MessageListenerContainerBuilder(kafkaProperties, kafkaTemplate)
-            .build(tenantKey, topicConfig, messageHandler);
+        return new MessageListenerContainerBuilder(kafkaProperties, forwardTemplate, consumerMetrics,
+            backpressureSignals).build(tenantKey, topicConfig, messageHandler);
+    }
+
+    protected AbstractMessageListenerContainer buildSharedContainer(TopicConfig sharedConfig,
+                                                                    SharedMessageListener sharedListener) {
+        return new MessageListenerContainerBuilder(kafkaProperties, forwardTemplate, consumerMetrics,
+            backpressureSignals).buildShared(sharedConfig, sharedListener);
     }
 
     private void stopAllTenantConsumers(String tenantKey,
                                         Map<String, ConsumerHolder> existingConsumers) {
         Collection<ConsumerHolder> holders = existingConsumers.values();
+        sharedConsumers.update(tenantKey, Collections.emptyList(), messageHandler);
         withLog(tenantKey, "stopAllTenantConsumers", () -> {
-            holders.forEach(consumerHolder -> stopConsumer(tenantKey, consumerHolder));
+            List<CompletableFuture<Void>> operations = new ArrayList<>();
+            holders.forEach(consumerHolder -> operations.add(stopConsumer(tenantKey, consumerHolder)));
+            awaitAll(tenantKey, operations);
             tenantTopicConsumers.remove(tenantKey);
         }, "[{}]", holders);
     }
 
     private void removeOldConsumers(String tenantKey,
                                     List<TopicConfig> newTopicConfigs,
-                                    Map<String, ConsumerHolder> existingConsumers) {
+                                    Map<String, ConsumerHolder> existingConsumers,
+                                    List<CompletableFuture<Void>> operations) {
 
         Set<Map.Entry<String, ConsumerHolder>> toRemove = existingConsumers
             .entrySet()
             .stream()
             .filter(entry -> !newTopicConfigs.contains(entry.getValue().getTopicConfig()))
-            .peek(entry -> stopConsumer(tenantKey, entry.getValue()))
             .collect(Collectors.toSet());
 
+        toRemove.forEach(entry -> operations.add(stopConsumer(tenantKey, entry.getValue())));
         existingConsumers.entrySet().removeAll(toRemove);
     }
 
-    private void stopConsumer(final String tenantKey, final ConsumerHolder consumerHolder) {
-        TopicConfig existConfig = consumerHolder.getTopicConfig();
-        withLog(tenantKey, "stopConsumer",
-            () -> consumerHolder.getContainer().stop(), "{}", existConfig);
+    private CompletableFuture<Void> stopConsumer(final String tenantKey, final ConsumerHolder consumerHolder) {
+        return stopContainer(tenantKey, "stopConsumer", consumerHolder.getContainer(), consumerHolder);
+    }
+
+    /**
+     * Producer factory of dead-letter and retry topic records, the consumed value bytes are sent as is, so payloads
+     * are not re-encoded. The producer is created on the first send.
+     */
+    private static DefaultKafkaProducerFactory<String, byte[]> createForwardProducerFactory(
+        KafkaProperties kafkaProperties) {
+        return new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(), new StringSerializer(),
+            new ByteArraySerializer());
+    }
+
+    /**
+     * Pool of consumers start, containers are stopped asynchronously by their own threads. Idle threads are
+     * released after the configuration refresh.
+     */
+    private static Executor createLifecycleExecutor(int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("topic-lifecycle-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, LIFECYCLE_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     private String extractTenant(final String updatedKey) {
@@ -0,0 +1,211 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Timer;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import com.icthh.xm.commons.topic.message.TopicMessage;
+import com.icthh.xm.commons.topic.message.TopicMessageHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pauses the container while any {@link BackpressureSignal} is saturated and resumes it once all signals are
+ * clear. Signals are checked before and after every processed message and, while paused, every
+ * {@code checkInterval}, so the container is resumed as soon as the saturating message is processed.
+ *
+ * <p>The consumer thread is never blocked: a paused container keeps polling with its partitions paused, so
+ * the pause does not count against {@code max.poll.interval.ms} and does not cause a rebalance. Records of
+ * the current poll are still processed after the pause.
+ */
+@Slf4j
+public class BackpressureController {
+
+    private static final ScheduledExecutorService CHECK_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "topic-backpressure");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final String name;
+    private final List<BackpressureSignal> signals;
+    private final long checkInterval;
+    private final Timer latency;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile MessageListenerContainer container;
+    private ScheduledFuture<?> resumeCheck;
+    private volatile boolean pausedBySignals;
+
+    /**
+     * Create controller.
+     *
+     * @param name the consumer name for logs
+     * @param signals the saturation signals
+     * @param latencyWindow the time window of processing latency in ms
+     * @param checkInterval the interval of resume checks in ms
+     */
+    public BackpressureController(String name, List<BackpressureSignal> signals, long latencyWindow,
+                                  long checkInterval) {
+        this.name = name;
+        this.signals = signals;
+        this.checkInterval = checkInterval;
+        this.latency = new Timer(new SlidingTimeWindowArrayReservoir(latencyWindow, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Create controller with signals of the topic {@code backpressure} config and the custom signals.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfig the topic config
+     * @param customSignals the custom signals
+     * @return controller, or null if the topic has no signals
+     */
+    public static BackpressureController create(String tenantKey, TopicConfig topicConfig,
+                                                List<BackpressureSignal> customSignals) {
+        TopicConfig.Backpressure config = topicConfig.getBackpressure();
+        if (config == null && customSignals.isEmpty()) {
+            return null;
+        }
+        config = config == null ? new TopicConfig.Backpressure() : config;
+
+        List<BackpressureSignal> signals = new ArrayList<>(customSignals);
+        if (config.getMaxInFlight() != null) {
+            signals.add(BackpressureSignal.maxInFlight(config.getMaxInFlight()));
+        }
+        if (config.getMaxLatency() != null) {
+            signals.add(BackpressureSignal.maxLatency(config.getLatencyPercentile(), config.getMaxLatency(),
+                TimeUnit.MILLISECONDS));
+        }
+        return signals.isEmpty() ? null : new BackpressureController(tenantKey + ":" + topicConfig.getKey(),
+            signals, config.getLatencyWindow(), config.getCheckInterval());
+    }
+
+    /**
+     * Number of messages being processed.
+     *
+     * @return in-flight count
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Processing latency percentile over the latency window.
+     *
+     * @param percentile the percentile in {@code [0..1]}
+     * @return latency in nanoseconds, 0 if no messages were processed in the window
+     */
+    public double getLatency(double percentile) {
+        return latency.getSnapshot().getValue(percentile);
+    }
+
+    public boolean isPaused() {
+        MessageListenerContainer current = container;
+        return current != null && current.isPauseRequested();
+    }
+
+    public void attach(MessageListenerContainer container) {
+        this.container = container;
+    }
+
+    /**
+     * Track in-flight count and latency of the handler calls.
+     *
+     * @param messageHandler the message handler
+     * @return handler wrapper
+     */
+    public TopicMessageHandler wrap(MessageHandler messageHandler) {
+        TopicMessageHandler handler = TopicMessageHandler.adapt(messageHandler);
+        return new TopicMessageHandler() {
+
+            @Override
+            public void onTopicMessage(TopicMessage message, String tenant, TopicConfig topicConfig) {
+                track(1, () -> handler.onTopicMessage(message, tenant, topicConfig));
+            }
+
+            @Override
+            public void onTopicMessages(List<TopicMessage> messages, String tenant, TopicConfig topicConfig) {
+                track(messages.size(), () -> handler.onTopicMessages(messages, tenant, topicConfig));
+            }
+        };
+    }
+
+    private void track(int count, Runnable processing) {
+        inFlight.addAndGet(count);
+        check();
+        Timer.Context timer = latency.time();
+        try {
+            processing.run();
+        } finally {
+            timer.stop();
+            inFlight.addAndGet(-count);
+            check();
+        }
+    }
+
+    /**
+     * Pause the container if any signal is saturated, resume the container paused by signals if all are clear.
+     */
+    void check() {
+        MessageListenerContainer current = container;
+        if (current == null) {
+            return;
+        }
+        if (!current.isPauseRequested()) {
+            if (isSaturated()) {
+                pause(current);
+            }
+        } else if (pausedBySignals) {
+            checkResume(current);
+        }
+    }
+
+    private synchronized void pause(MessageListenerContainer current) {
+        if (current.isPauseRequested()) {
+            return;
+        }
+        log.warn("[{}] pause consumer, processing is saturated, in-flight = {}", name, inFlight.get());
+        current.pause();
+        pausedBySignals = true;
+        resumeCheck = CHECK_SCHEDULER.scheduleWithFixedDelay(() -> checkResume(current), checkInterval,
+            checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void checkResume(MessageListenerContainer current) {
+        try {
+            if (!pausedBySignals) {
+                return;
+            }
+            if (!current.isRunning() || current != container) {
+                pausedBySignals = false;
+                resumeCheck.cancel(false);
+            } else if (!isSaturated()) {
+                log.info("[{}] resume consumer, in-flight = {}", name, inFlight.get());
+                pausedBySignals = false;
+                resumeCheck.cancel(false);
+                current.resume();
+            }
+        } catch (RuntimeException e) {
+            log.error("[{}] backpressure check failed", name, e);
+        }
+    }
+
+    private boolean isSaturated() {
+        for (BackpressureSignal signal : signals) {
+            if (signal.isSaturated(this)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.icthh.xm.commons.topic.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Signal of saturated processing, consumer is paused while any of its signals is saturated. Register a bean
+ * to apply a custom signal, e.g. a database pool health probe, to all topic consumers.
+ */
+@FunctionalInterface
+public interface BackpressureSignal {
+
+    /**
+     * Check if processing is saturated. Called on consumer and processing threads, must not block.
+     *
+     * @param controller the controller with in-flight count and processing latency of the consumer
+     * @return true if the consumer should be paused
+     */
+    boolean isSaturated(BackpressureController controller);
+
+    static BackpressureSignal maxInFlight(int maxInFlight) {
+        return controller -> controller.getInFlight() >= maxInFlight;
+    }
+
+    static BackpressureSignal maxLatency(double percentile, long maxLatency, TimeUnit unit) {
+        long maxLatencyNanos = unit.toNanos(maxLatency);
+        return controller -> controller.getLatency(percentile) > maxLatencyNanos;
+    }
+
+    /**
+     * Signal of a health probe.
+     *
+     * @param healthy the probe, returns false if processing resources are saturated
+     * @return signal
+     */
+    static BackpressureSignal healthProbe(BooleanSupplier healthy) {
+        return controller -> !healthy.getAsBoolean();
+    }
+}
@@ -0,0 +1,172 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.codahale.metrics.Timer;
+import com.icthh.xm.commons.logging.util.MdcUtils;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageBatchException;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import com.icthh.xm.commons.topic.message.TopicMessage;
+import com.icthh.xm.commons.topic.message.TopicMessageHandler;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchAcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listener of topics with {@code batch} mode. Polled records are passed to
+ * {@link TopicMessageHandler#onTopicMessages(List, String, TopicConfig)} at once and offsets are committed once
+ * per batch.
+ *
+ * <p>If the batch fails, offsets of records before the first failed one are committed and the consumer is sought
+ * back to the failed record, so only the rest of the batch is redelivered after {@code backOffPeriod}. When
+ * the failed record exceeds {@code retriesCount} attempts it is passed to {@link ConsumerRecoveryCallback}.
+ */
+@Slf4j
+public class BatchMessageListener implements BatchAcknowledgingConsumerAwareMessageListener<String, byte[]> {
+
+    /**
+     * The same as {@link org.springframework.retry.backoff.FixedBackOffPolicy} default.
+     */
+    private static final long DEFAULT_BACK_OFF_PERIOD = 1000L;
+
+    private final TopicConfig topicConfig;
+    private final TopicMessageHandler messageHandler;
+    private final String tenantKey;
+    private final ConsumerRecoveryCallback recoveryCallback;
+    private final ConsumerMetrics metrics;
+
+    /**
+     * Failed offset and attempts per partition, a partition is consumed by one container thread at a time.
+     */
+    private final Map<TopicPartition, FailedOffset> failures = new ConcurrentHashMap<>();
+
+    public BatchMessageListener(MessageHandler messageHandler,
+                                String tenantKey,
+                                TopicConfig topicConfig,
+                                ConsumerRecoveryCallback recoveryCallback) {
+        this(messageHandler, tenantKey, topicConfig, recoveryCallback, ConsumerMetrics.unregistered());
+    }
+
+    public BatchMessageListener(MessageHandler messageHandler,
+                                String tenantKey,
+                                TopicConfig topicConfig,
+                                ConsumerRecoveryCallback recoveryCallback,
+                                ConsumerMetrics metrics) {
+        this.topicConfig = topicConfig;
+        this.messageHandler = TopicMessageHandler.adapt(messageHandler);
+        this.tenantKey = tenantKey;
+        this.recoveryCallback = recoveryCallback;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onMessage(List<ConsumerRecord<String, byte[]>> records,
+                          Acknowledgment acknowledgment,
+                          Consumer<?, ?> consumer) {
+        putRid();
+
+        final StopWatch stopWatch = StopWatch.createStarted();
+        final Timer.Context timer = metrics.getProcessing().time();
+        log.info("start processing batch, size = {}", records.size());
+
+        List<TopicMessage> messages = new ArrayList<>(records.size());
+        records.forEach(record -> messages.add(TopicMessage.of(record)));
+        try {
+            messageHandler.onTopicMessages(messages, tenantKey, topicConfig);
+            acknowledgment.acknowledge();
+            records.forEach(record -> failures.remove(new TopicPartition(record.topic(), record.partition())));
+            log.info("stop processing batch, time = {} ms.", stopWatch.getTime());
+        } catch (Exception ex) {
+            metrics.getErrors().inc();
+            int failedIndex = ex instanceof MessageBatchException ? ((MessageBatchException) ex).getFailedIndex() : 0;
+            log.error("error processing batch, failed message: {} of {}, time = {} ms.", failedIndex + 1,
+                records.size(), stopWatch.getTime(), ex);
+            onFailure(records, failedIndex, consumer);
+        } finally {
+            timer.stop();
+            MdcUtils.clear();
+        }
+    }
+
+    private void onFailure(List<ConsumerRecord<String, byte[]>> records, int failedIndex, Consumer<?, ?> consumer) {
+        ConsumerRecord<String, byte[]> failed = records.get(failedIndex);
+        TopicPartition failedPartition = new TopicPartition(failed.topic(), failed.partition());
+        FailedOffset previous = failures.get(failedPartition);
+        int attempts = previous != null && previous.getOffset() == failed.offset() ? previous.getAttempts() + 1 : 1;
+
+        int processed = failedIndex;
+        boolean retry = !isRetriesExceeded(attempts);
+        if (retry) {
+            metrics.getRetries().inc();
+            failures.put(failedPartition, new FailedOffset(failed.offset(), attempts));
+        } else {
+            recoveryCallback.recover(failed);
+            failures.remove(failedPartition);
+            processed++;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records.subList(0, processed)) {
+            commits.put(new TopicPartition(record.topic(), record.partition()),
+                new OffsetAndMetadata(record.offset() + 1));
+        }
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+        }
+
+        Map<TopicPartition, Long> seeks = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records.subList(processed, records.size())) {
+            seeks.putIfAbsent(new TopicPartition(record.topic(), record.partition()), record.offset());
+        }
+        seeks.forEach(consumer::seek);
+
+        if (retry) {
+            backOff();
+        }
+    }
+
+    private boolean isRetriesExceeded(int attempts) {
+        Integer retriesCount = topicConfig.getRetriesCount();
+        return retriesCount != null && retriesCount != -1 && attempts >= retriesCount;
+    }
+
+    private void backOff() {
+        long backOffPeriod = topicConfig.getBackOffPeriod() == null ? DEFAULT_BACK_OFF_PERIOD
+                                                                     : topicConfig.getBackOffPeriod();
+        if (backOffPeriod <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(backOffPeriod);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void putRid() {
+        MdcUtils.putRid(new StringJoiner(":")
+            .add(tenantKey)
+            .add(topicConfig.getTopicName())
+            .add(MdcUtils.generateRid())
+            .toString());
+    }
+
+    @Value
+    private static class FailedOffset {
+        private final long offset;
+        private final int attempts;
+    }
+}
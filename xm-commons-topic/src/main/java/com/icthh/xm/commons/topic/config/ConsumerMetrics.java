@@ -0,0 +1,29 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Metrics of a tenant topic consumer, metrics of several consumers are shared when the configured
+ * cardinality does not include the tenant or the topic.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ConsumerMetrics {
+
+    private final Timer processing;
+    private final Counter errors;
+    private final Counter retries;
+    private final Counter deadLetters;
+
+    /**
+     * Create metrics not registered in any registry.
+     *
+     * @return metrics
+     */
+    public static ConsumerMetrics unregistered() {
+        return new ConsumerMetrics(new Timer(), new Counter(), new Counter(), new Counter());
+    }
+}
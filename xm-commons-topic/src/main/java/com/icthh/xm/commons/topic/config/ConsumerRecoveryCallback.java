@@ -1,21 +1,22 @@
 package com.icthh.xm.commons.topic.config;
 
-import static com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.getRetryCounter;
-import static com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.getRid;
-import static com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.getTotalProcessingTime;
 import static org.springframework.kafka.listener.adapter.RetryingMessageListenerAdapter.CONTEXT_ACKNOWLEDGMENT;
 import static org.springframework.kafka.listener.adapter.RetryingMessageListenerAdapter.CONTEXT_RECORD;
 
 import com.icthh.xm.commons.logging.util.MdcUtils;
+import com.icthh.xm.commons.topic.config.MessageRetryTracker.RetryDetails;
 import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.TopicMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.RetryContext;
 
+import java.util.Optional;
 import java.util.StringJoiner;
 
 @Slf4j
@@ -23,61 +24,109 @@ public class ConsumerRecoveryCallback implements RecoveryCallback<Object> {
 
     private final String tenantKey;
     private final TopicConfig topicConfig;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MessageRetryTracker retryTracker;
+    private final ConsumerMetrics metrics;
 
+    /**
+     * Create recovery callback which sends dead-letter records as strings, with own retry details tracker.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfig the topic config
+     * @param kafkaTemplate the kafka template of dead-letter topic
+     * @deprecated use {@link #ConsumerRecoveryCallback(String, TopicConfig, KafkaTemplate, MessageRetryTracker)}
+     *     with the template of consumed bytes and the tracker of the message listener
+     */
+    @Deprecated
     public ConsumerRecoveryCallback(String tenantKey,
                                     TopicConfig topicConfig,
                                     KafkaTemplate<String, String> kafkaTemplate) {
+        this(tenantKey, topicConfig, new StringKafkaTemplateAdapter(kafkaTemplate),
+            new MessageRetryTracker(MessageRetryTracker.DEFAULT_CAPACITY));
+    }
+
+    public ConsumerRecoveryCallback(String tenantKey,
+                                    TopicConfig topicConfig,
+                                    KafkaTemplate<String, byte[]> kafkaTemplate,
+                                    MessageRetryTracker retryTracker) {
+        this(tenantKey, topicConfig, kafkaTemplate, retryTracker, ConsumerMetrics.unregistered());
+    }
+
+    public ConsumerRecoveryCallback(String tenantKey,
+                                    TopicConfig topicConfig,
+                                    KafkaTemplate<String, byte[]> kafkaTemplate,
+                                    MessageRetryTracker retryTracker,
+                                    ConsumerMetrics metrics) {
         this.tenantKey = tenantKey;
         this.topicConfig = topicConfig;
         this.kafkaTemplate = kafkaTemplate;
+        this.retryTracker = retryTracker;
+        this.metrics = metrics;
     }
 
     @Override
     public Object recover(RetryContext context) {
-        ConsumerRecord<?, ?> record = (ConsumerRecord) context.getAttribute(CONTEXT_RECORD);
+        @SuppressWarnings("unchecked")
+        ConsumerRecord<String, byte[]> record = (ConsumerRecord<String, byte[]>) context.getAttribute(CONTEXT_RECORD);
         if (record == null) {
             log.warn("Message skipped. Message record is null for context: {}", context);
             return null;
         }
-        String rawBody = String.valueOf(record.value());
+        recover(record);
+        acknowledge(record, context);
+        return null;
+    }
+
+    /**
+     * Send the record to dead-letter queue with rid and retry count headers, or skip it if the queue is not
+     * configured. Retry details of the record are removed.
+     *
+     * @param record the record with exceeded retries
+     */
+    public void recover(ConsumerRecord<String, byte[]> record) {
+        TopicMessage message = TopicMessage.of(record);
+        String rawBody = message.getBodyPreview(topicConfig.getLogBodyLimit());
         String deadLetterQueue = topicConfig.getDeadLetterQueue();
+        Optional<RetryDetails> retryDetails = retryTracker.get(record);
 
         try {
-            putRid(record);
+            putRid(retryDetails.map(RetryDetails::getRid).orElse(null));
 
             if (StringUtils.isEmpty(deadLetterQueue)) {
                 log.info("Message skipped. Processing failed for tenant: [{}], body = {}", tenantKey, rawBody);
-                acknowledge(rawBody, context);
-                return null;
+                return;
             }
 
-            kafkaTemplate.send(deadLetterQueue, rawBody);
-            acknowledge(rawBody, context);
+            ProducerRecord<String, byte[]> deadLetter = new ProducerRecord<>(deadLetterQueue, record.value());
+            retryDetails.ifPresent(details -> MessageRetryTracker.putHeaders(deadLetter.headers(), details));
+            kafkaTemplate.send(deadLetter);
+            metrics.getDeadLetters().inc();
 
             log.warn("send message to dead-letter [{}] due to retry count exceeded [{}], "
                     + "total processing time = {} ms, body = [{}]",
-                deadLetterQueue, getRetryCounter(record), getTotalProcessingTime(record), rawBody);
+                deadLetterQueue, retryDetails.map(RetryDetails::getRetryCount).orElse(null),
+                retryDetails.map(RetryDetails::getProcessingTime).orElse(null), rawBody);
         } finally {
+            retryTracker.remove(record);
             MdcUtils.clear();
         }
-        return null;
     }
 
-    private void acknowledge(String rawBody, RetryContext context) {
+    private void acknowledge(ConsumerRecord<String, byte[]> record, RetryContext context) {
         Acknowledgment acknowledgment = (Acknowledgment) context.getAttribute(CONTEXT_ACKNOWLEDGMENT);
         if (acknowledgment == null) {
-            log.warn("Acknowledge failed for message: [{}], tenant: [{}]", rawBody, tenantKey);
+            log.warn("Acknowledge failed for message: [{}], tenant: [{}]",
+                TopicMessage.of(record).getBodyPreview(topicConfig.getLogBodyLimit()), tenantKey);
             return;
         }
         acknowledgment.acknowledge();
     }
 
-    private void putRid(ConsumerRecord<?, ?> record) {
+    private void putRid(String rid) {
         MdcUtils.putRid(new StringJoiner(":")
             .add(tenantKey)
             .add(topicConfig.getTopicName())
-            .add(getRid(record))
+            .add(String.valueOf(rid))
             .toString());
     }
 }
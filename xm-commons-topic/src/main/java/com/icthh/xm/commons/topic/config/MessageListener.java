@@ -1,13 +1,12 @@
 package com.icthh.xm.commons.topic.config;
 
-import static com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.delete;
-import static com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.getUpdatedOrGenerateRetryDetails;
-
+import com.codahale.metrics.Timer;
 import com.icthh.xm.commons.logging.util.MdcUtils;
 import com.icthh.xm.commons.topic.domain.TopicConfig;
 import com.icthh.xm.commons.topic.message.MessageHandler;
-import com.icthh.xm.commons.topic.util.MessageRetryDetailsUtils.MessageRetryDetails;
-import java.math.BigInteger;
+import com.icthh.xm.commons.topic.message.TopicMessage;
+import com.icthh.xm.commons.topic.message.TopicMessageHandler;
+import com.icthh.xm.commons.topic.config.MessageRetryTracker.RetryDetails;
 import java.util.StringJoiner;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.StopWatch;
@@ -16,51 +15,86 @@ import org.springframework.kafka.listener.AcknowledgingMessageListener;
 import org.springframework.kafka.support.Acknowledgment;
 
 @Slf4j
-public class MessageListener implements AcknowledgingMessageListener<String, String> {
+public class MessageListener implements AcknowledgingMessageListener<String, byte[]> {
 
     private final TopicConfig topicConfig;
-    private final MessageHandler messageHandler;
+    private final TopicMessageHandler messageHandler;
     private final String tenantKey;
+    private final MessageRetryTracker retryTracker;
+    private final ConsumerMetrics metrics;
 
+    /**
+     * Create message listener with own retry details tracker.
+     *
+     * @param messageHandler the message handler
+     * @param tenantKey the tenant key
+     * @param topicConfig the topic config
+     * @deprecated use {@link #MessageListener(MessageHandler, String, TopicConfig, MessageRetryTracker)} with the
+     *     tracker of the recovery callback, so the recovered record keeps its rid and retry count
+     */
+    @Deprecated
     public MessageListener(MessageHandler messageHandler, String tenantKey, TopicConfig topicConfig) {
+        this(messageHandler, tenantKey, topicConfig, new MessageRetryTracker(MessageRetryTracker.DEFAULT_CAPACITY));
+    }
+
+    public MessageListener(MessageHandler messageHandler,
+                           String tenantKey,
+                           TopicConfig topicConfig,
+                           MessageRetryTracker retryTracker) {
+        this(messageHandler, tenantKey, topicConfig, retryTracker, ConsumerMetrics.unregistered());
+    }
+
+    public MessageListener(MessageHandler messageHandler,
+                           String tenantKey,
+                           TopicConfig topicConfig,
+                           MessageRetryTracker retryTracker,
+                           ConsumerMetrics metrics) {
         this.topicConfig = topicConfig;
-        this.messageHandler = messageHandler;
+        this.messageHandler = TopicMessageHandler.adapt(messageHandler);
         this.tenantKey = tenantKey;
+        this.retryTracker = retryTracker;
+        this.metrics = metrics;
     }
 
     @Override
-    public void onMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
-        MessageRetryDetails retryDetails = getUpdatedOrGenerateRetryDetails(record);
+    public void onMessage(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        RetryDetails retryDetails = retryTracker.onAttempt(record);
         putRid(retryDetails.getRetryCount(), retryDetails.getRid());
+        if (retryDetails.getRetryCount() > 1) {
+            metrics.getRetries().inc();
+        }
 
         final StopWatch stopWatch = StopWatch.createStarted();
-        String rawBody = record.value();
-        log.info("start processing message, size = {}, body = [{}]", rawBody.length(), formatBody(rawBody));
+        final Timer.Context timer = metrics.getProcessing().time();
+        TopicMessage message = TopicMessage.of(record);
+        log.info("start processing message, size = {}, body = [{}]", message.getSize(), formatBody(message));
 
         try {
-            messageHandler.onMessage(rawBody, tenantKey, topicConfig);
+            messageHandler.onTopicMessage(message, tenantKey, topicConfig);
             acknowledgment.acknowledge();
-            delete(record);
+            retryTracker.remove(record);
             log.info("stop processing message, time = {} ms.", stopWatch.getTime());
         } catch (Exception ex) {
+            metrics.getErrors().inc();
             log.error("error processing message, retry number: {}, time = {} ms.", retryDetails.getRetryCount(),
                                                                                    stopWatch.getTime());
             throw ex;
         } finally {
+            timer.stop();
             MdcUtils.clear();
         }
     }
 
-    private void putRid(BigInteger retryCount, String rid) {
+    private void putRid(int retryCount, String rid) {
         MdcUtils.putRid(new StringJoiner(":")
             .add(tenantKey)
             .add(topicConfig.getTopicName())
             .add(rid)
-            .add(retryCount.toString())
+            .add(String.valueOf(retryCount))
             .toString());
     }
 
-    private String formatBody(String rawBody) {
-        return topicConfig.getLogBody() ? rawBody : "***";
+    private String formatBody(TopicMessage message) {
+        return topicConfig.getLogBody() ? message.getBodyPreview(topicConfig.getLogBodyLimit()) : "***";
     }
 }
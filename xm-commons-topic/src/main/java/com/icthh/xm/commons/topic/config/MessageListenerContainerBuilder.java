@@ -5,12 +5,15 @@ import static org.apache.kafka.clients.consumer.ConsumerConfig.ENABLE_AUTO_COMMI
 import static org.apache.kafka.clients.consumer.ConsumerConfig.GROUP_ID_CONFIG;
 import static org.apache.kafka.clients.consumer.ConsumerConfig.ISOLATION_LEVEL_CONFIG;
 import static org.apache.kafka.clients.consumer.ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG;
+import static org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL;
 import static org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE;
 
 import com.icthh.xm.commons.topic.domain.TopicConfig;
 import com.icthh.xm.commons.topic.message.MessageHandler;
-import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
@@ -20,47 +23,252 @@ import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.SeekToCurrentErrorHandler;
 import org.springframework.kafka.listener.adapter.RetryingMessageListenerAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
-
-@RequiredArgsConstructor
 public class MessageListenerContainerBuilder {
 
+    private static final long PARALLEL_KEEP_ALIVE_SECONDS = 60;
+    private static final int UNLIMITED_FAILURES = -1;
+
     private final KafkaProperties kafkaProperties;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TopicConsumerMetrics consumerMetrics;
+    private final List<BackpressureSignal> backpressureSignals;
+
+    /**
+     * Create container builder which sends dead-letter and retry records as strings.
+     *
+     * @param kafkaProperties the kafka properties
+     * @param kafkaTemplate the kafka template of dead-letter and retry topics
+     * @deprecated use {@link #MessageListenerContainerBuilder(KafkaProperties, KafkaTemplate, TopicConsumerMetrics,
+     *     List)} with the template of consumed bytes
+     */
+    @Deprecated
+    public MessageListenerContainerBuilder(KafkaProperties kafkaProperties,
+                                           KafkaTemplate<String, String> kafkaTemplate) {
+        this(kafkaProperties, new StringKafkaTemplateAdapter(kafkaTemplate), null, Collections.emptyList());
+    }
+
+    /**
+     * Create container builder.
+     *
+     * @param kafkaProperties the kafka properties
+     * @param kafkaTemplate the kafka template of dead-letter and retry topics
+     * @param consumerMetrics the consumer metrics, metrics are not registered if null
+     * @param backpressureSignals the custom backpressure signals of all containers
+     */
+    public MessageListenerContainerBuilder(KafkaProperties kafkaProperties,
+                                           KafkaTemplate<String, byte[]> kafkaTemplate,
+                                           TopicConsumerMetrics consumerMetrics,
+                                           List<BackpressureSignal> backpressureSignals) {
+        this.kafkaProperties = kafkaProperties;
+        this.kafkaTemplate = kafkaTemplate;
+        this.consumerMetrics = consumerMetrics;
+        this.backpressureSignals = backpressureSignals;
+    }
 
     public AbstractMessageListenerContainer build(String tenantKey,
                                                   TopicConfig topicConfig,
                                                   MessageHandler messageHandler) {
-        Map<String, Object> consumerConfig = buildConsumerConfig(topicConfig);
-        DefaultKafkaConsumerFactory<String, String> kafkaConsumerFactory =
-            new DefaultKafkaConsumerFactory<>(
-                consumerConfig,
-                new StringDeserializer(),
-                new StringDeserializer());
-
-        ContainerProperties containerProperties = new ContainerProperties(topicConfig.getTopicName());
+        BackpressureController backpressure =
+            BackpressureController.create(tenantKey, topicConfig, backpressureSignals);
+        AbstractMessageListenerContainer container = buildContainer(tenantKey, topicConfig,
+            backpressure == null ? messageHandler : backpressure.wrap(messageHandler));
+        if (backpressure != null) {
+            backpressure.attach(container);
+        }
+        if (consumerMetrics != null) {
+            consumerMetrics.addConsumer(tenantKey, topicConfig, container);
+        }
+        return container;
+    }
+
+    private AbstractMessageListenerContainer buildContainer(String tenantKey,
+                                                            TopicConfig topicConfig,
+                                                            MessageHandler messageHandler) {
+        ConsumerMetrics metrics = consumerMetrics == null ? ConsumerMetrics.unregistered()
+                                                          : consumerMetrics.getConsumerMetrics(tenantKey, topicConfig);
+        DefaultKafkaConsumerFactory<String, byte[]> kafkaConsumerFactory = createConsumerFactory(topicConfig, "");
+
+        MessageRetryTracker retryTracker = new MessageRetryTracker(MessageRetryTracker.DEFAULT_CAPACITY);
+        ContainerProperties containerProperties =
+            createContainerProperties(topicConfig.getTopicName(), retryTracker);
+        ConsumerRecoveryCallback recoveryCallback =
+            new ConsumerRecoveryCallback(tenantKey, topicConfig, kafkaTemplate, retryTracker, metrics);
+        if (Boolean.TRUE.equals(topicConfig.getBatch())) {
+            containerProperties.setAckMode(MANUAL);
+            containerProperties.setMessageListener(
+                new BatchMessageListener(messageHandler, tenantKey, topicConfig, recoveryCallback, metrics));
+            return createContainer(kafkaConsumerFactory, containerProperties, topicConfig);
+        }
+
+        MessageListener messageListener =
+            new MessageListener(messageHandler, tenantKey, topicConfig, retryTracker, metrics);
+        if (topicConfig.getRetryTopicsCount() != null && topicConfig.getRetryTopicsCount() > 0) {
+            return createRetryTopicsContainer(topicConfig, messageListener,
+                new RetryTopicForwarder(topicConfig, kafkaTemplate, retryTracker, recoveryCallback),
+                kafkaConsumerFactory, containerProperties, retryTracker);
+        }
+
+        if (topicConfig.getParallelism() != null && topicConfig.getParallelism() > 1) {
+            containerProperties.setAckMode(MANUAL);
+            containerProperties.setMessageListener(new ParallelMessageListener(messageListener,
+                new MessageRetryTemplate(topicConfig), recoveryCallback, createExecutor(tenantKey, topicConfig)));
+            return createContainer(kafkaConsumerFactory, containerProperties, topicConfig);
+        }
+
         containerProperties.setAckMode(MANUAL_IMMEDIATE);
         containerProperties.setMessageListener(new RetryingMessageListenerAdapter<>(
-            new MessageListener(messageHandler, tenantKey, topicConfig),
+            messageListener,
             new MessageRetryTemplate(topicConfig),
-            new ConsumerRecoveryCallback(tenantKey, topicConfig, kafkaTemplate),
+            recoveryCallback,
             true
         ));
 
-        ConcurrentMessageListenerContainer<String, String> container =
-              new ConcurrentMessageListenerContainer<>(kafkaConsumerFactory, containerProperties);
+        ConcurrentMessageListenerContainer<String, byte[]> container =
+            createContainer(kafkaConsumerFactory, containerProperties, topicConfig);
         container.setErrorHandler(new SeekToCurrentErrorHandler(topicConfig.getRetriesCount() + 1));
         return container;
     }
 
-    private Map<String, Object> buildConsumerConfig(TopicConfig topicConfig) {
+    /**
+     * Build container shared by tenants, subscribed to topics matching {@code topicName} pattern. Records are
+     * retried with the shared config settings and recovered with the record tenant config. Records without a
+     * registered tenant consumer are redelivered without a failures limit, so they are not committed.
+     *
+     * @param sharedConfig the shared consumer config
+     * @param sharedListener the listener routing records to tenants
+     * @return container
+     */
+    public AbstractMessageListenerContainer buildShared(TopicConfig sharedConfig,
+                                                        SharedMessageListener sharedListener) {
+        ContainerProperties containerProperties = new ContainerProperties(Pattern.compile(sharedConfig.getTopicName()));
+        addRetryTrackerCleanup(containerProperties, sharedListener.getRetryTracker());
+        containerProperties.setAckMode(MANUAL_IMMEDIATE);
+        containerProperties.setMessageListener(new RetryingMessageListenerAdapter<>(
+            sharedListener,
+            new MessageRetryTemplate(sharedConfig),
+            sharedListener,
+            true
+        ));
+
+        ConcurrentMessageListenerContainer<String, byte[]> container =
+            createContainer(createConsumerFactory(sharedConfig, ""), containerProperties, sharedConfig);
+        container.setErrorHandler(new SeekToCurrentErrorHandler(UNLIMITED_FAILURES));
+        return container;
+    }
+
+    /**
+     * Main topic container with containers of its retry topics. Every container processes a record once and
+     * forwards a failed record to the next retry topic, the record is redelivered only if it can not be forwarded.
+     * Redelivery is not limited, so a record is never skipped while its retry topic is unavailable.
+     */
+    private ConcurrentMessageListenerContainer<String, byte[]> createRetryTopicsContainer(
+        TopicConfig topicConfig,
+        MessageListener messageListener,
+        RetryTopicForwarder forwarder,
+        DefaultKafkaConsumerFactory<String, byte[]> kafkaConsumerFactory,
+        ContainerProperties containerProperties,
+        MessageRetryTracker retryTracker) {
+        List<AbstractMessageListenerContainer> retryContainers = new ArrayList<>();
+        for (int tier = 1; tier <= topicConfig.getRetryTopicsCount(); tier++) {
+            String retryTopic = RetryTopicForwarder.getRetryTopicName(topicConfig.getTopicName(), tier);
+            ContainerProperties retryProperties = createContainerProperties(retryTopic, retryTracker);
+            retryProperties.setAckMode(MANUAL_IMMEDIATE);
+            RetryTopicMessageListener retryListener = new RetryTopicMessageListener(messageListener, forwarder, tier);
+            retryProperties.setMessageListener(retryListener);
+
+            ConcurrentMessageListenerContainer<String, byte[]> retryContainer = createContainer(
+                createConsumerFactory(topicConfig, ".retry-" + tier), retryProperties, topicConfig);
+            retryListener.setContainer(retryContainer);
+            retryContainer.setErrorHandler(new SeekToCurrentErrorHandler(UNLIMITED_FAILURES));
+            retryContainers.add(retryContainer);
+        }
+
+        containerProperties.setAckMode(MANUAL_IMMEDIATE);
+        containerProperties.setMessageListener(new RetryTopicMessageListener(messageListener, forwarder, 0));
+        RetryTopicsMessageListenerContainer container =
+            new RetryTopicsMessageListenerContainer(kafkaConsumerFactory, containerProperties, retryContainers);
+        if (topicConfig.getConcurrency() != null) {
+            container.setConcurrency(topicConfig.getConcurrency());
+        }
+        container.setErrorHandler(new SeekToCurrentErrorHandler(UNLIMITED_FAILURES));
+        return container;
+    }
+
+    private static ContainerProperties createContainerProperties(String topicName, MessageRetryTracker retryTracker) {
+        ContainerProperties containerProperties = new ContainerProperties(topicName);
+        addRetryTrackerCleanup(containerProperties, retryTracker);
+        return containerProperties;
+    }
+
+    private static void addRetryTrackerCleanup(ContainerProperties containerProperties,
+                                               MessageRetryTracker retryTracker) {
+        containerProperties.setConsumerRebalanceListener(new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                retryTracker.removePartitions(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                // retry details are created on the first attempt
+            }
+        });
+    }
+
+    private DefaultKafkaConsumerFactory<String, byte[]> createConsumerFactory(TopicConfig topicConfig,
+                                                                              String groupIdSuffix) {
+        return new DefaultKafkaConsumerFactory<>(
+            buildConsumerConfig(topicConfig, groupIdSuffix),
+            new StringDeserializer(),
+            new ByteArrayDeserializer());
+    }
+
+    private static ConcurrentMessageListenerContainer<String, byte[]> createContainer(
+        DefaultKafkaConsumerFactory<String, byte[]> kafkaConsumerFactory,
+        ContainerProperties containerProperties,
+        TopicConfig topicConfig) {
+        ConcurrentMessageListenerContainer<String, byte[]> container =
+            new ConcurrentMessageListenerContainer<>(kafkaConsumerFactory, containerProperties);
+        if (topicConfig.getConcurrency() != null) {
+            container.setConcurrency(topicConfig.getConcurrency());
+        }
+        return container;
+    }
+
+    /**
+     * Pool of the parallel mode, shared by container consumers. Idle threads are released, so the pool does not
+     * outlive the stopped container.
+     */
+    private static ExecutorService createExecutor(String tenantKey, TopicConfig topicConfig) {
+        CustomizableThreadFactory threadFactory =
+            new CustomizableThreadFactory(tenantKey + "-" + topicConfig.getKey() + "-");
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(topicConfig.getParallelism(),
+            topicConfig.getParallelism(), PARALLEL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private Map<String, Object> buildConsumerConfig(TopicConfig topicConfig, String groupIdSuffix) {
         Map<String, Object> props = kafkaProperties.buildConsumerProperties();
 
         String groupIdFromConf = topicConfig.getGroupId();
-        String groupId = StringUtils.isEmpty(groupIdFromConf) ? UUID.randomUUID().toString() : groupIdFromConf;
+        String groupId = StringUtils.isEmpty(groupIdFromConf) ? UUID.randomUUID().toString()
+                                                              : groupIdFromConf + groupIdSuffix;
         props.put(GROUP_ID_CONFIG, groupId);
         props.put(ENABLE_AUTO_COMMIT_CONFIG, false);
 
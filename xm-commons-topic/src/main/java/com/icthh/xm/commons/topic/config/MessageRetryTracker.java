@@ -0,0 +1,129 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.icthh.xm.commons.logging.util.MdcUtils;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Retry details of records being processed by a listener container, keyed by partition and offset.
+ *
+ * <p>The tracker is bounded, the least recently used details are evicted on overflow. Details are removed when
+ * the record is processed or recovered, and when its partition is revoked. Rid and retry count are also read from
+ * {@link #RID_HEADER} and {@link #RETRY_COUNT_HEADER} record headers, so they survive the record republishing.
+ */
+@Slf4j
+public class MessageRetryTracker {
+
+    public static final String RID_HEADER = "xm-rid";
+    public static final String RETRY_COUNT_HEADER = "xm-retry-count";
+
+    /**
+     * Capacity of the tracker of a listener container.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final Map<RecordKey, RetryDetails> retryDetails;
+
+    public MessageRetryTracker(int capacity) {
+        this.retryDetails = new LinkedHashMap<RecordKey, RetryDetails>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RecordKey, RetryDetails> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Register processing attempt of the record.
+     *
+     * @param record the record
+     * @return retry details with the attempt counted
+     */
+    public synchronized RetryDetails onAttempt(ConsumerRecord<?, ?> record) {
+        RecordKey key = new RecordKey(new TopicPartition(record.topic(), record.partition()), record.offset());
+        RetryDetails details = retryDetails.get(key);
+        if (details == null) {
+            details = new RetryDetails(getHeader(record.headers(), RID_HEADER).orElseGet(MdcUtils::generateRid),
+                getHeader(record.headers(), RETRY_COUNT_HEADER).map(NumberUtils::toInt).orElse(0) + 1,
+                System.currentTimeMillis());
+            log.debug("created retry details: {}, {}", key, details);
+        } else {
+            details = new RetryDetails(details.getRid(), details.getRetryCount() + 1, details.getStartProcessTime());
+        }
+        retryDetails.put(key, details);
+        return details;
+    }
+
+    public synchronized Optional<RetryDetails> get(ConsumerRecord<?, ?> record) {
+        return Optional.ofNullable(
+            retryDetails.get(new RecordKey(new TopicPartition(record.topic(), record.partition()), record.offset())));
+    }
+
+    public synchronized void remove(ConsumerRecord<?, ?> record) {
+        RetryDetails details =
+            retryDetails.remove(new RecordKey(new TopicPartition(record.topic(), record.partition()), record.offset()));
+        log.debug("deleted retry details: {}, for message offset: {}", details, record.offset());
+    }
+
+    /**
+     * Remove details of revoked partitions, the records will be processed by other consumer.
+     *
+     * @param partitions the revoked partitions
+     */
+    public synchronized void removePartitions(Collection<TopicPartition> partitions) {
+        retryDetails.keySet().removeIf(key -> partitions.contains(key.getPartition()));
+    }
+
+    public synchronized int size() {
+        return retryDetails.size();
+    }
+
+    /**
+     * Add rid and retry count headers, so the details are continued by the consumer of republished record.
+     *
+     * @param headers headers of the republished record
+     * @param details the retry details
+     */
+    public static void putHeaders(Headers headers, RetryDetails details) {
+        headers.remove(RID_HEADER);
+        headers.remove(RETRY_COUNT_HEADER);
+        headers.add(RID_HEADER, details.getRid().getBytes(StandardCharsets.UTF_8));
+        headers.add(RETRY_COUNT_HEADER, String.valueOf(details.getRetryCount()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<String> getHeader(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        if (header == null || header.value() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    @Value
+    public static class RetryDetails {
+        private final String rid;
+        private final int retryCount;
+        private final long startProcessTime;
+
+        public long getProcessingTime() {
+            return System.currentTimeMillis() - startProcessTime;
+        }
+    }
+
+    @Value
+    private static class RecordKey {
+        private final TopicPartition partition;
+        private final long offset;
+    }
+}
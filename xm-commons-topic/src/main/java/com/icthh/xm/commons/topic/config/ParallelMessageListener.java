@@ -0,0 +1,130 @@
+package com.icthh.xm.commons.topic.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchAcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Listener of topics with {@code parallelism} greater than one. Records of a poll are grouped by key and the groups
+ * are processed concurrently on a bounded pool, records of the same key (or without key, of the same partition)
+ * are processed one by one in the offset order.
+ *
+ * <p>Every record is processed by {@link MessageListener} with the same retries and recovery as in the per-record
+ * mode. Only contiguous completed offsets are committed, a partition with a failed record is sought back to it.
+ */
+@Slf4j
+public class ParallelMessageListener implements BatchAcknowledgingConsumerAwareMessageListener<String, byte[]> {
+
+    private static final Acknowledgment NO_ACKNOWLEDGMENT = () -> { };
+
+    private final MessageListener recordListener;
+    private final RetryTemplate retryTemplate;
+    private final ConsumerRecoveryCallback recoveryCallback;
+    private final ExecutorService executor;
+
+    public ParallelMessageListener(MessageListener recordListener,
+                                   RetryTemplate retryTemplate,
+                                   ConsumerRecoveryCallback recoveryCallback,
+                                   ExecutorService executor) {
+        this.recordListener = recordListener;
+        this.retryTemplate = retryTemplate;
+        this.recoveryCallback = recoveryCallback;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onMessage(List<ConsumerRecord<String, byte[]>> records,
+                          Acknowledgment acknowledgment,
+                          Consumer<?, ?> consumer) {
+        Map<Object, List<ConsumerRecord<String, byte[]>>> groups = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            Object groupKey = record.key() != null ? record.key()
+                                                   : new TopicPartition(record.topic(), record.partition());
+            groups.computeIfAbsent(groupKey, key -> new ArrayList<>()).add(record);
+        }
+
+        Set<ConsumerRecord<String, byte[]>> completed = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        groups.values().forEach(group -> futures.add(executor.submit(() -> processGroup(group, completed))));
+        awaitAll(futures);
+
+        if (completed.size() == records.size()) {
+            acknowledgment.acknowledge();
+        } else {
+            commitCompleted(records, completed, consumer);
+        }
+    }
+
+    private void processGroup(List<ConsumerRecord<String, byte[]>> group,
+                              Set<ConsumerRecord<String, byte[]>> completed) {
+        for (ConsumerRecord<String, byte[]> record : group) {
+            try {
+                retryTemplate.execute(context -> {
+                    recordListener.onMessage(record, NO_ACKNOWLEDGMENT);
+                    return null;
+                }, context -> {
+                    recoveryCallback.recover(record);
+                    return null;
+                });
+                completed.add(record);
+            } catch (Exception e) {
+                log.error("error processing message, partition = {}, offset = {}, next messages with the same key "
+                          + "are postponed", record.partition(), record.offset(), e);
+                return;
+            }
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(running -> running.cancel(true));
+                return;
+            } catch (ExecutionException e) {
+                log.error("error processing messages", e.getCause());
+            }
+        }
+    }
+
+    private static void commitCompleted(List<ConsumerRecord<String, byte[]>> records,
+                                        Set<ConsumerRecord<String, byte[]>> completed,
+                                        Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        Map<TopicPartition, Long> seeks = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            if (seeks.containsKey(partition)) {
+                continue;
+            }
+            if (completed.contains(record)) {
+                commits.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            } else {
+                seeks.put(partition, record.offset());
+            }
+        }
+        if (!commits.isEmpty()) {
+            consumer.commitSync(commits);
+        }
+        seeks.forEach(consumer::seek);
+        log.warn("commit completed offsets: {}, seek back to offsets: {}", commits, seeks);
+    }
+}
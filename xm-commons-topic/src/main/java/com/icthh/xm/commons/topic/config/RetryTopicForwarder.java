@@ -0,0 +1,108 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Forwards failed records of topics with {@code retryTopicsCount} to the next {@code <topic>.retry-N} topic,
+ * and after the last retry topic to {@link ConsumerRecoveryCallback}.
+ *
+ * <p>Delay of the retry topic N is {@code backOffPeriod * retryBackOffMultiplier ^ (N - 1)}, the time the record
+ * is due is written to {@link #RETRY_DUE_HEADER}.
+ */
+@Slf4j
+public class RetryTopicForwarder {
+
+    public static final String RETRY_DUE_HEADER = "xm-retry-due";
+
+    private static final String RETRY_TOPIC_SUFFIX = ".retry-";
+    private static final long DEFAULT_BACK_OFF_PERIOD = 1000L;
+    private static final double DEFAULT_BACK_OFF_MULTIPLIER = 2;
+
+    private final TopicConfig topicConfig;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MessageRetryTracker retryTracker;
+    private final ConsumerRecoveryCallback recoveryCallback;
+
+    public RetryTopicForwarder(TopicConfig topicConfig,
+                               KafkaTemplate<String, byte[]> kafkaTemplate,
+                               MessageRetryTracker retryTracker,
+                               ConsumerRecoveryCallback recoveryCallback) {
+        this.topicConfig = topicConfig;
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryTracker = retryTracker;
+        this.recoveryCallback = recoveryCallback;
+    }
+
+    public static String getRetryTopicName(String topicName, int tier) {
+        return topicName + RETRY_TOPIC_SUFFIX + tier;
+    }
+
+    /**
+     * Get the time the record of retry topic is due.
+     *
+     * @param record the record
+     * @return due time in epoch millis, 0 if the record has no valid due header
+     */
+    public static long getDueTime(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(RETRY_DUE_HEADER);
+        if (header == null || header.value() == null) {
+            return 0;
+        }
+        String dueTime = new String(header.value(), StandardCharsets.UTF_8);
+        try {
+            return Long.parseLong(dueTime);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid header {}: [{}] of record {}-{}@{}, record is due now", RETRY_DUE_HEADER, dueTime,
+                record.topic(), record.partition(), record.offset());
+            return 0;
+        }
+    }
+
+    /**
+     * Forward the failed record to the next retry topic and wait for the send result.
+     *
+     * @param record the failed record
+     * @param tier the retry topic of the record, 0 for the main topic
+     */
+    public void forward(ConsumerRecord<String, byte[]> record, int tier) {
+        if (tier >= topicConfig.getRetryTopicsCount()) {
+            recoveryCallback.recover(record);
+            return;
+        }
+
+        int nextTier = tier + 1;
+        String retryTopic = getRetryTopicName(topicConfig.getTopicName(), nextTier);
+        long dueTime = System.currentTimeMillis() + getDelay(nextTier);
+        ProducerRecord<String, byte[]> retry = new ProducerRecord<>(retryTopic, record.key(), record.value());
+        retryTracker.get(record).ifPresent(details -> MessageRetryTracker.putHeaders(retry.headers(), details));
+        retry.headers().add(RETRY_DUE_HEADER, String.valueOf(dueTime).getBytes(StandardCharsets.UTF_8));
+
+        try {
+            kafkaTemplate.send(retry).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while forwarding message to " + retryTopic, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Message can not be forwarded to " + retryTopic, e.getCause());
+        }
+        retryTracker.remove(record);
+        log.warn("message forwarded to retry topic [{}], due in {} ms", retryTopic,
+                 dueTime - System.currentTimeMillis());
+    }
+
+    private long getDelay(int tier) {
+        long backOffPeriod = topicConfig.getBackOffPeriod() == null ? DEFAULT_BACK_OFF_PERIOD
+                                                                     : topicConfig.getBackOffPeriod();
+        double multiplier = topicConfig.getRetryBackOffMultiplier() == null ? DEFAULT_BACK_OFF_MULTIPLIER
+                                                                            : topicConfig.getRetryBackOffMultiplier();
+        return (long) (backOffPeriod * Math.pow(multiplier, tier - 1));
+    }
+}
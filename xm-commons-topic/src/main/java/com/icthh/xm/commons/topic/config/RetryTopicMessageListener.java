@@ -0,0 +1,102 @@
+package com.icthh.xm.commons.topic.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.AcknowledgingConsumerAwareMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Listener of the main and retry topics of topics with {@code retryTopicsCount}. Every record is processed once,
+ * a failed record is passed to {@link RetryTopicForwarder} and acknowledged, so the consumer never sleeps.
+ *
+ * <p>Listener of a retry topic does not process records before they are due. The record partition is sought back
+ * to the record and the container is paused till the record is due.
+ */
+@Slf4j
+public class RetryTopicMessageListener implements AcknowledgingConsumerAwareMessageListener<String, byte[]> {
+
+    private static final Acknowledgment NO_ACKNOWLEDGMENT = () -> { };
+
+    private static final ScheduledExecutorService RESUME_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "retry-topic-resume");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final MessageListener recordListener;
+    private final RetryTopicForwarder forwarder;
+    private final int tier;
+
+    private final Set<TopicPartition> postponedPartitions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private volatile AbstractMessageListenerContainer container;
+
+    /**
+     * Create the listener.
+     *
+     * @param recordListener the record listener
+     * @param forwarder the failed records forwarder
+     * @param tier the retry topic number, 0 for the main topic
+     */
+    public RetryTopicMessageListener(MessageListener recordListener, RetryTopicForwarder forwarder, int tier) {
+        this.recordListener = recordListener;
+        this.forwarder = forwarder;
+        this.tier = tier;
+    }
+
+    public void setContainer(AbstractMessageListenerContainer container) {
+        this.container = container;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, byte[]> record,
+                          Acknowledgment acknowledgment,
+                          Consumer<?, ?> consumer) {
+        if (tier > 0 && postpone(record, consumer)) {
+            return;
+        }
+        try {
+            recordListener.onMessage(record, NO_ACKNOWLEDGMENT);
+        } catch (Exception e) {
+            forwarder.forward(record, tier);
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private boolean postpone(ConsumerRecord<String, byte[]> record, Consumer<?, ?> consumer) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        if (postponedPartitions.contains(partition)) {
+            return true;
+        }
+        long delay = RetryTopicForwarder.getDueTime(record) - System.currentTimeMillis();
+        if (delay <= 0) {
+            return false;
+        }
+
+        consumer.seek(partition, record.offset());
+        postponedPartitions.add(partition);
+        if (container != null && paused.compareAndSet(false, true)) {
+            log.debug("pause retry topic [{}] for {} ms", record.topic(), delay);
+            container.pause();
+            RESUME_SCHEDULER.schedule(this::resume, delay, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private void resume() {
+        postponedPartitions.clear();
+        paused.set(false);
+        container.resume();
+    }
+}
@@ -0,0 +1,54 @@
+package com.icthh.xm.commons.topic.config;
+
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Main topic container which starts and stops containers of its retry topics together with itself.
+ */
+public class RetryTopicsMessageListenerContainer extends ConcurrentMessageListenerContainer<String, byte[]> {
+
+    private final List<AbstractMessageListenerContainer> retryContainers;
+
+    public RetryTopicsMessageListenerContainer(ConsumerFactory<String, byte[]> consumerFactory,
+                                               ContainerProperties containerProperties,
+                                               List<AbstractMessageListenerContainer> retryContainers) {
+        super(consumerFactory, containerProperties);
+        this.retryContainers = retryContainers;
+    }
+
+    public List<AbstractMessageListenerContainer> getRetryContainers() {
+        return retryContainers;
+    }
+
+    @Override
+    protected void doStart() {
+        retryContainers.forEach(AbstractMessageListenerContainer::start);
+        super.doStart();
+    }
+
+    /**
+     * Stop the main and retry containers asynchronously, the callback is run when all of them are stopped.
+     * Containers which are not running are not waited for, they never run the stop callback.
+     */
+    @Override
+    protected void doStop(Runnable callback) {
+        List<AbstractMessageListenerContainer> runningRetryContainers = retryContainers.stream()
+            .filter(AbstractMessageListenerContainer::isRunning)
+            .collect(Collectors.toList());
+        AtomicInteger running = new AtomicInteger(runningRetryContainers.size() + 1);
+        Runnable stopped = () -> {
+            if (running.decrementAndGet() == 0) {
+                callback.run();
+            }
+        };
+        runningRetryContainers.forEach(container -> container.stop(stopped));
+        super.doStop(stopped);
+    }
+}
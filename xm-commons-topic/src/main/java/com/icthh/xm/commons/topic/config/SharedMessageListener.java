@@ -0,0 +1,146 @@
+package com.icthh.xm.commons.topic.config;
+
+import static org.springframework.kafka.listener.adapter.RetryingMessageListenerAdapter.CONTEXT_RECORD;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.RecoveryCallback;
+import org.springframework.retry.RetryContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listener of a container shared by tenants. Every record is routed to the tenant from {@link #TENANT_HEADER}
+ * or, without the header, to the only tenant registered for the record topic, and processed with the tenant
+ * {@link TopicConfig} and {@link MessageHandler}.
+ *
+ * <p>A record which can not be routed, e.g. it arrives before its tenant is registered or while the tenant config
+ * is replaced, is never acknowledged: the listener fails and the record is redelivered until a tenant consumer
+ * is registered for it.
+ */
+@Slf4j
+public class SharedMessageListener implements AcknowledgingMessageListener<String, byte[]>, RecoveryCallback<Object> {
+
+    public static final String TENANT_HEADER = "xm-tenant";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MessageRetryTracker retryTracker;
+    private final TopicConsumerMetrics consumerMetrics;
+
+    /**
+     * Tenant listeners by topic name and tenant key.
+     */
+    private final Map<String, Map<String, TenantListener>> topicTenants = new ConcurrentHashMap<>();
+
+    public SharedMessageListener(KafkaTemplate<String, byte[]> kafkaTemplate, MessageRetryTracker retryTracker) {
+        this(kafkaTemplate, retryTracker, null);
+    }
+
+    public SharedMessageListener(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                 MessageRetryTracker retryTracker,
+                                 TopicConsumerMetrics consumerMetrics) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.retryTracker = retryTracker;
+        this.consumerMetrics = consumerMetrics;
+    }
+
+    public MessageRetryTracker getRetryTracker() {
+        return retryTracker;
+    }
+
+    public void register(String tenantKey, TopicConfig topicConfig, MessageHandler messageHandler) {
+        ConsumerMetrics metrics = consumerMetrics == null ? ConsumerMetrics.unregistered()
+                                                          : consumerMetrics.addSharedConsumer(tenantKey, topicConfig);
+        TenantListener tenantListener = new TenantListener(topicConfig,
+            new MessageListener(messageHandler, tenantKey, topicConfig, retryTracker, metrics),
+            new ConsumerRecoveryCallback(tenantKey, topicConfig, kafkaTemplate, retryTracker, metrics));
+        TenantListener replaced = topicTenants
+            .computeIfAbsent(topicConfig.getTopicName(), topic -> new ConcurrentHashMap<>())
+            .put(tenantKey, tenantListener);
+        removeMetrics(tenantKey, replaced);
+    }
+
+    public void unregister(String tenantKey, TopicConfig topicConfig) {
+        TenantListener[] removed = new TenantListener[1];
+        topicTenants.computeIfPresent(topicConfig.getTopicName(), (topic, tenants) -> {
+            removed[0] = tenants.remove(tenantKey);
+            return tenants.isEmpty() ? null : tenants;
+        });
+        removeMetrics(tenantKey, removed[0]);
+    }
+
+    private void removeMetrics(String tenantKey, TenantListener tenantListener) {
+        if (consumerMetrics != null && tenantListener != null) {
+            consumerMetrics.removeSharedConsumer(tenantKey, tenantListener.getTopicConfig());
+        }
+    }
+
+    public boolean isEmpty() {
+        return topicTenants.isEmpty();
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        Optional<TenantListener> tenantListener = resolve(record);
+        if (tenantListener.isPresent()) {
+            tenantListener.get().getMessageListener().onMessage(record, acknowledgment);
+        } else {
+            throw notRouted(record);
+        }
+    }
+
+    @Override
+    public Object recover(RetryContext context) {
+        @SuppressWarnings("unchecked")
+        ConsumerRecord<String, byte[]> record = (ConsumerRecord<String, byte[]>) context.getAttribute(CONTEXT_RECORD);
+        if (record == null) {
+            log.warn("Message skipped. Message record is null for context: {}", context);
+            return null;
+        }
+        Optional<TenantListener> tenantListener = resolve(record);
+        if (tenantListener.isPresent()) {
+            return tenantListener.get().getRecoveryCallback().recover(context);
+        }
+        throw notRouted(record);
+    }
+
+    private static IllegalStateException notRouted(ConsumerRecord<String, byte[]> record) {
+        log.warn("Message not processed, no tenant consumer for topic: [{}], tenant: [{}], offset: {}",
+            record.topic(), getTenantKey(record), record.offset());
+        return new IllegalStateException("No tenant consumer for record of topic: " + record.topic());
+    }
+
+    private Optional<TenantListener> resolve(ConsumerRecord<String, byte[]> record) {
+        Map<String, TenantListener> tenants = topicTenants.get(record.topic());
+        if (tenants == null) {
+            return Optional.empty();
+        }
+        String tenantKey = getTenantKey(record);
+        if (tenantKey != null) {
+            return Optional.ofNullable(tenants.get(tenantKey));
+        }
+        return tenants.size() == 1 ? tenants.values().stream().findFirst() : Optional.empty();
+    }
+
+    private static String getTenantKey(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(TENANT_HEADER);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    @Value
+    private static class TenantListener {
+        private final TopicConfig topicConfig;
+        private final MessageListener messageListener;
+        private final ConsumerRecoveryCallback recoveryCallback;
+    }
+}
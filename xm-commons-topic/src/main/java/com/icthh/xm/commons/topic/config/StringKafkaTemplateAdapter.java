@@ -0,0 +1,36 @@
+package com.icthh.xm.commons.topic.config;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dead-letter and retry records template of the deprecated constructors with {@code KafkaTemplate<String, String>}.
+ * Only {@link #send(ProducerRecord)} is supported, values are sent as UTF-8 strings by the delegate template.
+ */
+class StringKafkaTemplateAdapter extends KafkaTemplate<String, byte[]> {
+
+    private final KafkaTemplate<String, String> delegate;
+
+    StringKafkaTemplateAdapter(KafkaTemplate<String, String> delegate) {
+        super(() -> {
+            throw new UnsupportedOperationException("Records are sent by the string kafka template");
+        });
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ListenableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+        String value = record.value() == null ? null : new String(record.value(), StandardCharsets.UTF_8);
+        SettableListenableFuture<SendResult<String, byte[]>> result = new SettableListenableFuture<>();
+        delegate.send(new ProducerRecord<>(record.topic(), record.partition(), record.timestamp(), record.key(), value,
+            record.headers()))
+            .addCallback(sendResult -> result.set(new SendResult<>(record, sendResult.getRecordMetadata())),
+                result::setException);
+        return result;
+    }
+}
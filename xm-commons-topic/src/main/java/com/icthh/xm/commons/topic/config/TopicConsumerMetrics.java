@@ -0,0 +1,207 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dropwizard metrics of topic consumers: {@code processing} timer, {@code errors}, {@code retries} and
+ * {@code dead-letters} counters and {@code lag} gauge named {@code topic.consumer.<tenant>.<topic>.<metric>},
+ * with tenant and topic included according to {@link TopicConsumerProperties.Cardinality}.
+ *
+ * <p>Lag is the sum of {@code records-lag} of container consumers. It is sampled in background from the consumer
+ * metrics, so reading the gauge does not call the broker.
+ *
+ * <p>Metrics are removed from the registry when the last container or shared consumer tenant with the same metric
+ * name is removed, so stopped tenants and topics do not leave stale metrics.
+ */
+@Slf4j
+public class TopicConsumerMetrics {
+
+    private static final String PREFIX = "topic.consumer";
+    private static final String FETCH_METRICS_GROUP = "consumer-fetch-manager-metrics";
+    private static final String RECORDS_LAG = "records-lag";
+    private static final String PARTITION_TAG = "partition";
+    private static final String PROCESSING = "processing";
+    private static final String ERRORS = "errors";
+    private static final String RETRIES = "retries";
+    private static final String DEAD_LETTERS = "dead-letters";
+    private static final String LAG = "lag";
+
+    private final MetricRegistry metricRegistry;
+    private final TopicConsumerProperties.Metrics properties;
+
+    private final Map<MessageListenerContainer, LagGauge> containers = new ConcurrentHashMap<>();
+
+    /**
+     * Number of tenants registered in shared consumers by metric name.
+     */
+    private final Map<String, Integer> sharedConsumers = new HashMap<>();
+    private ScheduledExecutorService sampler;
+
+    public TopicConsumerMetrics(MetricRegistry metricRegistry, TopicConsumerProperties.Metrics properties) {
+        this.metricRegistry = metricRegistry;
+        this.properties = properties;
+    }
+
+    public ConsumerMetrics getConsumerMetrics(String tenantKey, TopicConfig topicConfig) {
+        String name = getName(tenantKey, topicConfig);
+        return new ConsumerMetrics(
+            metricRegistry.timer(MetricRegistry.name(name, PROCESSING)),
+            metricRegistry.counter(MetricRegistry.name(name, ERRORS)),
+            metricRegistry.counter(MetricRegistry.name(name, RETRIES)),
+            metricRegistry.counter(MetricRegistry.name(name, DEAD_LETTERS)));
+    }
+
+    /**
+     * Sample lag of the container and keep the consumer metrics till the container is removed.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfig the topic config
+     * @param container the container
+     */
+    public synchronized void addConsumer(String tenantKey,
+                                         TopicConfig topicConfig,
+                                         MessageListenerContainer container) {
+        containers.put(container, getLagGauge(getName(tenantKey, topicConfig)));
+        startSampler();
+    }
+
+    /**
+     * Stop sampling lag of the stopped container and remove its metrics, if no other consumer shares them.
+     *
+     * @param container the container
+     */
+    public synchronized void removeConsumer(MessageListenerContainer container) {
+        LagGauge gauge = containers.remove(container);
+        if (gauge == null) {
+            return;
+        }
+        gauge.lags.remove(container);
+        removeUnused(gauge.name);
+    }
+
+    /**
+     * Get metrics of the tenant registered in a shared consumer and keep them till the tenant is removed.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfig the tenant topic config
+     * @return the consumer metrics
+     */
+    public synchronized ConsumerMetrics addSharedConsumer(String tenantKey, TopicConfig topicConfig) {
+        sharedConsumers.merge(getName(tenantKey, topicConfig), 1, Integer::sum);
+        return getConsumerMetrics(tenantKey, topicConfig);
+    }
+
+    /**
+     * Remove metrics of the tenant removed from a shared consumer, if no other consumer shares them.
+     *
+     * @param tenantKey the tenant key
+     * @param topicConfig the tenant topic config
+     */
+    public synchronized void removeSharedConsumer(String tenantKey, TopicConfig topicConfig) {
+        String name = getName(tenantKey, topicConfig);
+        sharedConsumers.computeIfPresent(name, (key, count) -> count > 1 ? count - 1 : null);
+        removeUnused(name);
+    }
+
+    private void removeUnused(String name) {
+        if (sharedConsumers.containsKey(name)
+            || containers.values().stream().anyMatch(gauge -> gauge.name.equals(name))) {
+            return;
+        }
+        for (String metric : new String[] {PROCESSING, ERRORS, RETRIES, DEAD_LETTERS, LAG}) {
+            metricRegistry.remove(MetricRegistry.name(name, metric));
+        }
+    }
+
+    void sampleLag() {
+        containers.forEach((container, gauge) -> {
+            try {
+                gauge.lags.put(container, getLag(container.metrics()));
+            } catch (RuntimeException e) {
+                log.debug("Consumer lag is not sampled: {}", e.getMessage());
+            }
+        });
+    }
+
+    static long getLag(Map<String, Map<MetricName, ? extends org.apache.kafka.common.Metric>> metrics) {
+        long lag = 0;
+        for (Map<MetricName, ? extends org.apache.kafka.common.Metric> consumerMetrics : metrics.values()) {
+            for (Map.Entry<MetricName, ? extends org.apache.kafka.common.Metric> metric : consumerMetrics.entrySet()) {
+                MetricName name = metric.getKey();
+                if (FETCH_METRICS_GROUP.equals(name.group()) && RECORDS_LAG.equals(name.name())
+                    && name.tags().containsKey(PARTITION_TAG)) {
+                    Object value = metric.getValue().metricValue();
+                    if (value instanceof Number && Double.isFinite(((Number) value).doubleValue())) {
+                        lag += ((Number) value).longValue();
+                    }
+                }
+            }
+        }
+        return lag;
+    }
+
+    private String getName(String tenantKey, TopicConfig topicConfig) {
+        StringJoiner name = new StringJoiner(".").add(PREFIX);
+        switch (properties.getCardinality()) {
+            case TENANT_TOPIC:
+                name.add(tenantKey).add(topicConfig.getTopicName());
+                break;
+            case TENANT:
+                name.add(tenantKey);
+                break;
+            case TOPIC:
+                name.add(topicConfig.getTopicName());
+                break;
+            default:
+                break;
+        }
+        return name.toString();
+    }
+
+    private synchronized LagGauge getLagGauge(String name) {
+        Metric gauge = metricRegistry.getMetrics().get(MetricRegistry.name(name, LAG));
+        if (gauge instanceof LagGauge) {
+            return (LagGauge) gauge;
+        }
+        return metricRegistry.register(MetricRegistry.name(name, LAG), new LagGauge(name));
+    }
+
+    private synchronized void startSampler() {
+        if (sampler == null) {
+            sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "topic-consumer-lag");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sampler.scheduleWithFixedDelay(this::sampleLag, properties.getLagSampleInterval(),
+                properties.getLagSampleInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class LagGauge implements Gauge<Long> {
+
+        private final String name;
+        private final Map<MessageListenerContainer, Long> lags = new ConcurrentHashMap<>();
+
+        @Override
+        public Long getValue() {
+            return lags.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.icthh.xm.commons.topic.config;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties("xm-topic.consumer")
+@Getter
+@Setter
+public class TopicConsumerProperties {
+
+    /**
+     * Consumers shared by tenants with {@code shared} topic configs. Topic name of a shared consumer is
+     * a pattern of topic names, new matching topics are subscribed on the consumer metadata refresh.
+     */
+    private List<TopicConfig> shared = new ArrayList<>();
+    private Metrics metrics = new Metrics();
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /**
+         * Dimensions of consumer metric names, lower cardinality aggregates metrics of several consumers.
+         */
+        private Cardinality cardinality = Cardinality.TENANT_TOPIC;
+        /**
+         * Interval of consumer lag sampling in ms.
+         */
+        private long lagSampleInterval = 30_000;
+    }
+
+    public enum Cardinality {
+        TENANT_TOPIC, TENANT, TOPIC, NONE
+    }
+}
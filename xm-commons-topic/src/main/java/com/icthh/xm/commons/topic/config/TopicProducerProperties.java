@@ -0,0 +1,46 @@
+package com.icthh.xm.commons.topic.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Producer profiles of {@code KafkaTemplateService}. Tenants without a profile use the application
+ * {@code spring.kafka.producer} settings.
+ */
+@Component
+@ConfigurationProperties("xm-topic.producer")
+@Getter
+@Setter
+public class TopicProducerProperties {
+
+    /**
+     * Producer profiles by name.
+     */
+    private Map<String, Profile> profiles = new HashMap<>();
+    /**
+     * Profile names by tenant key.
+     */
+    private Map<String, String> tenantProfiles = new HashMap<>();
+
+    /**
+     * Producer settings overriding {@code spring.kafka.producer}, not set values are inherited.
+     */
+    @Getter
+    @Setter
+    public static class Profile {
+
+        /**
+         * Compression codec: none, gzip, snappy, lz4 or zstd.
+         */
+        private String compressionType;
+        private Integer lingerMs;
+        private Integer batchSize;
+        private String acks;
+        private Boolean enableIdempotence;
+    }
+}
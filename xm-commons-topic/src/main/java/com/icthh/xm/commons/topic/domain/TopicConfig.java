@@ -15,6 +15,62 @@ public class TopicConfig implements Serializable {
     private String deadLetterQueue;
     private String groupId;
     private Boolean logBody = true;
+    /**
+     * Max number of body bytes written to the log, the whole body if null.
+     */
+    private Integer logBodyLimit = 1024;
     private Integer maxPollInterval;
     private String isolationLevel;
+    /**
+     * Deliver polled records to {@code MessageHandler.onMessages} as a batch with one offset commit.
+     */
+    private Boolean batch = false;
+    /**
+     * Number of container consumers, up to the topic partitions count.
+     */
+    private Integer concurrency;
+    /**
+     * Number of threads processing records with different keys of a poll concurrently, records with the same key
+     * are processed in order. Not used in {@code batch} mode.
+     */
+    private Integer parallelism;
+    /**
+     * Number of {@code <topicName>.retry-N} topics failed records are forwarded to instead of blocking retries,
+     * records failed on the last retry topic are sent to {@code deadLetterQueue}. Not used in {@code batch} and
+     * parallel modes. Retry topics are expected to be auto created by the broker.
+     */
+    private Integer retryTopicsCount;
+    /**
+     * Consume the topic with the application shared consumer whose topic pattern matches {@code topicName},
+     * instead of a dedicated tenant consumer. Consumer and retry settings are taken from the shared consumer,
+     * the tenant config is passed to the message handler and used for the dead letter queue.
+     */
+    private Boolean shared = false;
+    /**
+     * Multiplier of {@code backOffPeriod} for every next retry topic, 2 by default.
+     */
+    private Double retryBackOffMultiplier;
+    /**
+     * Pause the consumer while processing is saturated, disabled if null.
+     */
+    private Backpressure backpressure;
+
+    @Data
+    public static class Backpressure implements Serializable {
+
+        /**
+         * Pause when number of messages being processed reaches the value.
+         */
+        private Integer maxInFlight;
+        /**
+         * Pause when {@code latencyPercentile} of processing time in ms over {@code latencyWindow} exceeds the value.
+         */
+        private Long maxLatency;
+        private Double latencyPercentile = 0.99;
+        private Long latencyWindow = 10_000L;
+        /**
+         * Interval in ms of checks to resume the paused consumer.
+         */
+        private Long checkInterval = 1000L;
+    }
 }
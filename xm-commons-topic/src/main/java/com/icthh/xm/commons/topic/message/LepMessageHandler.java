@@ -12,6 +12,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -32,6 +34,19 @@ public class LepMessageHandler implements MessageHandler {
         }
     }
 
+    /**
+     * Handle batch with tenant and LEP context set up once for all messages.
+     */
+    @Override
+    public void onMessages(List<String> messages, String tenant, TopicConfig topicConfig) {
+        try {
+            init(tenant);
+            messageListenerService.onMessages(messages, topicConfig);
+        } finally {
+            destroy();
+        }
+    }
+
     private void init(String tenantKey) {
         TenantContextUtils.setTenant(tenantContextHolder, tenantKey);
 
@@ -0,0 +1,18 @@
+package com.icthh.xm.commons.topic.message;
+
+/**
+ * Failure of a message batch processing. Messages before {@link #getFailedIndex()} are processed.
+ */
+public class MessageBatchException extends RuntimeException {
+
+    private final int failedIndex;
+
+    public MessageBatchException(int failedIndex, Throwable cause) {
+        super("Processing of batch message " + failedIndex + " failed", cause);
+        this.failedIndex = failedIndex;
+    }
+
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+}
@@ -2,7 +2,27 @@ package com.icthh.xm.commons.topic.message;
 
 import com.icthh.xm.commons.topic.domain.TopicConfig;
 
+import java.util.List;
+
 public interface MessageHandler {
 
     void onMessage(String message, String tenant, TopicConfig topicConfig);
+
+    /**
+     * Handle batch of messages of the topic with {@code batch} mode.
+     *
+     * @param messages the messages in the partition offset order
+     * @param tenant the tenant key
+     * @param topicConfig the topic config
+     * @throws MessageBatchException with index of the first failed message
+     */
+    default void onMessages(List<String> messages, String tenant, TopicConfig topicConfig) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                onMessage(messages.get(i), tenant, topicConfig);
+            } catch (RuntimeException e) {
+                throw new MessageBatchException(i, e);
+            }
+        }
+    }
 }
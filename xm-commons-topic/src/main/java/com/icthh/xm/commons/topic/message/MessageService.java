@@ -5,9 +5,14 @@ import com.icthh.xm.commons.lep.spring.LepService;
 import com.icthh.xm.commons.logging.aop.IgnoreLogginAspect;
 import com.icthh.xm.commons.topic.domain.TopicConfig;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Slf4j
 @Service
 @Transactional
@@ -15,8 +20,32 @@ import org.springframework.transaction.annotation.Transactional;
 @LepService(group = "topic")
 public class MessageService {
 
+    @Autowired
+    @Lazy
+    private MessageService self;
+
     @LogicExtensionPoint(value = "OnMessage", resolver = MessageTypeKeyResolver.class)
     public void onMessage(String topicMessage, TopicConfig topicConfig) {
         log.error("No handlers for event: {} and topic config: {} found", topicMessage, topicConfig);
     }
+
+    /**
+     * Handle batch of messages. Without batch LEP every message is passed to {@code OnMessage} LEP
+     * in own transaction, so messages before the failed one stay committed.
+     *
+     * @param topicMessages the messages
+     * @param topicConfig the topic config
+     * @throws MessageBatchException with index of the first failed message
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @LogicExtensionPoint(value = "OnMessages", resolver = MessageTypeKeyResolver.class)
+    public void onMessages(List<String> topicMessages, TopicConfig topicConfig) {
+        for (int i = 0; i < topicMessages.size(); i++) {
+            try {
+                self.onMessage(topicMessages.get(i), topicConfig);
+            } catch (RuntimeException e) {
+                throw new MessageBatchException(i, e);
+            }
+        }
+    }
 }
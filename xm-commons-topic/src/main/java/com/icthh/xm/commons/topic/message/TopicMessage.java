@@ -0,0 +1,152 @@
+package com.icthh.xm.commons.topic.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Consumed message with the raw body. The body is decoded from UTF-8 and parsed as JSON only when requested,
+ * at most once.
+ */
+public class TopicMessage {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String TRUNCATED = "...";
+    private static final int UTF8_CONTINUATION_MASK = 0xc0;
+    private static final int UTF8_CONTINUATION = 0x80;
+
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final String key;
+    private final byte[] value;
+    private final Headers headers;
+
+    private String body;
+    private JsonNode json;
+
+    public TopicMessage(String topic, int partition, long offset, String key, byte[] value, Headers headers) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.key = key;
+        this.value = value;
+        this.headers = headers;
+    }
+
+    public static TopicMessage of(ConsumerRecord<String, byte[]> record) {
+        return new TopicMessage(record.topic(), record.partition(), record.offset(), record.key(), record.value(),
+            record.headers());
+    }
+
+    /**
+     * Create message of the decoded body, without topic, key and headers.
+     *
+     * @param body the message body
+     * @return message
+     */
+    public static TopicMessage of(String body) {
+        TopicMessage message = new TopicMessage(null, -1, -1, null,
+            body == null ? null : body.getBytes(StandardCharsets.UTF_8), new RecordHeaders());
+        message.body = body;
+        return message;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Get the last value of the header decoded from UTF-8.
+     *
+     * @param name the header name
+     * @return header value or null
+     */
+    public String getHeader(String name) {
+        Header header = headers.lastHeader(name);
+        return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the raw body, null for tombstone records. The array is not copied and must not be modified.
+     *
+     * @return body bytes
+     */
+    public byte[] getBytes() {
+        return value;
+    }
+
+    public int getSize() {
+        return value == null ? 0 : value.length;
+    }
+
+    /**
+     * Get the body decoded from UTF-8.
+     *
+     * @return body or null
+     */
+    public String getBody() {
+        if (body == null && value != null) {
+            body = new String(value, StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+
+    /**
+     * Get the body parsed as JSON tree.
+     *
+     * @return JSON tree, null for tombstone records
+     * @throws UncheckedIOException if the body is not a valid JSON
+     */
+    public JsonNode getJson() {
+        if (json == null && value != null) {
+            try {
+                json = OBJECT_MAPPER.readTree(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Message body is not a valid JSON", e);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Get the body decoded up to the limit for logging, without decoding the rest of the body.
+     *
+     * @param limit max number of bytes to decode, the whole body if null
+     * @return body preview, cut at a character boundary
+     */
+    public String getBodyPreview(Integer limit) {
+        if (value == null || limit == null || value.length <= limit) {
+            return getBody();
+        }
+        int end = limit;
+        // do not split a multi-byte character: skip back while the first cut byte is a continuation byte
+        while (end > 0 && (value[end] & UTF8_CONTINUATION_MASK) == UTF8_CONTINUATION) {
+            end--;
+        }
+        return new String(value, 0, end, StandardCharsets.UTF_8) + TRUNCATED;
+    }
+}
@@ -0,0 +1,81 @@
+package com.icthh.xm.commons.topic.message;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message handler with access to the raw body, key and headers of consumed records. Implement it instead of
+ * {@link MessageHandler} to skip decoding of the whole body or to route messages by key and headers.
+ */
+public interface TopicMessageHandler extends MessageHandler {
+
+    void onTopicMessage(TopicMessage message, String tenant, TopicConfig topicConfig);
+
+    /**
+     * Handle batch of messages of the topic with {@code batch} mode.
+     *
+     * @param messages the messages in the partition offset order
+     * @param tenant the tenant key
+     * @param topicConfig the topic config
+     * @throws MessageBatchException with index of the first failed message
+     */
+    default void onTopicMessages(List<TopicMessage> messages, String tenant, TopicConfig topicConfig) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                onTopicMessage(messages.get(i), tenant, topicConfig);
+            } catch (RuntimeException e) {
+                throw new MessageBatchException(i, e);
+            }
+        }
+    }
+
+    @Override
+    default void onMessage(String message, String tenant, TopicConfig topicConfig) {
+        onTopicMessage(TopicMessage.of(message), tenant, topicConfig);
+    }
+
+    @Override
+    default void onMessages(List<String> messages, String tenant, TopicConfig topicConfig) {
+        List<TopicMessage> topicMessages = new ArrayList<>(messages.size());
+        messages.forEach(message -> topicMessages.add(TopicMessage.of(message)));
+        onTopicMessages(topicMessages, tenant, topicConfig);
+    }
+
+    /**
+     * Adapt the handler of decoded messages, bodies are decoded right before the handler call.
+     *
+     * @param messageHandler the message handler
+     * @return the same handler if it is a {@code TopicMessageHandler}, adapter otherwise
+     */
+    static TopicMessageHandler adapt(MessageHandler messageHandler) {
+        if (messageHandler instanceof TopicMessageHandler) {
+            return (TopicMessageHandler) messageHandler;
+        }
+        return new TopicMessageHandler() {
+
+            @Override
+            public void onTopicMessage(TopicMessage message, String tenant, TopicConfig topicConfig) {
+                messageHandler.onMessage(message.getBody(), tenant, topicConfig);
+            }
+
+            @Override
+            public void onTopicMessages(List<TopicMessage> messages, String tenant, TopicConfig topicConfig) {
+                List<String> bodies = new ArrayList<>(messages.size());
+                messages.forEach(message -> bodies.add(message.getBody()));
+                messageHandler.onMessages(bodies, tenant, topicConfig);
+            }
+
+            @Override
+            public void onMessage(String message, String tenant, TopicConfig topicConfig) {
+                messageHandler.onMessage(message, tenant, topicConfig);
+            }
+
+            @Override
+            public void onMessages(List<String> messages, String tenant, TopicConfig topicConfig) {
+                messageHandler.onMessages(messages, tenant, topicConfig);
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.icthh.xm.commons.topic.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.apache.kafka.common.MetricName;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Gauges of the kafka producer {@code producer-metrics} group.
+ */
+public class KafkaProducerMetricsSet implements MetricSet {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+    private static final List<String> PRODUCER_METRICS = Arrays.asList(
+        "record-send-rate",
+        "record-error-rate",
+        "batch-size-avg",
+        "compression-rate-avg",
+        "records-per-request-avg",
+        "request-latency-avg",
+        "buffer-available-bytes");
+
+    private final Supplier<Map<MetricName, ? extends org.apache.kafka.common.Metric>> producerMetrics;
+
+    public KafkaProducerMetricsSet(Supplier<Map<MetricName, ? extends org.apache.kafka.common.Metric>> metrics) {
+        this.producerMetrics = metrics;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        PRODUCER_METRICS.forEach(name -> metrics.put(name, (Gauge<Object>) () -> getValue(name)));
+        return metrics;
+    }
+
+    private Object getValue(String name) {
+        return producerMetrics.get().entrySet().stream()
+            .filter(metric -> PRODUCER_METRICS_GROUP.equals(metric.getKey().group()))
+            .filter(metric -> name.equals(metric.getKey().name()))
+            .map(metric -> metric.getValue().metricValue())
+            .findFirst()
+            .orElse(null);
+    }
+}
@@ -1,18 +1,80 @@
 package com.icthh.xm.commons.topic.service;
 
+import com.codahale.metrics.MetricRegistry;
 import com.icthh.xm.commons.logging.LoggingAspectConfig;
-import lombok.RequiredArgsConstructor;
+import com.icthh.xm.commons.tenant.TenantContextHolder;
+import com.icthh.xm.commons.tenant.TenantContextUtils;
+import com.icthh.xm.commons.tenant.TenantKey;
+import com.icthh.xm.commons.topic.config.TopicProducerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+@Slf4j
 @Service
-@RequiredArgsConstructor
 @LoggingAspectConfig(resultDetails = false)
-public class KafkaTemplateService {
+public class KafkaTemplateService implements DisposableBean {
+
+    private static final String PRODUCER_METRIC = "kafka.producer";
+    private static final String PROFILE_PRODUCER_METRIC = "kafka.producer.profile.";
 
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaProperties kafkaProperties;
+    private final TopicProducerProperties producerProperties;
+    private final TenantContextHolder tenantContextHolder;
+    private final MetricRegistry metricRegistry;
+
+    private final Map<String, KafkaTemplate<String, String>> profileTemplates = new ConcurrentHashMap<>();
+    private final Map<String, DefaultKafkaProducerFactory<String, String>> profileProducerFactories =
+        new ConcurrentHashMap<>();
+    /**
+     * Templates used to send, their producers are created and metrics can be read without creating a producer.
+     */
+    private final Set<KafkaTemplate<String, String>> sendingTemplates = ConcurrentHashMap.newKeySet();
+    private final List<String> metricNames = new CopyOnWriteArrayList<>();
+
+    public KafkaTemplateService(KafkaTemplate<String, String> kafkaTemplate) {
+        this(kafkaTemplate, null, new TopicProducerProperties(), null, null);
+    }
+
+    @Autowired
+    public KafkaTemplateService(KafkaTemplate<String, String> kafkaTemplate,
+                                KafkaProperties kafkaProperties,
+                                TopicProducerProperties producerProperties,
+                                ObjectProvider<TenantContextHolder> tenantContextHolder,
+                                ObjectProvider<MetricRegistry> metricRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.kafkaProperties = kafkaProperties;
+        this.producerProperties = producerProperties;
+        this.tenantContextHolder = tenantContextHolder == null ? null : tenantContextHolder.getIfAvailable();
+        this.metricRegistry = metricRegistry == null ? null : metricRegistry.getIfAvailable();
+        registerMetrics(PRODUCER_METRIC, kafkaTemplate);
+    }
 
     /**
      * Send the data to the provided topic with no key or partition.
@@ -22,7 +84,7 @@ public class KafkaTemplateService {
      * @return a Future for the {@link SendResult}.
      **/
     public ListenableFuture<SendResult<String, String>> send(String topic, String data) {
-        return kafkaTemplate.send(topic, data);
+        return getKafkaTemplate().send(topic, data);
     }
 
     /**
@@ -38,6 +100,151 @@ public class KafkaTemplateService {
                                                              Integer partition,
                                                              String key,
                                                              String data) {
-        return kafkaTemplate.send(topic, partition, key, data);
+        return getKafkaTemplate().send(topic, partition, key, data);
+    }
+
+    /**
+     * Send the data to the provided topic with the provided key and headers.
+     *
+     * @param topic   the topic.
+     * @param key     the key.
+     * @param data    the data.
+     * @param headers the headers, values are written in UTF-8.
+     * @return a Future for the {@link SendResult}.
+     */
+    public ListenableFuture<SendResult<String, String>> send(String topic,
+                                                             String key,
+                                                             String data,
+                                                             Map<String, String> headers) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, data);
+        headers.forEach((name, value) -> record.headers().add(name, value.getBytes(StandardCharsets.UTF_8)));
+        return send(record);
+    }
+
+    /**
+     * Send the provided record.
+     *
+     * @param record the record.
+     * @return a Future for the {@link SendResult}.
+     */
+    public ListenableFuture<SendResult<String, String>> send(ProducerRecord<String, String> record) {
+        return getKafkaTemplate().send(record);
+    }
+
+    /**
+     * Send the records without waiting for each result, so the producer batches them according to
+     * {@code linger.ms} and {@code batch.size} of the tenant profile.
+     *
+     * @param records the records.
+     * @return a Future for the {@link SendResult}s in the order of records, failed with the first send error.
+     *     Records after a record which fails to be sent synchronously, e.g. on serialization, are not sent.
+     */
+    @LoggingAspectConfig(inputCollectionAware = true, resultDetails = false)
+    public ListenableFuture<List<SendResult<String, String>>> sendAll(List<ProducerRecord<String, String>> records) {
+        SettableListenableFuture<List<SendResult<String, String>>> result = new SettableListenableFuture<>();
+        if (records.isEmpty()) {
+            result.set(Collections.emptyList());
+            return result;
+        }
+
+        KafkaTemplate<String, String> template = getKafkaTemplate();
+        AtomicReferenceArray<SendResult<String, String>> results = new AtomicReferenceArray<>(records.size());
+        AtomicInteger pending = new AtomicInteger(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            int index = i;
+            ListenableFuture<SendResult<String, String>> sent;
+            try {
+                sent = template.send(records.get(i));
+            } catch (RuntimeException e) {
+                result.setException(e);
+                return result;
+            }
+            sent.addCallback(sendResult -> {
+                results.set(index, sendResult);
+                if (pending.decrementAndGet() == 0) {
+                    result.set(toList(results));
+                }
+            }, result::setException);
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        metricNames.forEach(this::removeMetrics);
+        profileProducerFactories.values().forEach(DefaultKafkaProducerFactory::destroy);
+    }
+
+    private KafkaTemplate<String, String> getKafkaTemplate() {
+        KafkaTemplate<String, String> template = getTenantKey()
+            .map(producerProperties.getTenantProfiles()::get)
+            .map(profile -> profileTemplates.computeIfAbsent(profile, this::createKafkaTemplate))
+            .orElse(kafkaTemplate);
+        if (!sendingTemplates.contains(template)) {
+            sendingTemplates.add(template);
+        }
+        return template;
+    }
+
+    private Optional<String> getTenantKey() {
+        if (tenantContextHolder == null || producerProperties.getTenantProfiles().isEmpty()) {
+            return Optional.empty();
+        }
+        return TenantContextUtils.getTenantKey(tenantContextHolder).map(TenantKey::getValue);
+    }
+
+    private KafkaTemplate<String, String> createKafkaTemplate(String profileName) {
+        TopicProducerProperties.Profile profile = producerProperties.getProfiles().get(profileName);
+        if (profile == null || kafkaProperties == null) {
+            log.warn("Producer profile {} is not defined, default producer is used", profileName);
+            return kafkaTemplate;
+        }
+
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        putIfNotNull(props, ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+        putIfNotNull(props, ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+        putIfNotNull(props, ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+        putIfNotNull(props, ProducerConfig.ACKS_CONFIG, profile.getAcks());
+        putIfNotNull(props, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, profile.getEnableIdempotence());
+
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+            new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new StringSerializer());
+        profileProducerFactories.put(profileName, producerFactory);
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+        registerMetrics(PROFILE_PRODUCER_METRIC + profileName, template);
+        log.info("Producer of profile {} created", profileName);
+        return template;
+    }
+
+    private void registerMetrics(String name, KafkaTemplate<String, String> template) {
+        if (metricRegistry != null) {
+            // metrics of the previous service instance are replaced, e.g. on context restart with shared registry
+            removeMetrics(name);
+            metricRegistry.register(name, new KafkaProducerMetricsSet(() -> getProducerMetrics(template)));
+            metricNames.add(name);
+        }
+    }
+
+    private void removeMetrics(String name) {
+        metricRegistry.removeMatching((metricName, metric) -> metricName.startsWith(name + "."));
+    }
+
+    private Map<MetricName, ? extends Metric> getProducerMetrics(KafkaTemplate<String, String> template) {
+        // template metrics create the producer, so it is not created by metrics scrape before the first send
+        return sendingTemplates.contains(template) ? template.metrics() : Collections.emptyMap();
+    }
+
+    private static void putIfNotNull(Map<String, Object> props, String name, Object value) {
+        if (value != null) {
+            props.put(name, value);
+        }
+    }
+
+    private static <T> List<T> toList(AtomicReferenceArray<T> array) {
+        List<T> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.get(i));
+        }
+        return list;
     }
 }
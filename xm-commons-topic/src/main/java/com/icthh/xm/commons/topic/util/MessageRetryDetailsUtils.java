@@ -1,59 +1,50 @@
 package com.icthh.xm.commons.topic.util;
 
-import com.icthh.xm.commons.logging.util.MdcUtils;
+import com.icthh.xm.commons.topic.config.MessageRetryTracker;
 import lombok.Data;
 import lombok.experimental.UtilityClass;
-import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import java.math.BigInteger;
-import java.util.Date;
-import java.util.concurrent.ConcurrentHashMap;
 
-@Slf4j
+/**
+ * Retry details of records processed outside of topic listener containers.
+ *
+ * @deprecated topic listener containers track retry details with own {@link MessageRetryTracker}, create a tracker
+ *     for custom consumers instead. Details are kept in a shared bounded tracker, the class will be removed in the
+ *     next release.
+ */
+@Deprecated
 @UtilityClass
 public class MessageRetryDetailsUtils {
 
-    private static ConcurrentHashMap<Record, MessageRetryDetails> retryDetails = new ConcurrentHashMap<>();
+    private static final int RETRY_TRACKER_CAPACITY = 10000;
 
-    public static MessageRetryDetails getUpdatedOrGenerateRetryDetails(ConsumerRecord<String, String> message) {
-        Record record = new Record(message);
-        MessageRetryDetails messageRetryDetails = retryDetails.get(record);
-        log.debug("find retry details: {} for kafka message: {}", messageRetryDetails, message);
-
-        if (messageRetryDetails == null) {
-            messageRetryDetails = new MessageRetryDetails();
-            messageRetryDetails.setRid(MdcUtils.generateRid());
-            messageRetryDetails.setRetryCount(BigInteger.ONE);
-            messageRetryDetails.setStartProcessTime(new Date().getTime());
-            retryDetails.put(record, messageRetryDetails);
-            log.debug("created retry details: {}, {}", record, messageRetryDetails);
-        } else {
-            messageRetryDetails.setRetryCount(messageRetryDetails.getRetryCount().add(BigInteger.ONE));
-        }
+    private static final MessageRetryTracker RETRY_TRACKER = new MessageRetryTracker(RETRY_TRACKER_CAPACITY);
 
+    public static MessageRetryDetails getUpdatedOrGenerateRetryDetails(ConsumerRecord<String, String> message) {
+        MessageRetryTracker.RetryDetails details = RETRY_TRACKER.onAttempt(message);
+        MessageRetryDetails messageRetryDetails = new MessageRetryDetails();
+        messageRetryDetails.setRid(details.getRid());
+        messageRetryDetails.setRetryCount(BigInteger.valueOf(details.getRetryCount()));
+        messageRetryDetails.setStartProcessTime(details.getStartProcessTime());
         return messageRetryDetails;
     }
 
     public static BigInteger getRetryCounter(ConsumerRecord<?, ?> message) {
-        Record record = new Record(message);
-        return  retryDetails.get(record) == null ? null : retryDetails.get(record).getRetryCount();
-
+        return RETRY_TRACKER.get(message).map(details -> BigInteger.valueOf(details.getRetryCount())).orElse(null);
     }
 
     public static Long getTotalProcessingTime(ConsumerRecord<?, ?> message) {
-        MessageRetryDetails messageRetryDetails = retryDetails.get(new Record(message));
-        return messageRetryDetails == null ? null : new Date().getTime() - messageRetryDetails.getStartProcessTime();
+        return RETRY_TRACKER.get(message).map(MessageRetryTracker.RetryDetails::getProcessingTime).orElse(null);
     }
 
     public static String getRid(ConsumerRecord<?, ?> message) {
-        Record record = new Record(message);
-        return retryDetails.get(record) == null ? null : retryDetails.get(record).getRid();
+        return RETRY_TRACKER.get(message).map(MessageRetryTracker.RetryDetails::getRid).orElse(null);
     }
 
     public static void delete(ConsumerRecord<?, ?> message) {
-        MessageRetryDetails result = retryDetails.remove(new Record(message));
-        log.debug("deleted retry details: {}, for message: {}", result, message);
+        RETRY_TRACKER.remove(message);
     }
 
     @Data
@@ -62,20 +53,4 @@ public class MessageRetryDetailsUtils {
         private BigInteger retryCount;
         private long startProcessTime;
     }
-
-    @Data
-    private static class Record {
-        private String topic;
-        private int partition;
-        private long offset;
-        private long timestamp;
-
-        Record(ConsumerRecord<?, ?> message) {
-            this.topic = message.topic();
-            this.partition = message.partition();
-            this.offset = message.offset();
-            this.timestamp = message.timestamp();
-        }
-    }
-
 }
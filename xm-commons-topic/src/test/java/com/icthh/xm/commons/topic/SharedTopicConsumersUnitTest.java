@@ -0,0 +1,73 @@
+package com.icthh.xm.commons.topic;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.icthh.xm.commons.topic.config.SharedMessageListener;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedTopicConsumersUnitTest {
+
+    private AbstractMessageListenerContainer container;
+    private MessageHandler messageHandler;
+    private AtomicInteger created;
+    private SharedTopicConsumers sharedConsumers;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        container = mock(AbstractMessageListenerContainer.class);
+        messageHandler = mock(MessageHandler.class);
+        created = new AtomicInteger();
+        sharedConsumers = new SharedTopicConsumers(singletonList(topicConfig("shared", ".*_events", false)),
+            mock(KafkaTemplate.class), (TopicConfig config, SharedMessageListener listener) -> {
+                created.incrementAndGet();
+                return container;
+            });
+    }
+
+    @Test
+    public void testSharedConfig() {
+        assertTrue(sharedConsumers.isShared(topicConfig("key", "tenant1_events", true)));
+        assertFalse(sharedConsumers.isShared(topicConfig("key", "tenant1_events", false)));
+        assertFalse(sharedConsumers.isShared(topicConfig("key", "tenant1_commands", true)));
+    }
+
+    @Test
+    public void testContainerSharedByTenants() {
+        sharedConsumers.update("tenant1", singletonList(topicConfig("key", "tenant1_events", true)), messageHandler);
+        sharedConsumers.update("tenant2", singletonList(topicConfig("key", "tenant2_events", true)), messageHandler);
+
+        verify(container).start();
+
+        sharedConsumers.update("tenant1", emptyList(), messageHandler);
+        verify(container, never()).stop(any(Runnable.class));
+
+        sharedConsumers.update("tenant2", emptyList(), messageHandler);
+        verify(container, times(1)).stop(any(Runnable.class));
+        assertEquals(1, created.get());
+    }
+
+    private static TopicConfig topicConfig(String key, String topicName, boolean shared) {
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setKey(key);
+        topicConfig.setTopicName(topicName);
+        topicConfig.setShared(shared);
+        return topicConfig;
+    }
+}
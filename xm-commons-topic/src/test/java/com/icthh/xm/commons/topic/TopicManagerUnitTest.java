@@ -3,12 +3,16 @@ package com.icthh.xm.commons.topic;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 import com.icthh.xm.commons.topic.domain.ConsumerHolder;
 import com.icthh.xm.commons.topic.message.MessageHandler;
@@ -26,12 +30,14 @@ import org.springframework.kafka.listener.AbstractMessageListenerContainer;
 
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TopicManagerUnitTest {
 
     private static final String UPDATE_KEY = "/config/tenants/test/some-ms/topic-consumers.yml";
     private static final String TENANT_KEY = "test";
+    private static final String OTHER_UPDATE_KEY = "/config/tenants/other/some-ms/topic-consumers.yml";
     private static final String APP_NAME = "some-ms";
     private static final String CONFIG_1 = "topic-consumers-1.yml";
     private static final String CONFIG_2 = "topic-consumers-2.yml";
@@ -58,6 +64,7 @@ public class TopicManagerUnitTest {
     public void setUp() {
         topicManager = spy(new TopicManager(APP_NAME, kafkaProperties, kafkaTemplate, messageHandler));
         doReturn(container).when(topicManager).buildListenerContainer(any(), any());
+        mockStop();
     }
 
     @Test
@@ -65,7 +72,7 @@ public class TopicManagerUnitTest {
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         verify(container, times(3)).start();
-        verify(container, times(0)).stop();
+        verify(container, times(0)).stop(any(Runnable.class));
 
         Map<String, Map<String, ConsumerHolder>> topicConsumers = topicManager.getTenantTopicConsumers();
         assertEquals(1, topicConsumers.keySet().size());
@@ -83,11 +90,12 @@ public class TopicManagerUnitTest {
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         reset(container);
+        mockStop();
 
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_2));
 
         verify(container, times(0)).start();
-        verify(container, times(1)).stop();
+        verify(container, times(1)).stop(any(Runnable.class));
 
         Map<String, Map<String, ConsumerHolder>> topicConsumers = topicManager.getTenantTopicConsumers();
         assertEquals(1, topicConsumers.keySet().size());
@@ -104,10 +112,11 @@ public class TopicManagerUnitTest {
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         reset(container);
+        mockStop();
 
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_3));
 
-        verify(container, times(1)).stop();
+        verify(container, times(1)).stop(any(Runnable.class));
         verify(container, times(1)).start();
 
         Map<String, Map<String, ConsumerHolder>> topicConsumers = topicManager.getTenantTopicConsumers();
@@ -129,10 +138,11 @@ public class TopicManagerUnitTest {
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         reset(container);
+        mockStop();
 
         topicManager.onRefresh(UPDATE_KEY, null);
 
-        verify(container, times(3)).stop();
+        verify(container, times(3)).stop(any(Runnable.class));
         verify(container, times(0)).start();
 
         Map<String, Map<String, ConsumerHolder>> topicConsumers = topicManager.getTenantTopicConsumers();
@@ -144,12 +154,52 @@ public class TopicManagerUnitTest {
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         reset(container);
+        mockStop();
 
         topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
 
         verifyNoMoreInteractions(container);
     }
 
+    @Test(timeout = 10_000)
+    public void testUpdatingOfNotRunningConsumer() {
+        topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
+
+        reset(container);
+        when(container.isRunning()).thenReturn(false);
+
+        topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_3));
+
+        verify(container, never()).stop(any(Runnable.class));
+        verify(container, times(1)).start();
+    }
+
+    @Test(timeout = 10_000)
+    public void testInitNotWaitingForConsumersStart() throws Exception {
+        CountDownLatch startAllowed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            startAllowed.await();
+            return null;
+        }).when(container).start();
+
+        topicManager.onInit(UPDATE_KEY, readConfig(CONFIG_1));
+        topicManager.onInit(OTHER_UPDATE_KEY, readConfig(CONFIG_1));
+        assertEquals(2, topicManager.getTenantTopicConsumers().size());
+
+        startAllowed.countDown();
+        topicManager.onRefresh(UPDATE_KEY, readConfig(CONFIG_1));
+
+        verify(container, times(6)).start();
+    }
+
+    private void mockStop() {
+        lenient().when(container.isRunning()).thenReturn(true);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(container).stop(any(Runnable.class));
+    }
+
     @SneakyThrows
     private String readConfig(String name) {
         return IOUtils.toString(this.getClass().getResourceAsStream("/config/" + name), Charset.defaultCharset());
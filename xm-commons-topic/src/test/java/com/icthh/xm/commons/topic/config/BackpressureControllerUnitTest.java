@@ -0,0 +1,164 @@
+package com.icthh.xm.commons.topic.config;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import com.icthh.xm.commons.topic.message.TopicMessage;
+import com.icthh.xm.commons.topic.message.TopicMessageHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BackpressureControllerUnitTest {
+
+    private static final String TENANT = "test";
+    private static final long CHECK_INTERVAL = 10;
+
+    private MessageHandler messageHandler;
+    private MessageListenerContainer container;
+    private TopicConfig topicConfig;
+
+    @Before
+    public void before() {
+        messageHandler = mock(MessageHandler.class);
+        container = mock(MessageListenerContainer.class);
+        AtomicBoolean paused = new AtomicBoolean();
+        when(container.isRunning()).thenReturn(true);
+        when(container.isPauseRequested()).thenAnswer(invocation -> paused.get());
+        doAnswer(invocation -> {
+            paused.set(true);
+            return null;
+        }).when(container).pause();
+        doAnswer(invocation -> {
+            paused.set(false);
+            return null;
+        }).when(container).resume();
+
+        topicConfig = new TopicConfig();
+        topicConfig.setKey("key");
+        topicConfig.setTopicName("queue");
+    }
+
+    @Test
+    public void testNotCreatedWithoutSignals() {
+        assertNull(BackpressureController.create(TENANT, topicConfig, emptyList()));
+
+        topicConfig.setBackpressure(new TopicConfig.Backpressure());
+        assertNull(BackpressureController.create(TENANT, topicConfig, emptyList()));
+
+        assertNotNull(BackpressureController.create(TENANT, new TopicConfig(),
+            singletonList(BackpressureSignal.healthProbe(() -> true))));
+    }
+
+    @Test
+    public void testPausedWhileInFlightLimitReached() {
+        TopicConfig.Backpressure backpressure = new TopicConfig.Backpressure();
+        backpressure.setMaxInFlight(1);
+        backpressure.setCheckInterval(CHECK_INTERVAL);
+        topicConfig.setBackpressure(backpressure);
+        BackpressureController controller = BackpressureController.create(TENANT, topicConfig, emptyList());
+        controller.attach(container);
+        TopicMessageHandler handler = controller.wrap(messageHandler);
+        doAnswer(invocation -> {
+            assertEquals(1, controller.getInFlight());
+            assertTrue(controller.isPaused());
+            return null;
+        }).when(messageHandler).onMessage(eq("body"), eq(TENANT), any());
+
+        handler.onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+
+        verify(messageHandler).onMessage(eq("body"), eq(TENANT), any());
+        verify(container).pause();
+        verify(container, timeout(1000)).resume();
+        assertEquals(0, controller.getInFlight());
+        assertFalse(controller.isPaused());
+    }
+
+    @Test
+    public void testResumedAfterProcessingWithoutWaitingForCheck() {
+        TopicConfig.Backpressure backpressure = new TopicConfig.Backpressure();
+        backpressure.setMaxInFlight(1);
+        backpressure.setCheckInterval(TimeUnit.MINUTES.toMillis(1));
+        topicConfig.setBackpressure(backpressure);
+        BackpressureController controller = BackpressureController.create(TENANT, topicConfig, emptyList());
+        controller.attach(container);
+
+        controller.wrap(messageHandler).onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+
+        verify(container).pause();
+        verify(container).resume();
+        assertFalse(controller.isPaused());
+    }
+
+    @Test
+    public void testNotResumedIfPausedByOthers() {
+        BackpressureController controller = new BackpressureController(TENANT,
+            singletonList(BackpressureSignal.healthProbe(() -> true)), 1000, CHECK_INTERVAL);
+        controller.attach(container);
+        container.pause();
+
+        controller.wrap(messageHandler).onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+
+        verify(container, never()).resume();
+        assertTrue(controller.isPaused());
+    }
+
+    @Test
+    public void testPausedTillHealthProbeRecovered() throws InterruptedException {
+        AtomicBoolean healthy = new AtomicBoolean(true);
+        BackpressureController controller = new BackpressureController(TENANT,
+            singletonList(BackpressureSignal.healthProbe(healthy::get)), 1000, CHECK_INTERVAL);
+        controller.attach(container);
+        TopicMessageHandler handler = controller.wrap(messageHandler);
+
+        handler.onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+        verify(container, never()).pause();
+
+        healthy.set(false);
+        handler.onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+        handler.onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+        Thread.sleep(5 * CHECK_INTERVAL);
+        verify(container, times(1)).pause();
+        verify(container, never()).resume();
+
+        healthy.set(true);
+        verify(container, timeout(1000)).resume();
+    }
+
+    @Test
+    public void testPausedTillLatencyWindowPassed() {
+        BackpressureController controller = new BackpressureController(TENANT,
+            singletonList(BackpressureSignal.maxLatency(0.99, 1, TimeUnit.MILLISECONDS)), 100, CHECK_INTERVAL);
+        controller.attach(container);
+        doAnswer(invocation -> {
+            Thread.sleep(5);
+            return null;
+        }).when(messageHandler).onMessage(any(), any(), any());
+
+        controller.wrap(messageHandler).onTopicMessage(TopicMessage.of("body"), TENANT, topicConfig);
+
+        assertTrue(controller.getLatency(0.99) > TimeUnit.MILLISECONDS.toNanos(1));
+        verify(container).pause();
+        verify(container, timeout(1000)).resume();
+        assertEquals(0, controller.getLatency(0.99), 0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.icthh.xm.commons.topic.config;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageBatchException;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class BatchMessageListenerUnitTest {
+
+    private static final String TENANT = "test";
+    private static final String TOPIC = "kafka-queue";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final List<ConsumerRecord<String, byte[]>> records = asList(
+        new ConsumerRecord<>(TOPIC, 0, 10, null, bytes("first")),
+        new ConsumerRecord<>(TOPIC, 0, 11, null, bytes("second")),
+        new ConsumerRecord<>(TOPIC, 0, 12, null, bytes("third")));
+
+    private MessageHandler messageHandler;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private Acknowledgment acknowledgment;
+    private Consumer<?, ?> consumer;
+    private BatchMessageListener listener;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        messageHandler = mock(MessageHandler.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        acknowledgment = mock(Acknowledgment.class);
+        consumer = mock(Consumer.class);
+
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setTopicName(TOPIC);
+        topicConfig.setRetriesCount(2);
+        topicConfig.setBackOffPeriod(0L);
+        topicConfig.setDeadLetterQueue("dead-letter-queue");
+        topicConfig.setBatch(true);
+        listener = new BatchMessageListener(messageHandler, TENANT, topicConfig,
+            new ConsumerRecoveryCallback(TENANT, topicConfig, kafkaTemplate, new MessageRetryTracker(10)));
+    }
+
+    @Test
+    public void testBatchAcknowledgedOnce() {
+        listener.onMessage(records, acknowledgment, consumer);
+
+        verify(messageHandler).onMessages(eq(asList("first", "second", "third")), eq(TENANT), any());
+        verify(acknowledgment).acknowledge();
+        verify(consumer, never()).seek(any(), anyLong());
+    }
+
+    @Test
+    public void testSeekToFirstFailedRecord() {
+        doThrow(new MessageBatchException(1, new IllegalStateException()))
+            .when(messageHandler).onMessages(any(), any(), any());
+
+        listener.onMessage(records, acknowledgment, consumer);
+
+        verify(acknowledgment, never()).acknowledge();
+        verify(consumer).commitSync(singletonMap(PARTITION, new OffsetAndMetadata(11)));
+        verify(consumer).seek(PARTITION, 11);
+    }
+
+    @Test
+    public void testSeekToBatchStartOnUnknownFailure() {
+        doThrow(new IllegalStateException()).when(messageHandler).onMessages(any(), any(), any());
+
+        listener.onMessage(records, acknowledgment, consumer);
+
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer).seek(PARTITION, 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedRecordRecoveredWhenRetriesExceeded() {
+        doThrow(new MessageBatchException(1, new IllegalStateException()))
+            .doThrow(new MessageBatchException(0, new IllegalStateException()))
+            .when(messageHandler).onMessages(any(), any(), any());
+
+        listener.onMessage(records, acknowledgment, consumer);
+        listener.onMessage(records.subList(1, 3), acknowledgment, consumer);
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals("dead-letter-queue", captor.getValue().topic());
+        assertArrayEquals(bytes("second"), captor.getValue().value());
+        verify(consumer).commitSync(singletonMap(PARTITION, new OffsetAndMetadata(12)));
+        verify(consumer).seek(PARTITION, 12);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
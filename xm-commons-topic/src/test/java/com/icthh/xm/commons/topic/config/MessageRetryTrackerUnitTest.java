@@ -0,0 +1,77 @@
+package com.icthh.xm.commons.topic.config;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.icthh.xm.commons.topic.config.MessageRetryTracker.RetryDetails;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.junit.Test;
+
+public class MessageRetryTrackerUnitTest {
+
+    private static final String TOPIC = "kafka-queue";
+
+    private final MessageRetryTracker tracker = new MessageRetryTracker(2);
+
+    @Test
+    public void testRetryCountedByPartitionOffset() {
+        RetryDetails first = tracker.onAttempt(record(0, 10));
+        RetryDetails second = tracker.onAttempt(record(0, 10));
+        RetryDetails other = tracker.onAttempt(record(1, 10));
+
+        assertEquals(1, first.getRetryCount());
+        assertEquals(2, second.getRetryCount());
+        assertEquals(first.getRid(), second.getRid());
+        assertEquals(1, other.getRetryCount());
+        assertNotEquals(first.getRid(), other.getRid());
+    }
+
+    @Test
+    public void testTrackerIsBounded() {
+        tracker.onAttempt(record(0, 10));
+        tracker.onAttempt(record(0, 11));
+        tracker.onAttempt(record(0, 12));
+
+        assertEquals(2, tracker.size());
+        assertFalse(tracker.get(record(0, 10)).isPresent());
+    }
+
+    @Test
+    public void testRemovedOnPartitionRevocation() {
+        tracker.onAttempt(record(0, 10));
+        tracker.onAttempt(record(1, 10));
+
+        tracker.removePartitions(singleton(new TopicPartition(TOPIC, 0)));
+
+        assertFalse(tracker.get(record(0, 10)).isPresent());
+        assertTrue(tracker.get(record(1, 10)).isPresent());
+    }
+
+    @Test
+    public void testRetryDetailsContinuedFromHeaders() {
+        ConsumerRecord<String, String> failed = record(0, 10);
+        tracker.onAttempt(failed);
+        RetryDetails details = tracker.onAttempt(failed);
+        ProducerRecord<String, String> republished = new ProducerRecord<>("dead-letter-queue", "value");
+        MessageRetryTracker.putHeaders(republished.headers(), details);
+
+        ConsumerRecord<String, String> redelivered = record(0, 20);
+        for (Header header : republished.headers()) {
+            redelivered.headers().add(header);
+        }
+        RetryDetails continued = tracker.onAttempt(redelivered);
+
+        assertEquals(details.getRid(), continued.getRid());
+        assertEquals(3, continued.getRetryCount());
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, null, "value");
+    }
+}
@@ -0,0 +1,113 @@
+package com.icthh.xm.commons.topic.config;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ParallelMessageListenerUnitTest {
+
+    private static final String TENANT = "test";
+    private static final String TOPIC = "kafka-queue";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final List<ConsumerRecord<String, byte[]>> records = asList(
+        new ConsumerRecord<>(TOPIC, 0, 10, "a", bytes("a1")),
+        new ConsumerRecord<>(TOPIC, 0, 11, "b", bytes("b1")),
+        new ConsumerRecord<>(TOPIC, 0, 12, "a", bytes("a2")),
+        new ConsumerRecord<>(TOPIC, 0, 13, "b", bytes("b2")));
+
+    private MessageHandler messageHandler;
+    private ConsumerRecoveryCallback recoveryCallback;
+    private Acknowledgment acknowledgment;
+    private Consumer<?, ?> consumer;
+    private ExecutorService executor;
+    private ParallelMessageListener listener;
+
+    @Before
+    public void before() {
+        messageHandler = mock(MessageHandler.class);
+        recoveryCallback = mock(ConsumerRecoveryCallback.class);
+        acknowledgment = mock(Acknowledgment.class);
+        consumer = mock(Consumer.class);
+        executor = Executors.newFixedThreadPool(2);
+
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setTopicName(TOPIC);
+        topicConfig.setRetriesCount(1);
+        topicConfig.setBackOffPeriod(0L);
+        topicConfig.setParallelism(2);
+        listener = new ParallelMessageListener(new MessageListener(messageHandler, TENANT, topicConfig,
+            new MessageRetryTracker(10)),
+            new MessageRetryTemplate(topicConfig), recoveryCallback, executor);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRecordsOfKeyProcessedInOrder() {
+        listener.onMessage(records, acknowledgment, consumer);
+
+        InOrder keyA = inOrder(messageHandler);
+        keyA.verify(messageHandler).onMessage(eq("a1"), eq(TENANT), any());
+        keyA.verify(messageHandler).onMessage(eq("a2"), eq(TENANT), any());
+        InOrder keyB = inOrder(messageHandler);
+        keyB.verify(messageHandler).onMessage(eq("b1"), eq(TENANT), any());
+        keyB.verify(messageHandler).onMessage(eq("b2"), eq(TENANT), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testFailedRecordRecovered() {
+        doThrow(new IllegalStateException()).when(messageHandler).onMessage(eq("b1"), any(), any());
+
+        listener.onMessage(records, acknowledgment, consumer);
+
+        verify(recoveryCallback).recover(records.get(1));
+        verify(messageHandler).onMessage(eq("b2"), eq(TENANT), any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testOnlyContiguousOffsetsCommitted() {
+        doThrow(new IllegalStateException()).when(messageHandler).onMessage(eq("b1"), any(), any());
+        doThrow(new IllegalStateException()).when(recoveryCallback).recover(any());
+
+        listener.onMessage(records, acknowledgment, consumer);
+
+        verify(messageHandler).onMessage(eq("a2"), eq(TENANT), any());
+        verify(messageHandler, never()).onMessage(eq("b2"), any(), any());
+        verify(acknowledgment, never()).acknowledge();
+        verify(consumer).commitSync(singletonMap(PARTITION, new OffsetAndMetadata(11)));
+        verify(consumer).seek(PARTITION, 11);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
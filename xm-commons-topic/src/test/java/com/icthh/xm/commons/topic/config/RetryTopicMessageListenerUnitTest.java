@@ -0,0 +1,142 @@
+package com.icthh.xm.commons.topic.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+
+public class RetryTopicMessageListenerUnitTest {
+
+    private static final String TENANT = "test";
+    private static final String TOPIC = "kafka-queue";
+    private static final String RETRY_TOPIC = TOPIC + ".retry-1";
+
+    private MessageHandler messageHandler;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private ConsumerRecoveryCallback recoveryCallback;
+    private Acknowledgment acknowledgment;
+    private Consumer<?, ?> consumer;
+    private TopicConfig topicConfig;
+    private MessageListener messageListener;
+    private RetryTopicForwarder forwarder;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        messageHandler = mock(MessageHandler.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        recoveryCallback = mock(ConsumerRecoveryCallback.class);
+        acknowledgment = mock(Acknowledgment.class);
+        consumer = mock(Consumer.class);
+
+        SettableListenableFuture future = new SettableListenableFuture<>();
+        future.set(null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+
+        topicConfig = new TopicConfig();
+        topicConfig.setTopicName(TOPIC);
+        topicConfig.setBackOffPeriod(1000L);
+        topicConfig.setRetryTopicsCount(2);
+        MessageRetryTracker retryTracker = new MessageRetryTracker(10);
+        messageListener = new MessageListener(messageHandler, TENANT, topicConfig, retryTracker);
+        forwarder = new RetryTopicForwarder(topicConfig, kafkaTemplate, retryTracker, recoveryCallback);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedRecordForwardedToRetryTopic() {
+        doThrow(new IllegalStateException()).when(messageHandler).onMessage(any(), eq(TENANT), any());
+        // not valid UTF-8, forwarded as is
+        byte[] body = {(byte) 0xc3, (byte) 0x28, (byte) 0xff};
+
+        long start = System.currentTimeMillis();
+        new RetryTopicMessageListener(messageListener, forwarder, 0)
+            .onMessage(new ConsumerRecord<>(TOPIC, 0, 10, "key", body), acknowledgment, consumer);
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        ProducerRecord<String, byte[]> retry = captor.getValue();
+        assertEquals(RETRY_TOPIC, retry.topic());
+        assertEquals("key", retry.key());
+        assertArrayEquals(body, retry.value());
+        assertNotNull(retry.headers().lastHeader("xm-rid"));
+        long due = Long.parseLong(new String(retry.headers().lastHeader(RetryTopicForwarder.RETRY_DUE_HEADER).value(),
+            StandardCharsets.UTF_8));
+        assertEquals(start + 1000, due, 100);
+        verify(acknowledgment).acknowledge();
+        verifyZeroInteractions(recoveryCallback);
+    }
+
+    @Test
+    public void testLastRetryTopicRecordRecovered() {
+        doThrow(new IllegalStateException()).when(messageHandler).onMessage(eq("body"), eq(TENANT), any());
+        ConsumerRecord<String, byte[]> record =
+            new ConsumerRecord<>(TOPIC + ".retry-2", 0, 10, "key", bytes("body"));
+
+        new RetryTopicMessageListener(messageListener, forwarder, 2).onMessage(record, acknowledgment, consumer);
+
+        verify(recoveryCallback).recover(record);
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testRecordPostponedTillDue() {
+        AbstractMessageListenerContainer container = mock(AbstractMessageListenerContainer.class);
+        RetryTopicMessageListener listener = new RetryTopicMessageListener(messageListener, forwarder, 1);
+        listener.setContainer(container);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(RETRY_TOPIC, 0, 10, "key", bytes("body"));
+        record.headers().add(RetryTopicForwarder.RETRY_DUE_HEADER,
+            String.valueOf(System.currentTimeMillis() + 60_000).getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, byte[]> next = new ConsumerRecord<>(RETRY_TOPIC, 0, 11, "key", bytes("next"));
+
+        listener.onMessage(record, acknowledgment, consumer);
+        listener.onMessage(next, acknowledgment, consumer);
+
+        verify(consumer).seek(new TopicPartition(RETRY_TOPIC, 0), 10);
+        verify(container).pause();
+        verifyZeroInteractions(messageHandler, acknowledgment);
+    }
+
+    @Test
+    public void testRecordWithInvalidDueProcessedNow() {
+        AbstractMessageListenerContainer container = mock(AbstractMessageListenerContainer.class);
+        RetryTopicMessageListener listener = new RetryTopicMessageListener(messageListener, forwarder, 1);
+        listener.setContainer(container);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(RETRY_TOPIC, 0, 10, "key", bytes("body"));
+        record.headers().add(RetryTopicForwarder.RETRY_DUE_HEADER, bytes("not-a-number"));
+
+        listener.onMessage(record, acknowledgment, consumer);
+
+        verify(messageHandler).onMessage(eq("body"), eq(TENANT), any());
+        verify(acknowledgment).acknowledge();
+        verifyZeroInteractions(consumer, container);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package com.icthh.xm.commons.topic.config;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.kafka.listener.adapter.RetryingMessageListenerAdapter.CONTEXT_RECORD;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.RetryContext;
+
+import java.nio.charset.StandardCharsets;
+
+public class SharedMessageListenerUnitTest {
+
+    private static final String SHARED_TOPIC = "shared-queue";
+    private static final String TENANT_TOPIC = "tenant1_queue";
+
+    private MessageHandler messageHandler;
+    private Acknowledgment acknowledgment;
+    private SharedMessageListener listener;
+    private TopicConfig sharedConfig;
+    private TopicConfig tenantConfig;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        messageHandler = mock(MessageHandler.class);
+        acknowledgment = mock(Acknowledgment.class);
+        listener = new SharedMessageListener(mock(KafkaTemplate.class), new MessageRetryTracker(10));
+
+        sharedConfig = topicConfig(SHARED_TOPIC);
+        tenantConfig = topicConfig(TENANT_TOPIC);
+        listener.register("tenant1", sharedConfig, messageHandler);
+        listener.register("tenant2", sharedConfig, messageHandler);
+        listener.register("tenant1", tenantConfig, messageHandler);
+    }
+
+    @Test
+    public void testRoutedByTenantHeader() {
+        ConsumerRecord<String, byte[]> record = record(SHARED_TOPIC);
+        record.headers().add(SharedMessageListener.TENANT_HEADER, "tenant2".getBytes(StandardCharsets.UTF_8));
+
+        listener.onMessage(record, acknowledgment);
+
+        verify(messageHandler).onMessage(eq("body"), eq("tenant2"), eq(sharedConfig));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testRoutedByTopic() {
+        listener.onMessage(record(TENANT_TOPIC), acknowledgment);
+
+        verify(messageHandler).onMessage(eq("body"), eq("tenant1"), eq(tenantConfig));
+    }
+
+    @Test
+    public void testNotRoutedRecordNotAcknowledged() {
+        assertNotRouted(record(SHARED_TOPIC));
+        listener.unregister("tenant1", tenantConfig);
+        assertNotRouted(record(TENANT_TOPIC));
+
+        verify(messageHandler, never()).onMessage(any(), any(), any());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    public void testUnregisteredTenantNotAcknowledged() {
+        listener.unregister("tenant2", sharedConfig);
+        ConsumerRecord<String, byte[]> record = record(SHARED_TOPIC);
+        record.headers().add(SharedMessageListener.TENANT_HEADER, "tenant2".getBytes(StandardCharsets.UTF_8));
+
+        assertNotRouted(record);
+
+        verifyZeroInteractions(messageHandler);
+        verifyZeroInteractions(acknowledgment);
+    }
+
+    @Test
+    public void testRecordBeforeTenantRegisteredRedelivered() {
+        ConsumerRecord<String, byte[]> record = record("tenant3_queue");
+        TopicConfig config = topicConfig("tenant3_queue");
+
+        assertNotRouted(record);
+        verifyZeroInteractions(acknowledgment);
+
+        listener.register("tenant3", config, messageHandler);
+        listener.onMessage(record, acknowledgment);
+
+        verify(messageHandler).onMessage(eq("body"), eq("tenant3"), eq(config));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testRemovedTenantRecordNotRecovered() {
+        ConsumerRecord<String, byte[]> record = record(TENANT_TOPIC);
+        RetryContext context = mock(RetryContext.class);
+        when(context.getAttribute(CONTEXT_RECORD)).thenReturn(record);
+        listener.unregister("tenant1", tenantConfig);
+
+        try {
+            listener.recover(context);
+            fail("record of removed tenant is recovered");
+        } catch (IllegalStateException e) {
+            verifyZeroInteractions(acknowledgment);
+        }
+    }
+
+    private void assertNotRouted(ConsumerRecord<String, byte[]> record) {
+        try {
+            listener.onMessage(record, acknowledgment);
+            fail("not routed record is processed");
+        } catch (IllegalStateException e) {
+            // record is redelivered by the container error handler
+        }
+    }
+
+    private static TopicConfig topicConfig(String topicName) {
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setKey(topicName);
+        topicConfig.setTopicName(topicName);
+        topicConfig.setShared(true);
+        return topicConfig;
+    }
+
+    private static ConsumerRecord<String, byte[]> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 10, null, "body".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,82 @@
+package com.icthh.xm.commons.topic.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringKafkaTemplateAdapterUnitTest {
+
+    private static final String TOPIC = "dead-letter-queue";
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private SettableListenableFuture<SendResult<String, String>> sent;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        sent = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValueSentAsString() throws Exception {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(TOPIC, "key", bytes("body"));
+        record.headers().add(MessageRetryTracker.RID_HEADER, bytes("rid"));
+
+        ListenableFuture<SendResult<String, byte[]>> result = new StringKafkaTemplateAdapter(kafkaTemplate)
+            .send(record);
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals(TOPIC, captor.getValue().topic());
+        assertEquals("key", captor.getValue().key());
+        assertEquals("body", captor.getValue().value());
+        assertArrayEquals(bytes("rid"), captor.getValue().headers().lastHeader(MessageRetryTracker.RID_HEADER).value());
+
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(TOPIC, 0), 0, 1, 0, 0L, 0, 0);
+        sent.set(new SendResult<>(captor.getValue(), metadata));
+        assertSame(record, result.get().getProducerRecord());
+        assertSame(metadata, result.get().getRecordMetadata());
+    }
+
+    @Test
+    @SuppressWarnings({"deprecation", "unchecked"})
+    public void testDeprecatedRecoveryCallbackSendsString() {
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setTopicName("kafka-queue");
+        topicConfig.setDeadLetterQueue(TOPIC);
+
+        new ConsumerRecoveryCallback("test", topicConfig, kafkaTemplate)
+            .recover(new ConsumerRecord<>("kafka-queue", 0, 10, null, bytes("body")));
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals(TOPIC, captor.getValue().topic());
+        assertEquals("body", captor.getValue().value());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,191 @@
+package com.icthh.xm.commons.topic.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import com.icthh.xm.commons.topic.message.MessageHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TopicConsumerMetricsUnitTest {
+
+    private static final String TENANT = "tenant1";
+
+    private MetricRegistry metricRegistry;
+    private TopicConsumerProperties.Metrics properties;
+    private TopicConsumerMetrics consumerMetrics;
+    private TopicConfig topicConfig;
+
+    @Before
+    public void before() {
+        metricRegistry = new MetricRegistry();
+        properties = new TopicConsumerProperties.Metrics();
+        properties.setLagSampleInterval(Long.MAX_VALUE);
+        consumerMetrics = new TopicConsumerMetrics(metricRegistry, properties);
+        topicConfig = new TopicConfig();
+        topicConfig.setKey("key");
+        topicConfig.setTopicName("queue");
+        topicConfig.setRetriesCount(1);
+    }
+
+    @Test
+    public void testCardinality() {
+        consumerMetrics.getConsumerMetrics(TENANT, topicConfig);
+        properties.setCardinality(TopicConsumerProperties.Cardinality.TOPIC);
+        consumerMetrics.getConsumerMetrics(TENANT, topicConfig);
+        consumerMetrics.getConsumerMetrics("tenant2", topicConfig);
+        properties.setCardinality(TopicConsumerProperties.Cardinality.NONE);
+        consumerMetrics.getConsumerMetrics(TENANT, topicConfig);
+
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.tenant1.queue.processing"));
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.queue.processing"));
+        assertTrue(metricRegistry.getCounters().containsKey("topic.consumer.dead-letters"));
+        assertFalse(metricRegistry.getTimers().containsKey("topic.consumer.tenant2.queue.processing"));
+        assertEquals(3, metricRegistry.getTimers().size());
+        assertSame(consumerMetrics.getConsumerMetrics(TENANT, topicConfig).getErrors(),
+            metricRegistry.counter("topic.consumer.errors"));
+    }
+
+    @Test
+    public void testProcessingMetrics() {
+        ConsumerMetrics metrics = consumerMetrics.getConsumerMetrics(TENANT, topicConfig);
+        MessageHandler messageHandler = mock(MessageHandler.class);
+        MessageListener listener =
+            new MessageListener(messageHandler, TENANT, topicConfig, new MessageRetryTracker(10), metrics);
+        ConsumerRecord<String, byte[]> record =
+            new ConsumerRecord<>("queue", 0, 1, "key", "body".getBytes(StandardCharsets.UTF_8));
+        doThrow(new IllegalStateException()).doNothing()
+            .when(messageHandler).onMessage(any(), eq(TENANT), eq(topicConfig));
+
+        try {
+            listener.onMessage(record, mock(Acknowledgment.class));
+        } catch (IllegalStateException e) {
+            // retried by the container
+        }
+        listener.onMessage(record, mock(Acknowledgment.class));
+
+        assertEquals(2, metrics.getProcessing().getCount());
+        assertEquals(1, metrics.getErrors().getCount());
+        assertEquals(1, metrics.getRetries().getCount());
+        assertEquals(0, metrics.getDeadLetters().getCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLagSampledFromContainerMetrics() {
+        MessageListenerContainer first = container(5.0, 7.0);
+        MessageListenerContainer second = container(3.0, Double.NaN);
+        MessageListenerContainer failed = mock(MessageListenerContainer.class);
+        when(failed.metrics()).thenThrow(new IllegalStateException("not running"));
+
+        consumerMetrics.addConsumer(TENANT, topicConfig, first);
+        consumerMetrics.addConsumer(TENANT, topicConfig, second);
+        consumerMetrics.addConsumer(TENANT, topicConfig, failed);
+        consumerMetrics.sampleLag();
+
+        Gauge<Long> lag = metricRegistry.getGauges().get("topic.consumer.tenant1.queue.lag");
+        assertEquals(Long.valueOf(15), lag.getValue());
+
+        consumerMetrics.removeConsumer(first);
+        assertEquals(Long.valueOf(3), lag.getValue());
+    }
+
+    @Test
+    public void testMetricsRemovedWithLastContainer() {
+        MessageListenerContainer first = container(1.0);
+        MessageListenerContainer second = container(2.0);
+        MessageListenerContainer other = container(3.0);
+        TopicConfig otherTopicConfig = new TopicConfig();
+        otherTopicConfig.setKey("other");
+        otherTopicConfig.setTopicName("other-queue");
+        consumerMetrics.getConsumerMetrics(TENANT, topicConfig);
+        consumerMetrics.getConsumerMetrics(TENANT, otherTopicConfig);
+        consumerMetrics.addConsumer(TENANT, topicConfig, first);
+        consumerMetrics.addConsumer(TENANT, topicConfig, second);
+        consumerMetrics.addConsumer(TENANT, otherTopicConfig, other);
+
+        consumerMetrics.removeConsumer(first);
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.tenant1.queue.processing"));
+        assertTrue(metricRegistry.getGauges().containsKey("topic.consumer.tenant1.queue.lag"));
+
+        consumerMetrics.removeConsumer(second);
+        assertFalse(metricRegistry.getNames().stream()
+                        .anyMatch(name -> name.startsWith("topic.consumer.tenant1.queue.")));
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.tenant1.other-queue.processing"));
+        assertTrue(metricRegistry.getCounters().containsKey("topic.consumer.tenant1.other-queue.errors"));
+        assertTrue(metricRegistry.getGauges().containsKey("topic.consumer.tenant1.other-queue.lag"));
+
+        consumerMetrics.addConsumer(TENANT, topicConfig, first);
+        consumerMetrics.sampleLag();
+        assertEquals(1L, metricRegistry.getGauges().get("topic.consumer.tenant1.queue.lag").getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSharedConsumerMetricsRemovedWithTenant() {
+        SharedMessageListener listener =
+            new SharedMessageListener(mock(KafkaTemplate.class), new MessageRetryTracker(10), consumerMetrics);
+        MessageListenerContainer container = container(1.0);
+        MessageHandler messageHandler = mock(MessageHandler.class);
+        listener.register(TENANT, topicConfig, messageHandler);
+        listener.register("tenant2", topicConfig, messageHandler);
+        listener.register(TENANT, topicConfig, messageHandler);
+        consumerMetrics.addConsumer(TENANT, topicConfig, container);
+
+        listener.unregister(TENANT, topicConfig);
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.tenant1.queue.processing"));
+
+        consumerMetrics.removeConsumer(container);
+        assertFalse(metricRegistry.getNames().stream()
+                        .anyMatch(name -> name.startsWith("topic.consumer.tenant1.queue.")));
+        assertTrue(metricRegistry.getTimers().containsKey("topic.consumer.tenant2.queue.processing"));
+
+        listener.unregister("tenant2", topicConfig);
+        listener.unregister("tenant2", topicConfig);
+        assertTrue(metricRegistry.getNames().isEmpty());
+    }
+
+    private static MessageListenerContainer container(double... partitionLags) {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        for (int partition = 0; partition < partitionLags.length; partition++) {
+            Map<String, String> tags = new HashMap<>();
+            tags.put("topic", "queue");
+            tags.put("partition", String.valueOf(partition));
+            metrics.put(new MetricName("records-lag", "consumer-fetch-manager-metrics", "", tags),
+                metric(partitionLags[partition]));
+        }
+        metrics.put(new MetricName("records-lag-max", "consumer-fetch-manager-metrics", "", Collections.emptyMap()),
+            metric(100.0));
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        doReturn(Collections.singletonMap("consumer-0", metrics)).when(container).metrics();
+        return container;
+    }
+
+    private static Metric metric(double value) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
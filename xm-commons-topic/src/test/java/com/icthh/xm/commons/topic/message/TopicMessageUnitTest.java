@@ -0,0 +1,120 @@
+package com.icthh.xm.commons.topic.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.icthh.xm.commons.topic.config.MessageListener;
+import com.icthh.xm.commons.topic.config.MessageRetryTracker;
+import com.icthh.xm.commons.topic.domain.TopicConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+public class TopicMessageUnitTest {
+
+    private static final String TOPIC = "kafka-queue";
+    private static final String TENANT = "test";
+
+    @Test
+    public void testBodyPreview() {
+        TopicMessage message = message("{\"name\": \"value\"}");
+
+        assertEquals("{\"name\"...", message.getBodyPreview(7));
+        assertEquals("{\"name\": \"value\"}", message.getBodyPreview(100));
+        assertEquals("{\"name\": \"value\"}", message.getBodyPreview(null));
+        assertEquals(17, message.getSize());
+    }
+
+    @Test
+    public void testBodyPreviewNotSplitsCharacter() {
+        // characters of 1, 2 and 3 bytes
+        TopicMessage message = message("a\u00e9\u20ac");
+
+        assertEquals("a...", message.getBodyPreview(2));
+        assertEquals("a\u00e9...", message.getBodyPreview(3));
+        assertEquals("a\u00e9...", message.getBodyPreview(5));
+        assertEquals("a\u00e9\u20ac", message.getBodyPreview(6));
+    }
+
+    @Test
+    public void testJsonParsedOnce() {
+        TopicMessage message = message("{\"name\": \"value\"}");
+
+        assertEquals("value", message.getJson().get("name").asText());
+        assertSame(message.getJson(), message.getJson());
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testInvalidJson() {
+        message("{not json").getJson();
+    }
+
+    @Test
+    public void testTombstone() {
+        TopicMessage message = TopicMessage.of(new ConsumerRecord<>(TOPIC, 0, 10, "key", null));
+
+        assertNull(message.getBody());
+        assertNull(message.getJson());
+        assertEquals(0, message.getSize());
+    }
+
+    @Test
+    public void testKeyAndHeadersPassedToTopicMessageHandler() {
+        TopicMessageHandler messageHandler = mock(TopicMessageHandler.class);
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setTopicName(TOPIC);
+        ConsumerRecord<String, byte[]> record =
+            new ConsumerRecord<>(TOPIC, 0, 10, "key", "body".getBytes(StandardCharsets.UTF_8));
+        record.headers().add("type", "created".getBytes(StandardCharsets.UTF_8));
+
+        new MessageListener(messageHandler, TENANT, topicConfig, new MessageRetryTracker(10))
+            .onMessage(record, () -> { });
+
+        ArgumentCaptor<TopicMessage> captor = ArgumentCaptor.forClass(TopicMessage.class);
+        verify(messageHandler).onTopicMessage(captor.capture(), eq(TENANT), any());
+        assertEquals("key", captor.getValue().getKey());
+        assertEquals("created", captor.getValue().getHeader("type"));
+        assertEquals("body", captor.getValue().getBody());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedListenerProcessesRecord() {
+        MessageHandler messageHandler = mock(MessageHandler.class);
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        TopicConfig topicConfig = new TopicConfig();
+        topicConfig.setTopicName(TOPIC);
+
+        new MessageListener(messageHandler, TENANT, topicConfig)
+            .onMessage(new ConsumerRecord<>(TOPIC, 0, 10, null, "body".getBytes(StandardCharsets.UTF_8)),
+                acknowledgment);
+
+        verify(messageHandler).onMessage("body", TENANT, topicConfig);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void testStringHandlerAdapted() {
+        MessageHandler messageHandler = mock(MessageHandler.class);
+        TopicConfig topicConfig = new TopicConfig();
+
+        TopicMessageHandler.adapt(messageHandler).onTopicMessages(
+            Collections.singletonList(message("body")), TENANT, topicConfig);
+
+        verify(messageHandler).onMessages(Collections.singletonList("body"), TENANT, topicConfig);
+    }
+
+    private static TopicMessage message(String body) {
+        return TopicMessage.of(new ConsumerRecord<>(TOPIC, 0, 10, null, body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
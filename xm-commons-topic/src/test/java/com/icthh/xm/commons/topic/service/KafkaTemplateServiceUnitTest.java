@@ -0,0 +1,167 @@
+package com.icthh.xm.commons.topic.service;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.icthh.xm.commons.topic.config.TopicProducerProperties;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+public class KafkaTemplateServiceUnitTest {
+
+    private static final String TOPIC = "kafka-queue";
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplateService kafkaTemplateService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        kafkaTemplateService = new KafkaTemplateService(kafkaTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendAllResultsInRecordsOrder() throws Exception {
+        ProducerRecord<String, String> first = new ProducerRecord<>(TOPIC, "1");
+        ProducerRecord<String, String> second = new ProducerRecord<>(TOPIC, "2");
+        SettableListenableFuture<SendResult<String, String>> firstFuture = new SettableListenableFuture<>();
+        SettableListenableFuture<SendResult<String, String>> secondFuture = new SettableListenableFuture<>();
+        when(kafkaTemplate.send(first)).thenReturn(firstFuture);
+        when(kafkaTemplate.send(second)).thenReturn(secondFuture);
+
+        ListenableFuture<List<SendResult<String, String>>> result =
+            kafkaTemplateService.sendAll(asList(first, second));
+        SendResult<String, String> secondResult = new SendResult<>(second, null);
+        secondFuture.set(secondResult);
+        assertFalse(result.isDone());
+        SendResult<String, String> firstResult = new SendResult<>(first, null);
+        firstFuture.set(firstResult);
+
+        assertEquals(asList(firstResult, secondResult), result.get());
+    }
+
+    @Test(expected = ExecutionException.class)
+    @SuppressWarnings("unchecked")
+    public void testSendAllFailsWithSendError() throws Exception {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.setException(new IllegalStateException("send failed"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+
+        kafkaTemplateService.sendAll(asList(new ProducerRecord<>(TOPIC, "1"), new ProducerRecord<>(TOPIC, "2")))
+            .get();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendAllFailsWithSynchronousSendError() throws Exception {
+        ProducerRecord<String, String> first = new ProducerRecord<>(TOPIC, "1");
+        ProducerRecord<String, String> second = new ProducerRecord<>(TOPIC, "2");
+        ProducerRecord<String, String> third = new ProducerRecord<>(TOPIC, "3");
+        IllegalStateException error = new IllegalStateException("serialization failed");
+        when(kafkaTemplate.send(first)).thenReturn(new SettableListenableFuture<>());
+        when(kafkaTemplate.send(second)).thenThrow(error);
+
+        ListenableFuture<List<SendResult<String, String>>> result =
+            kafkaTemplateService.sendAll(asList(first, second, third));
+
+        try {
+            result.get();
+            fail("send error is not reported");
+        } catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+        verify(kafkaTemplate, never()).send(third);
+    }
+
+    @Test
+    public void testSendAllEmpty() throws Exception {
+        assertTrue(kafkaTemplateService.sendAll(Collections.emptyList()).get().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendWithHeaders() {
+        kafkaTemplateService.send(TOPIC, "key", "data", singletonMap("xm-rid", "rid"));
+
+        ArgumentCaptor<ProducerRecord<String, String>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        assertEquals("key", captor.getValue().key());
+        assertEquals("rid", new String(captor.getValue().headers().lastHeader("xm-rid").value(),
+            StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProducerMetricsRegisteredAgain() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        ObjectProvider<MetricRegistry> metricRegistryProvider = mock(ObjectProvider.class);
+        when(metricRegistryProvider.getIfAvailable()).thenReturn(metricRegistry);
+
+        new KafkaTemplateService(kafkaTemplate, null, new TopicProducerProperties(), null, metricRegistryProvider);
+        KafkaTemplateService service =
+            new KafkaTemplateService(kafkaTemplate, null, new TopicProducerProperties(), null, metricRegistryProvider);
+
+        assertTrue(metricRegistry.getGauges().containsKey("kafka.producer.record-send-rate"));
+        service.destroy();
+        assertTrue(metricRegistry.getGauges().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProducerMetricsNotCreateProducer() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        ObjectProvider<MetricRegistry> metricRegistryProvider = mock(ObjectProvider.class);
+        when(metricRegistryProvider.getIfAvailable()).thenReturn(metricRegistry);
+        KafkaTemplateService service =
+            new KafkaTemplateService(kafkaTemplate, null, new TopicProducerProperties(), null, metricRegistryProvider);
+        Gauge<?> sendRate = metricRegistry.getGauges().get("kafka.producer.record-send-rate");
+
+        assertNull(sendRate.getValue());
+        verify(kafkaTemplate, never()).metrics();
+
+        service.send(TOPIC, "data");
+        sendRate.getValue();
+        verify(kafkaTemplate).metrics();
+    }
+
+    @Test
+    public void testProducerMetrics() {
+        Metric sendRate = mock(Metric.class);
+        when(sendRate.metricValue()).thenReturn(5.0);
+        MetricName sendRateName = new MetricName("record-send-rate", "producer-metrics", "", Collections.emptyMap());
+
+        KafkaProducerMetricsSet metricsSet = new KafkaProducerMetricsSet(() -> singletonMap(sendRateName, sendRate));
+
+        assertEquals(5.0, ((Gauge<?>) metricsSet.getMetrics().get("record-send-rate")).getValue());
+        assertNull(((Gauge<?>) metricsSet.getMetrics().get("batch-size-avg")).getValue());
+    }
+}